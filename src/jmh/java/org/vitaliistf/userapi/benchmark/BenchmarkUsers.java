@@ -0,0 +1,44 @@
+package org.vitaliistf.userapi.benchmark;
+
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.dto.UserPatchDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Sample data shared by the benchmarks.
+ */
+final class BenchmarkUsers {
+
+    private BenchmarkUsers() {
+    }
+
+    static User user(long id) {
+        return new User(id, "user" + id + "@example.com", "John", "Doe", LocalDate.of(1990, 1, 1),
+                "221B Baker Street, London", "+1234567" + String.format("%05d", id % 100_000));
+    }
+
+    static UserDto userDto(long id) {
+        return new UserDto(id, "user" + id + "@example.com", "John", "Doe", LocalDate.of(1990, 1, 1),
+                "221B Baker Street, London", "+1234567" + String.format("%05d", id % 100_000), 0L);
+    }
+
+    static List<UserDto> userDtos(int count) {
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(BenchmarkUsers::userDto)
+                .toList();
+    }
+
+    static UserPostPutDto userPostPutDto() {
+        return new UserPostPutDto("john.doe+benchmark@mail.example.com", "John", "Doe", LocalDate.of(1990, 1, 1),
+                "221B Baker Street, London", "+123456789012");
+    }
+
+    static UserPatchDto userPatchDto() {
+        return new UserPatchDto(null, null, null, null, "10 Downing Street, London", "+123456789013");
+    }
+}
@@ -0,0 +1,50 @@
+package org.vitaliistf.userapi.benchmark;
+
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.repository.UserRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for UserRepository that implements only the methods used by the write paths of the service.
+ * New users get an ID but are not retained, so long benchmark runs do not grow the heap.
+ */
+final class InMemoryUserRepository {
+
+    private InMemoryUserRepository() {
+    }
+
+    static UserRepository create(int preloadedUsers) {
+        Map<Long, User> users = new ConcurrentHashMap<>();
+        for (long id = 1; id <= preloadedUsers; id++) {
+            users.put(id, BenchmarkUsers.user(id));
+        }
+        AtomicLong sequence = new AtomicLong(preloadedUsers);
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(users.get((Long) args[0]));
+                    case "findContactConflicts" -> List.of();
+                    case "flush" -> null;
+                    case "save" -> {
+                        User user = (User) args[0];
+                        if (user.getId() == null) {
+                            user.setId(sequence.incrementAndGet());
+                        } else {
+                            users.put(user.getId(), user);
+                        }
+                        yield user;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
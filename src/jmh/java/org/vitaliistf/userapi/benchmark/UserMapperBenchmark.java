@@ -0,0 +1,36 @@
+package org.vitaliistf.userapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.mapper.UserMapperImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the mapping between User and its DTOs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserMapperBenchmark {
+
+    private final UserMapper userMapper = new UserMapperImpl();
+    private final User user = BenchmarkUsers.user(1);
+    private final UserPostPutDto userPostPutDto = BenchmarkUsers.userPostPutDto();
+
+    @Benchmark
+    public UserDto userToUserDto() {
+        return userMapper.userToUserDto(user);
+    }
+
+    @Benchmark
+    public User userPostPutDtoToUser() {
+        return userMapper.userPostPutDtoToUser(userPostPutDto);
+    }
+}
@@ -0,0 +1,77 @@
+package org.vitaliistf.userapi.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.vitaliistf.userapi.dto.UserDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the serialization of user lists in JSON and in the binary formats offered to internal callers,
+ * with the same ObjectMapper setup as the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    private static final TypeReference<List<UserDto>> USER_LIST = new TypeReference<>() {
+    };
+
+    @Param({"10", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectMapper smileMapper = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+    private final ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+    private List<UserDto> users;
+    private byte[] json;
+    private byte[] smile;
+    private byte[] cbor;
+
+    @Setup
+    public void setUp() throws Exception {
+        users = BenchmarkUsers.userDtos(size);
+        json = objectMapper.writeValueAsBytes(users);
+        smile = smileMapper.writeValueAsBytes(users);
+        cbor = cborMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeSmile() throws Exception {
+        return smileMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public List<UserDto> deserializeJson() throws Exception {
+        return objectMapper.readValue(json, USER_LIST);
+    }
+
+    @Benchmark
+    public List<UserDto> deserializeSmile() throws Exception {
+        return smileMapper.readValue(smile, USER_LIST);
+    }
+
+    @Benchmark
+    public List<UserDto> deserializeCbor() throws Exception {
+        return cborMapper.readValue(cbor, USER_LIST);
+    }
+}
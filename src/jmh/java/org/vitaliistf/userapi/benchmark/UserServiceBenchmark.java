@@ -0,0 +1,54 @@
+package org.vitaliistf.userapi.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.userapi.cache.UserCache;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.mapper.UserMapperImpl;
+import org.vitaliistf.userapi.service.UserService;
+import org.vitaliistf.userapi.service.impl.UserServiceImpl;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the write paths of UserServiceImpl against an in-memory repository,
+ * isolating the service logic from the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int PRELOADED_USERS = 1000;
+
+    private final UserMapper userMapper = new UserMapperImpl();
+    private UserService userService;
+
+    @Setup
+    public void setUp() {
+        UserCache userCache = new UserCache(PRELOADED_USERS, Duration.ofMinutes(10), false, new SimpleMeterRegistry());
+        userService = new UserServiceImpl(InMemoryUserRepository.create(PRELOADED_USERS), userMapper, userCache,
+                null, Optional.empty(), Optional.empty(), 18, 50, 1000, 1000, 100000, true, Duration.ZERO);
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(userMapper.userPostPutDtoToUser(BenchmarkUsers.userPostPutDto()));
+    }
+
+    @Benchmark
+    public User updateUser() {
+        return userService.updateUser(1L, userMapper.userPostPutDtoToUser(BenchmarkUsers.userPostPutDto()));
+    }
+
+    @Benchmark
+    public User partialUpdateUser() {
+        return userService.partialUpdateUser(2L, userMapper.userPatchDtoToUser(BenchmarkUsers.userPatchDto()));
+    }
+}
@@ -0,0 +1,120 @@
+package org.vitaliistf.userapi.benchmark;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.*;
+import org.openjdk.jmh.annotations.*;
+import org.vitaliistf.userapi.dto.UserPatchDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.util.MinimumAge;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the bean validation of the write DTOs, including the email and phone number checks,
+ * against the former regular expression constraints, and of the minimum age check against Period.between.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserValidationBenchmark {
+
+    private static final int MIN_AGE = 18;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+
+    private final UserPostPutDto validUserPostPutDto = BenchmarkUsers.userPostPutDto();
+    private final UserPostPutDto invalidUserPostPutDto = new UserPostPutDto(
+            "john.doe.with.a.rather.long.local.part@mail.example.c0m", "", "Doe",
+            LocalDate.of(1990, 1, 1), null, "+12345");
+    private final UserPatchDto userPatchDto = BenchmarkUsers.userPatchDto();
+    private final RegexUserPostPutDto validRegexUserPostPutDto = RegexUserPostPutDto.of(validUserPostPutDto);
+    private final RegexUserPostPutDto invalidRegexUserPostPutDto = RegexUserPostPutDto.of(invalidUserPostPutDto);
+    private final MinimumAge minimumAge = new MinimumAge(MIN_AGE);
+    private final LocalDate birthDate = validUserPostPutDto.birthDate();
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPostPutDto>> validateUserPostPutDto() {
+        return validator.validate(validUserPostPutDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPostPutDto>> validateInvalidUserPostPutDto() {
+        return validator.validate(invalidUserPostPutDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserPatchDto>> validateUserPatchDto() {
+        return validator.validate(userPatchDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegexUserPostPutDto>> validateRegexUserPostPutDto() {
+        return validator.validate(validRegexUserPostPutDto);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<RegexUserPostPutDto>> validateInvalidRegexUserPostPutDto() {
+        return validator.validate(invalidRegexUserPostPutDto);
+    }
+
+    @Benchmark
+    public boolean checkAgeWithPeriod() {
+        return Period.between(birthDate, LocalDate.now()).getYears() >= MIN_AGE;
+    }
+
+    @Benchmark
+    public boolean checkAgeWithMinimumAge() {
+        return minimumAge.isReachedBy(birthDate);
+    }
+
+    /**
+     * UserPostPutDto with the regular expression constraints used before the hand-written validators.
+     */
+    public record RegexUserPostPutDto(
+            @NotBlank
+            @Email(regexp = "^[\\w!#$%&’*+/=?`{|}~^-]+(?:\\.[\\w!#$%&’*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$",
+                    message = "Email is not valid.")
+            String email,
+
+            @NotBlank(message = "First name should not be empty.")
+            String firstName,
+
+            @NotBlank(message = "Last name should not be empty.")
+            String lastName,
+
+            @Past(message = "Birth date should be in the past.")
+            @NotNull(message = "Birth date should not be empty.")
+            LocalDate birthDate,
+
+            String address,
+
+            @Pattern(regexp = "^\\+[0-9]{10,15}$", message = "Phone number is invalid")
+            String phoneNumber) {
+
+        static RegexUserPostPutDto of(UserPostPutDto dto) {
+            return new RegexUserPostPutDto(dto.email(), dto.firstName(), dto.lastName(), dto.birthDate(),
+                    dto.address(), dto.phoneNumber());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.vitaliistf.userapi.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.vitaliistf.userapi.dto.UserDto;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import static org.vitaliistf.userapi.util.TransactionCallbacks.afterCommit;
+
+/**
+ * Bounded in-process cache of users keyed by ID.
+ * Entries are evicted by size (W-TinyLFU) and by age. Writes are applied after the surrounding transaction commits,
+ * so the cache never exposes uncommitted data.
+ * Every write bumps a generation counter of its key, and a loaded user is only cached if no write to its key happened
+ * while it was loading, so a user loaded before a commit is not cached after the commit evicted or replaced it.
+ */
+@Component
+public class UserCache {
+
+    private static final String CACHE_NAME = "users";
+    /**
+     * Keys share generation counters by hash, so memory stays bounded; a shared counter only skips some caching.
+     */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Long, Optional<UserDto>> cache;
+    private final boolean cacheNotFound;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    /**
+     * Constructor for UserCache.
+     *
+     * @param maximumSize      Maximum number of cached users.
+     * @param expireAfterWrite Time after which a cached user is evicted.
+     * @param cacheNotFound    Whether the absence of a user is cached as well.
+     * @param meterRegistry    The registry where hit, miss and eviction statistics are exposed.
+     */
+    public UserCache(@Value("${app.cache.users.maximum-size}") long maximumSize,
+                     @Value("${app.cache.users.expire-after-write}") Duration expireAfterWrite,
+                     @Value("${app.cache.users.cache-not-found}") boolean cacheNotFound,
+                     MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.cacheNotFound = cacheNotFound;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Retrieves a user by ID, loading and caching it on a miss.
+     * The loader runs outside the cache's compute lock: a blocking JDBC call inside a synchronized map bin
+     * would pin the carrier thread of a virtual thread. Concurrent misses may therefore load the same user twice.
+     * The loaded user is dropped rather than cached if the user was written while it was loading.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param loader The function loading the user on a miss.
+     * @return The user, or an empty Optional if no user exists with the given ID.
+     */
+    public Optional<UserDto> get(Long id, Function<Long, Optional<UserDto>> loader) {
+        Optional<UserDto> cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generations.get(stripe(id));
+        Optional<UserDto> loaded = loader.apply(id);
+        if (loaded.isPresent() || cacheNotFound) {
+            // Checked under the lock of the key, which writes hold while bumping the generation
+            Optional<UserDto> current = cache.asMap().compute(id, (key, cachedUser) ->
+                    cachedUser == null && generations.get(stripe(key)) == generation ? loaded : cachedUser);
+            return current == null ? loaded : current;
+        }
+        return loaded;
+    }
+
+    /**
+     * Retrieves a user by ID if it is cached, without loading it on a miss.
+     *
+     * @param id The ID of the user to retrieve.
+     * @return The cached user, or an empty Optional if the user is not cached.
+     */
+    public Optional<UserDto> getIfPresent(Long id) {
+        Optional<UserDto> cached = cache.getIfPresent(id);
+        return cached == null ? Optional.empty() : cached;
+    }
+
+    /**
+     * Stores the given user once the current transaction commits.
+     *
+     * @param user The user to store.
+     */
+    public void put(UserDto user) {
+        afterCommit(() -> write(user.id(), Optional.of(user)));
+    }
+
+    /**
+     * Evicts the user with the given ID once the current transaction commits.
+     *
+     * @param id The ID of the user to evict.
+     */
+    public void evict(Long id) {
+        afterCommit(() -> write(id, null));
+    }
+
+    /**
+     * Evicts the users with the given IDs once the current transaction commits.
+     *
+     * @param ids The IDs of the users to evict.
+     */
+    public void evictAll(Collection<Long> ids) {
+        afterCommit(() -> ids.forEach(id -> write(id, null)));
+    }
+
+    /**
+     * Replaces or removes the cached user, invalidating the loads in progress for its key.
+     */
+    private void write(Long id, Optional<UserDto> user) {
+        cache.asMap().compute(id, (key, cachedUser) -> {
+            generations.incrementAndGet(stripe(key));
+            return user;
+        });
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,74 @@
+package org.vitaliistf.userapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Compact binary formats offered alongside JSON, negotiated through the Accept and Content-Type headers:
+ * application/x-jackson-smile in both stacks and application/cbor in the blocking one.
+ * Both encode the same Jackson model as JSON, so the DTOs need no separate schema. The mappers are built from
+ * the builder configured by Spring Boot, so dates and other settings are written as in JSON.
+ * JSON stays the first converter, so clients that accept any type still get JSON.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    private static final MimeType[] SMILE_MIME_TYPES = {
+            new MimeType("application", "x-jackson-smile"),
+            new MimeType("application", "*+x-jackson-smile")
+    };
+
+    /**
+     * Smile converter of the blocking stack, replacing the default one registered after the JSON converter.
+     *
+     * @param builder The ObjectMapper builder configured by Spring Boot.
+     * @return The Smile message converter.
+     */
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * CBOR converter of the blocking stack, replacing the default one registered after the JSON converter.
+     *
+     * @param builder The ObjectMapper builder configured by Spring Boot.
+     * @return The CBOR message converter.
+     */
+    @Bean
+    @Profile("!reactive")
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Smile codecs of the reactive stack, replacing the default ones registered after the JSON codecs.
+     * CBOR is left out: the Jackson CBOR encoder of WebFlux cannot encode streams, and custom codecs would be
+     * ordered ahead of JSON.
+     *
+     * @param builder The ObjectMapper builder configured by Spring Boot.
+     * @return The customizer of the WebFlux codecs.
+     */
+    @Bean
+    @Profile("reactive")
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper smileMapper = builder.factory(new SmileFactory()).build();
+        // Without explicit MIME types, codecs built from a mapper would claim the JSON ones
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, SMILE_MIME_TYPES));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+        };
+    }
+}
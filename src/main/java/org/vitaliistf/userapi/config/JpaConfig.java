@@ -0,0 +1,21 @@
+package org.vitaliistf.userapi.config;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.vitaliistf.userapi.repository.ReactiveUserRepository;
+import org.vitaliistf.userapi.repository.UserRepository;
+
+/**
+ * JPA configuration of the blocking stack.
+ * User is a JPA entity, so without the filter JPA would also claim the R2DBC repository of the reactive profile.
+ */
+@Profile("!reactive")
+@Configuration
+@EnableJpaRepositories(
+        basePackageClasses = UserRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveUserRepository.class))
+public class JpaConfig {
+}
@@ -0,0 +1,106 @@
+package org.vitaliistf.userapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.vitaliistf.userapi.routing.ReadYourWritesFilter;
+import org.vitaliistf.userapi.routing.ReplicaRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data sources of the blocking stack when read replicas are configured.
+ * The primary pool is configured by the spring.datasource properties, as without replicas. Replica pools copy
+ * its settings with their own URL, and validate connections sooner so that an unavailable replica is skipped quickly.
+ */
+@Profile("!reactive & !sharding")
+@ConditionalOnProperty(name = "app.datasource.replica-urls")
+@Configuration
+public class ReplicaRoutingConfig {
+
+    /**
+     * The connection pool of the primary.
+     *
+     * @param properties The spring.datasource properties.
+     * @return The connection pool of the primary.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * The data source routing read-only transactions to the replicas.
+     *
+     * @param primaryDataSource   The connection pool of the primary.
+     * @param meterRegistry       The registry where the replica pools are exposed.
+     * @param replicaUrls         The JDBC URLs of the replicas.
+     * @param connectionTimeout   How long a connection to a replica is waited for before reading from the primary.
+     * @param healthCheckInterval The interval between validations of the replicas.
+     * @return The routing data source.
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.replica-urls}") List<String> replicaUrls,
+            @Value("${app.datasource.replica-connection-timeout}") Duration connectionTimeout,
+            @Value("${app.datasource.replica-health-interval}") Duration healthCheckInterval) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            String name = "replica-" + (replicas.size() + 1);
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setPoolName(name);
+            config.setJdbcUrl(url);
+            config.setReadOnly(true);
+            config.setConnectionTimeout(connectionTimeout.toMillis());
+            if (config.getMetricRegistry() == null && config.getMetricsTrackerFactory() == null) {
+                config.setMetricRegistry(meterRegistry);
+            }
+            // Copied into an unstarted pool, which connects on first use rather than at startup
+            HikariDataSource replica = new HikariDataSource();
+            config.copyStateTo(replica);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, healthCheckInterval);
+    }
+
+    /**
+     * The data source of the application, obtaining connections once the transaction is known to be read-only.
+     *
+     * @param replicaRoutingDataSource The routing data source.
+     * @return The data source of the application.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * The filter routing the reads of a client to the primary after its own writes.
+     *
+     * @param window How long the reads of a client go to the primary after its last write.
+     * @return The filter.
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${app.datasource.read-your-writes-window}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
@@ -0,0 +1,14 @@
+package org.vitaliistf.userapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduling of the background jobs of the blocking stack, such as the outbox relay.
+ */
+@Profile("!reactive")
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,141 @@
+package org.vitaliistf.userapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.vitaliistf.userapi.sharding.ShardConnectionProvider;
+import org.vitaliistf.userapi.sharding.ShardMigrations;
+import org.vitaliistf.userapi.sharding.ShardTenantResolver;
+import org.vitaliistf.userapi.sharding.UserContactDirectory;
+import org.vitaliistf.userapi.sharding.UserShards;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shards of the blocking stack (sharding profile).
+ * The main database, configured by the spring.datasource properties, is shard 0. The pools of the other shards copy
+ * its settings with their own URL, and Hibernate opens each session on the shard selected by ShardRouting.
+ */
+@Profile("sharding & !reactive")
+@Configuration
+public class ShardingConfig {
+
+    /**
+     * The connection provider of the shards.
+     *
+     * @param dataSource    The connection pool of the main database.
+     * @param meterRegistry The registry where the shard pools are exposed.
+     * @param shardUrls     The JDBC URLs of the shards other than the main database.
+     * @return The connection provider.
+     * @throws IllegalStateException if no shard URL is set, or one of them is blank.
+     */
+    @Bean
+    public ShardConnectionProvider shardConnectionProvider(
+            HikariDataSource dataSource,
+            MeterRegistry meterRegistry,
+            @Value("${app.datasource.shard-urls}") List<String> shardUrls) {
+        if (shardUrls.isEmpty() || shardUrls.stream().anyMatch(String::isBlank)) {
+            throw new IllegalStateException("app.datasource.shard-urls must list the JDBC URLs of the shards "
+                    + "other than the main database, separated by commas, got '" + String.join(",", shardUrls) + "'");
+        }
+        List<DataSource> shards = new ArrayList<>();
+        shards.add(dataSource);
+        for (String url : shardUrls) {
+            HikariConfig config = new HikariConfig();
+            dataSource.copyStateTo(config);
+            config.setPoolName("shard-" + shards.size());
+            config.setJdbcUrl(url);
+            if (config.getMetricRegistry() == null && config.getMetricsTrackerFactory() == null) {
+                config.setMetricRegistry(meterRegistry);
+            }
+            // Copied into an unstarted pool, which connects on first use rather than at startup
+            HikariDataSource shard = new HikariDataSource();
+            config.copyStateTo(shard);
+            shards.add(shard);
+        }
+        return new ShardConnectionProvider(shards);
+    }
+
+    /**
+     * Makes Hibernate open sessions on the shard of the current thread.
+     *
+     * @param shardConnectionProvider The connection provider of the shards.
+     * @return The customizer of the Hibernate properties.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardingHibernatePropertiesCustomizer(
+            ShardConnectionProvider shardConnectionProvider) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, shardConnectionProvider);
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new ShardTenantResolver());
+        };
+    }
+
+    /**
+     * The placement of users on the shards.
+     *
+     * @param shardConnectionProvider The connection provider of the shards.
+     * @param transactionManager      The transaction manager of the shards.
+     * @return The placement of users.
+     */
+    @Bean
+    public UserShards userShards(ShardConnectionProvider shardConnectionProvider,
+                                 PlatformTransactionManager transactionManager) {
+        return new UserShards(shardConnectionProvider.shardCount(), transactionManager);
+    }
+
+    /**
+     * The owners of emails and phone numbers across shards, claimed on startup for the users of the main database
+     * that have none yet.
+     *
+     * @param shardConnectionProvider The connection provider of the shards.
+     * @param claimTimeout            How old a claim must be before it is taken over from an owner not holding it.
+     * @return The owners of emails and phone numbers.
+     */
+    @Bean(initMethod = "claimUnclaimedUsers")
+    @DependsOnDatabaseInitialization
+    public UserContactDirectory userContactDirectory(
+            ShardConnectionProvider shardConnectionProvider,
+            @Value("${app.sharding.claim-timeout}") Duration claimTimeout) {
+        List<DataSource> shards = new ArrayList<>();
+        // The transaction manager binds the connection of every shard transaction to the main pool, so claims
+        // go through another DataSource instance to get their own connection to the main database
+        shards.add(new DelegatingDataSource(shardConnectionProvider.dataSource(0)));
+        for (int shard = 1; shard < shardConnectionProvider.shardCount(); shard++) {
+            shards.add(shardConnectionProvider.dataSource(shard));
+        }
+        return new UserContactDirectory(shards, claimTimeout);
+    }
+
+    /**
+     * The migrations of the shards other than the main database, run with the Liquibase settings of the main one.
+     *
+     * @param shardConnectionProvider The connection provider of the shards.
+     * @param properties              The spring.liquibase properties.
+     * @return The migrations of the shards.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.liquibase", name = "enabled", matchIfMissing = true)
+    public ShardMigrations shardMigrations(ShardConnectionProvider shardConnectionProvider,
+                                           LiquibaseProperties properties) {
+        List<DataSource> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardConnectionProvider.shardCount(); shard++) {
+            shards.add(shardConnectionProvider.dataSource(shard));
+        }
+        return new ShardMigrations(shards, properties);
+    }
+}
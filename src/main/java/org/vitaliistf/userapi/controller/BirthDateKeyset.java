@@ -0,0 +1,57 @@
+package org.vitaliistf.userapi.controller;
+
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.util.CursorCodec;
+import org.vitaliistf.userapi.util.UserFields;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Keyset position of the birthdate range search.
+ */
+record BirthDateKeyset(LocalDate birthDate, Long id) {
+
+    /**
+     * Decodes the position from the cursor returned with the previous page.
+     *
+     * @param cursor The cursor, or null for the first page.
+     * @return The keyset position, with null components for the first page.
+     */
+    static BirthDateKeyset decode(String cursor) {
+        return cursor == null
+                ? new BirthDateKeyset(null, null)
+                : CursorCodec.decode(cursor, values -> new BirthDateKeyset(LocalDate.parse(values[0]), Long.parseLong(values[1])));
+    }
+
+    /**
+     * Encodes the position following the given user.
+     *
+     * @param last The last user of the page.
+     * @return The cursor of the next page.
+     */
+    static String encodeAfter(User last) {
+        return CursorCodec.encode(last.getBirthDate(), last.getId());
+    }
+
+    /**
+     * Encodes the position following the given user.
+     *
+     * @param last The last user of the page.
+     * @return The cursor of the next page.
+     */
+    static String encodeAfter(UserDto last) {
+        return CursorCodec.encode(last.birthDate(), last.id());
+    }
+
+    /**
+     * Encodes the position following the given row of selected user fields.
+     *
+     * @param last The last row of the page, including the birthdate and the ID.
+     * @return The cursor of the next page.
+     */
+    static String encodeAfter(Map<String, Object> last) {
+        return CursorCodec.encode(last.get(UserFields.BIRTH_DATE), last.get(UserFields.ID));
+    }
+}
@@ -0,0 +1,43 @@
+package org.vitaliistf.userapi.controller;
+
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.util.CursorCodec;
+
+import java.time.Instant;
+
+/**
+ * Keyset position of the incremental sync.
+ */
+record DeltaKeyset(Instant changedAt, Long id) {
+
+    /**
+     * Decodes the position from the cursor returned by the previous sync.
+     *
+     * @param cursor The cursor, or null to start from a time.
+     * @return The keyset position, with null components to start from a time.
+     */
+    static DeltaKeyset decode(String cursor) {
+        return cursor == null
+                ? new DeltaKeyset(null, null)
+                : CursorCodec.decode(cursor, values -> new DeltaKeyset(Instant.parse(values[0]), Long.parseLong(values[1])));
+    }
+
+    /**
+     * Encodes the position following the given change.
+     *
+     * @param last The last change of the page.
+     * @return The cursor of the following changes.
+     */
+    static String encodeAfter(UserDeltaDto last) {
+        return CursorCodec.encode(last.changedAt(), last.id());
+    }
+
+    /**
+     * Encodes this position, to read from it again.
+     *
+     * @return The cursor of the following changes.
+     */
+    String encode() {
+        return CursorCodec.encode(changedAt, id);
+    }
+}
@@ -1,20 +1,29 @@
 package org.vitaliistf.userapi.controller;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.hibernate.TypeMismatchException;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.sharding.UserContactDirectory.ContactType;
 
 import java.time.LocalDateTime;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -26,13 +35,29 @@ public class GlobalExceptionHandler {
     private static final String DETAILS_FIELD = "details";
     private static final String ERROR_CODE_FIELD = "errorCode";
     private static final String TIMESTAMP_FIELD = "timestamp";
+    private static final String EMAIL_UNIQUE_KEY = "uk_user_email";
+    private static final String PHONE_NUMBER_UNIQUE_KEY = "uk_user_phone_number";
+    private static final String CONTACT_CLAIM_KEY = "user_contact.primary";
+    private static final Pattern DUPLICATE_ENTRY = Pattern.compile("Duplicate entry '(.*)' for key '([^']+)'");
+    private static final String ERRORS_METRIC = "users.api.errors";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructor for GlobalExceptionHandler.
+     *
+     * @param meterRegistry The registry where handled errors are counted.
+     */
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
 
     /**
      * Handles ResourceNotFoundException and returns a corresponding error response.
      */
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<Map<String, String>> handleResourceNotFoundException(ResourceNotFoundException ex) {
-        return buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage());
+        return buildErrorResponse(HttpStatus.NOT_FOUND, ex, ex.getMessage());
     }
 
     /**
@@ -40,7 +65,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(InvalidAgeException.class)
     public ResponseEntity<Map<String, String>> handleInvalidAgeException(InvalidAgeException ex) {
-        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
     }
 
     /**
@@ -48,7 +73,65 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(InvalidDateRangeException.class)
     public ResponseEntity<Map<String, String>> handleInvalidDateRangeException(InvalidDateRangeException ex) {
-        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles InvalidCursorException and returns a corresponding error response.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidCursorException(InvalidCursorException ex) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles InvalidFieldsException and returns a corresponding error response.
+     */
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidFieldsException(InvalidFieldsException ex) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles InvalidSearchQueryException and returns a corresponding error response.
+     */
+    @ExceptionHandler(InvalidSearchQueryException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidSearchQueryException(InvalidSearchQueryException ex) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles BatchTooLargeException and returns a corresponding error response.
+     */
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<Map<String, String>> handleBatchTooLargeException(BatchTooLargeException ex) {
+        return buildErrorResponse(HttpStatus.BAD_REQUEST, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles ImportJobStateException and returns a corresponding error response.
+     */
+    @ExceptionHandler(ImportJobStateException.class)
+    public ResponseEntity<Map<String, String>> handleImportJobStateException(ImportJobStateException ex) {
+        return buildErrorResponse(HttpStatus.CONFLICT, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles PreconditionFailedException and returns a corresponding error response.
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return buildErrorResponse(HttpStatus.PRECONDITION_FAILED, ex, ex.getMessage());
+    }
+
+    /**
+     * Handles OptimisticLockingFailureException, raised when the user was modified between reading and writing it,
+     * and returns the same error response as a failed If-Match precondition.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex) {
+        return buildErrorResponse(HttpStatus.PRECONDITION_FAILED, ex, "User was modified by another request");
     }
 
     /**
@@ -57,7 +140,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(ConstraintViolationException.class)
     protected ResponseEntity<Object> handleConstraintViolationException(ConstraintViolationException e) {
         Map<String, String> violationDetails = getConstraintViolationDetails(e);
-        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, violationDetails);
+        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, e, violationDetails);
     }
 
     /**
@@ -65,7 +148,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(TypeMismatchException.class)
     protected ResponseEntity<Object> handleTypeMismatchException(TypeMismatchException e) {
-        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, e.getMessage());
+        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, e, e.getMessage());
     }
 
     /**
@@ -73,7 +156,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(EmailAlreadyExistsException.class)
     protected ResponseEntity<Object> handleEmailAlreadyExistsException(EmailAlreadyExistsException e) {
-        return buildErrorResponseBody(HttpStatus.CONFLICT, e.getMessage());
+        return buildErrorResponseBody(HttpStatus.CONFLICT, e, e.getMessage());
     }
 
     /**
@@ -81,7 +164,29 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(PhoneNumberAlreadyExistsException.class)
     protected ResponseEntity<Object> handlePhoneNumberAlreadyExistsException(PhoneNumberAlreadyExistsException e) {
-        return buildErrorResponseBody(HttpStatus.CONFLICT, e.getMessage());
+        return buildErrorResponseBody(HttpStatus.CONFLICT, e, e.getMessage());
+    }
+
+    /**
+     * Handles DataIntegrityViolationException and returns the same error response as the corresponding uniqueness
+     * check when a unique key of emails or phone numbers is violated, or a generic conflict otherwise.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<Object> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage());
+        Matcher duplicateEntry = DUPLICATE_ENTRY.matcher(message);
+        String entry = duplicateEntry.find() ? duplicateEntry.group(1) : "";
+        String key = getViolatedUniqueKey(e, duplicateEntry).toLowerCase(Locale.ROOT);
+        if (isUserKey(key, PHONE_NUMBER_UNIQUE_KEY)
+                || key.equals(CONTACT_CLAIM_KEY) && entry.startsWith(ContactType.PHONE_NUMBER.name() + "-")) {
+            return handlePhoneNumberAlreadyExistsException(
+                    new PhoneNumberAlreadyExistsException("Phone number already exists"));
+        }
+        if (isUserKey(key, EMAIL_UNIQUE_KEY)
+                || key.equals(CONTACT_CLAIM_KEY) && entry.startsWith(ContactType.EMAIL.name() + "-")) {
+            return handleEmailAlreadyExistsException(new EmailAlreadyExistsException("Email already exists"));
+        }
+        return buildErrorResponseBody(HttpStatus.CONFLICT, e, "Data integrity violation");
     }
 
     /**
@@ -89,20 +194,52 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     protected ResponseEntity<Object> handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
-        Map<String, String> validationDetails = getMethodArgumentValidationDetails(e);
-        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, validationDetails);
+        Map<String, String> validationDetails = getMethodArgumentValidationDetails(e.getBindingResult());
+        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, e, validationDetails);
+    }
+
+    /**
+     * Handles WebExchangeBindException, the reactive counterpart of MethodArgumentNotValidException,
+     * and returns the same error response.
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    protected ResponseEntity<Object> handleWebExchangeBindException(WebExchangeBindException e) {
+        Map<String, String> validationDetails = getMethodArgumentValidationDetails(e.getBindingResult());
+        return buildErrorResponseBody(HttpStatus.BAD_REQUEST, e, validationDetails);
     }
 
     /**
-     * Extracts details of method argument validation from MethodArgumentNotValidException.
+     * Extracts details of method argument validation from the binding result.
      */
-    private Map<String, String> getMethodArgumentValidationDetails(MethodArgumentNotValidException e) {
-        return e.getBindingResult().getFieldErrors().stream()
+    private Map<String, String> getMethodArgumentValidationDetails(BindingResult bindingResult) {
+        return bindingResult.getFieldErrors().stream()
                 .collect(Collectors.toMap(
                         FieldError::getField,
                         DefaultMessageSourceResolvable::getDefaultMessage));
     }
 
+    /**
+     * Extracts the name of the violated unique key, from Hibernate from a duplicate entry error of the database
+     * or from Hibernate, or an empty string when no constraint is named, as for NOT NULL violations.
+     */
+    private String getViolatedUniqueKey(DataIntegrityViolationException e, Matcher duplicateEntry) {
+        if (duplicateEntry.hasMatch()) {
+            return duplicateEntry.group(2);
+        }
+        if (e.getCause() instanceof org.hibernate.exception.ConstraintViolationException cause
+                && cause.getConstraintName() != null) {
+            return cause.getConstraintName();
+        }
+        return "";
+    }
+
+    /**
+     * Unique keys of the user table are reported with or without the table name, depending on the MySQL version.
+     */
+    private static boolean isUserKey(String key, String name) {
+        return key.equals(name) || key.equals("user." + name);
+    }
+
     /**
      * Extracts details of ConstraintViolation from ConstraintViolationException.
      */
@@ -113,10 +250,21 @@ public class GlobalExceptionHandler {
                         ConstraintViolation::getMessage));
     }
 
+    /**
+     * Counts the handled exception by response status and exception type.
+     */
+    private void countError(HttpStatus status, Exception e) {
+        meterRegistry.counter(ERRORS_METRIC,
+                        "status", String.valueOf(status.value()),
+                        "exception", e.getClass().getSimpleName())
+                .increment();
+    }
+
     /**
      * Builds the error response with a single string message.
      */
-    private ResponseEntity<Map<String, String>> buildErrorResponse(HttpStatus status, String message) {
+    private ResponseEntity<Map<String, String>> buildErrorResponse(HttpStatus status, Exception e, String message) {
+        countError(status, e);
         Map<String, String> body = new LinkedHashMap<>();
         body.put("message", message);
         return ResponseEntity.status(status).body(body);
@@ -125,7 +273,8 @@ public class GlobalExceptionHandler {
     /**
      * Builds the error response body with timestamp, error code, and details.
      */
-    private ResponseEntity<Object> buildErrorResponseBody(HttpStatus status, Object details) {
+    private ResponseEntity<Object> buildErrorResponseBody(HttpStatus status, Exception e, Object details) {
+        countError(status, e);
         Map<String, Object> body = new LinkedHashMap<>();
         body.put(TIMESTAMP_FIELD, LocalDateTime.now());
         body.put(ERROR_CODE_FIELD, status.value());
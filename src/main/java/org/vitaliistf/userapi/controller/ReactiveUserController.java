@@ -0,0 +1,230 @@
+package org.vitaliistf.userapi.controller;
+
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.vitaliistf.userapi.dto.PageDto;
+import org.vitaliistf.userapi.dto.UserBatchItemDto;
+import org.vitaliistf.userapi.dto.UserDeletionDto;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.dto.UserPatchDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.service.ReactiveUserService;
+import org.vitaliistf.userapi.util.CursorCodec;
+import org.vitaliistf.userapi.util.VersionTags;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link UserController}, serving the same endpoints when the reactive profile is active.
+ * Errors are handled by {@link GlobalExceptionHandler} as in the blocking stack.
+ */
+@AllArgsConstructor
+@Profile("reactive")
+@RestController
+@RequestMapping("/api/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+    private final UserMapper userMapper;
+    private final Validator validator;
+
+    /**
+     * Retrieves a page of users.
+     *
+     * @param after The cursor returned with the previous page, if any.
+     * @param limit The maximum number of users in the page.
+     * @return A mono of a page of UserDto objects.
+     */
+    @GetMapping
+    public Mono<PageDto<UserDto>> getAllUsers(@RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit) {
+        return Mono.fromCallable(() -> after == null ? 0L : CursorCodec.decode(after, values -> Long.parseLong(values[0])))
+                .flatMap(afterId -> userService.getAllUsers(afterId, limit))
+                .map(users -> toPage(users,
+                        users.hasNext() ? CursorCodec.encode(users.getContent().getLast().getId()) : null));
+    }
+
+    /**
+     * Exports all users as newline-delimited JSON, or as a JSON array if only JSON is accepted.
+     *
+     * @return A flux of UserDto objects, written to the response as they are read from the database.
+     */
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<UserDto> exportUsers() {
+        return userService.exportUsers().map(userMapper::userToUserDto);
+    }
+
+    /**
+     * Retrieves a user by ID.
+     * When the client sends the ETag of the current version, only the version is looked up.
+     *
+     * @param id          The ID of the user to retrieve.
+     * @param ifNoneMatch The ETags of the versions the client already has, if any.
+     * @return A mono of ResponseEntity with the UserDto object and its ETag, or with no content if not modified.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserDto>> getUserById(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                     String ifNoneMatch) {
+        Mono<ResponseEntity<UserDto>> notModified = ifNoneMatch == null
+                ? Mono.empty()
+                : userService.getUserVersion(id)
+                        .filter(version -> VersionTags.matchesAny(ifNoneMatch, version))
+                        .map(version -> ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(VersionTags.toETag(version))
+                                .build());
+        return notModified.switchIfEmpty(Mono.defer(() -> userService.getUserById(id)
+                .map(userDto -> ResponseEntity.ok().eTag(VersionTags.toETag(userDto.version())).body(userDto))));
+    }
+
+    /**
+     * Creates a new user.
+     *
+     * @param userPostPutDto The DTO for creating a user.
+     * @return A mono of ResponseEntity with the created UserDto object and its ETag.
+     */
+    @PostMapping
+    public Mono<ResponseEntity<UserDto>> createUser(@Valid @RequestBody UserPostPutDto userPostPutDto) {
+        return userService.createUser(userMapper.userPostPutDtoToUser(userPostPutDto))
+                .map(user -> withETag(ResponseEntity.status(HttpStatus.CREATED), user));
+    }
+
+    /**
+     * Creates several users at once.
+     *
+     * @param userPostPutDtos The DTOs for creating users.
+     * @return A mono of the outcome of every element of the batch.
+     */
+    @PostMapping("/batch")
+    public Mono<List<UserBatchItemDto>> createUsers(@RequestBody List<UserPostPutDto> userPostPutDtos) {
+        UserBatch batch = new UserBatch(userPostPutDtos, validator, userMapper);
+        return userService.createUsers(batch.users()).map(batch::complete);
+    }
+
+    /**
+     * Updates an existing user.
+     *
+     * @param id             The ID of the user to update.
+     * @param ifMatch        The ETag of the version the update is based on, if any.
+     * @param userPostPutDto The DTO for updating a user.
+     * @return A mono of ResponseEntity with the updated UserDto object and its ETag.
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<UserDto>> updateUser(@PathVariable Long id,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                    String ifMatch,
+                                                    @Valid @RequestBody UserPostPutDto userPostPutDto) {
+        return Mono.fromCallable(() -> {
+                    User user = userMapper.userPostPutDtoToUser(userPostPutDto);
+                    user.setVersion(VersionTags.fromIfMatch(ifMatch));
+                    return user;
+                })
+                .flatMap(user -> userService.updateUser(id, user))
+                .map(user -> withETag(ResponseEntity.ok(), user));
+    }
+
+    /**
+     * Partially updates an existing user.
+     *
+     * @param id           The ID of the user to partially update.
+     * @param ifMatch      The ETag of the version the update is based on, if any.
+     * @param userPatchDto The DTO for partially updating a user.
+     * @return A mono of ResponseEntity with the partially updated UserDto object and its ETag.
+     */
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<UserDto>> partialUpdateUser(@PathVariable Long id,
+                                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                           String ifMatch,
+                                                           @RequestBody @Valid UserPatchDto userPatchDto) {
+        return Mono.fromCallable(() -> {
+                    User user = userMapper.userPatchDtoToUser(userPatchDto);
+                    user.setVersion(VersionTags.fromIfMatch(ifMatch));
+                    return user;
+                })
+                .flatMap(user -> userService.partialUpdateUser(id, user))
+                .map(user -> withETag(ResponseEntity.ok(), user));
+    }
+
+    /**
+     * Deletes a user by ID.
+     *
+     * @param id The ID of the user to delete.
+     * @return A mono completing once the user is deleted.
+     */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id);
+    }
+
+    /**
+     * Deletes several users at once.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return A mono of the number of deleted users.
+     */
+    @DeleteMapping
+    public Mono<UserDeletionDto> deleteUsers(@RequestBody List<Long> ids) {
+        return userService.deleteUsers(ids).map(UserDeletionDto::new);
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range.
+     *
+     * @param startDate The start date of the birthdate range.
+     * @param endDate   The end date of the birthdate range.
+     * @param after     The cursor returned with the previous page, if any.
+     * @param limit     The maximum number of users in the page.
+     * @return A mono of a page of UserDto objects.
+     */
+    @GetMapping("/search")
+    public Mono<PageDto<UserDto>> getUsersByBirthDateRange(@RequestParam LocalDate startDate,
+                                                           @RequestParam LocalDate endDate,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Integer limit) {
+        return Mono.fromCallable(() -> BirthDateKeyset.decode(after))
+                .flatMap(keyset -> userService.getUsersByBirthDateRange(startDate, endDate,
+                        keyset.birthDate(), keyset.id(), limit))
+                .map(users -> toPage(users,
+                        users.hasNext() ? BirthDateKeyset.encodeAfter(users.getContent().getLast()) : null));
+    }
+
+    /**
+     * Searches users by text.
+     *
+     * @param q     The substring of the names or email, or the prefix of the phone number, to search for.
+     * @param after The cursor returned with the previous page, if any.
+     * @param limit The maximum number of users in the page.
+     * @return A mono of a page of matching UserDto objects.
+     */
+    @GetMapping(value = "/search", params = "q")
+    public Mono<PageDto<UserDto>> searchUsers(@RequestParam String q,
+                                              @RequestParam(required = false) String after,
+                                              @RequestParam(required = false) Integer limit) {
+        return Mono.fromCallable(() -> SearchOffset.decode(after))
+                .flatMap(offset -> userService.searchUsers(q, offset.offset(), limit)
+                        .map(users -> toPage(users, offset.encodeAfter(users))));
+    }
+
+    private ResponseEntity<UserDto> withETag(ResponseEntity.BodyBuilder response, User user) {
+        UserDto userDto = userMapper.userToUserDto(user);
+        return response.eTag(VersionTags.toETag(userDto.version())).body(userDto);
+    }
+
+    private PageDto<UserDto> toPage(Slice<User> users, String nextCursor) {
+        return new PageDto<>(users.map(userMapper::userToUserDto).getContent(), nextCursor);
+    }
+}
@@ -0,0 +1,32 @@
+package org.vitaliistf.userapi.controller;
+
+import org.springframework.data.domain.Slice;
+import org.vitaliistf.userapi.util.CursorCodec;
+
+/**
+ * Position of the ranked text search. Relevance scores are not unique, so pages are addressed by offset.
+ */
+record SearchOffset(int offset) {
+
+    /**
+     * Decodes the position from the cursor returned with the previous page.
+     *
+     * @param cursor The cursor, or null for the first page.
+     * @return The search position.
+     */
+    static SearchOffset decode(String cursor) {
+        return cursor == null
+                ? new SearchOffset(0)
+                : CursorCodec.decode(cursor, values -> new SearchOffset(Integer.parseUnsignedInt(values[0])));
+    }
+
+    /**
+     * Encodes the position following the given page.
+     *
+     * @param page The returned page.
+     * @return The cursor of the next page, or null if this is the last page.
+     */
+    String encodeAfter(Slice<?> page) {
+        return page.hasNext() ? CursorCodec.encode(offset + page.getNumberOfElements()) : null;
+    }
+}
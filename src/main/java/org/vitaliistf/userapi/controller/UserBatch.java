@@ -0,0 +1,95 @@
+package org.vitaliistf.userapi.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.vitaliistf.userapi.dto.UserBatchItemDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.InvalidAgeException;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.service.UserBatchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * A batch of users to create, shared by the blocking and the reactive controllers.
+ * Invalid DTOs are answered right away, the valid ones are passed to the service
+ * and its results are merged back at the positions of the request.
+ */
+final class UserBatch {
+
+    private final UserMapper userMapper;
+    private final UserBatchItemDto[] items;
+    private final List<Integer> validIndexes = new ArrayList<>();
+    private final List<User> users = new ArrayList<>();
+
+    /**
+     * Validates every DTO of the batch on its own.
+     *
+     * @param userPostPutDtos The DTOs for creating users.
+     * @param validator       The validator of the DTOs.
+     * @param userMapper      The mapper of DTOs to users and back.
+     */
+    UserBatch(List<UserPostPutDto> userPostPutDtos, Validator validator, UserMapper userMapper) {
+        this.userMapper = userMapper;
+        this.items = new UserBatchItemDto[userPostPutDtos.size()];
+        for (int i = 0; i < userPostPutDtos.size(); i++) {
+            Set<ConstraintViolation<UserPostPutDto>> violations = validator.validate(userPostPutDtos.get(i));
+            if (violations.isEmpty()) {
+                validIndexes.add(i);
+                users.add(userMapper.userPostPutDtoToUser(userPostPutDtos.get(i)));
+            } else {
+                items[i] = new UserBatchItemDto(i, HttpStatus.BAD_REQUEST.value(), null, violationDetails(violations));
+            }
+        }
+    }
+
+    /**
+     * Returns the users of the valid DTOs, in the order of the request.
+     */
+    List<User> users() {
+        return users;
+    }
+
+    /**
+     * Merges the results of creating the valid users into the response.
+     *
+     * @param results The results of creation, in the order of {@link #users()}.
+     * @return The outcome of every element of the batch.
+     */
+    List<UserBatchItemDto> complete(List<UserBatchResult> results) {
+        for (int i = 0; i < results.size(); i++) {
+            int index = validIndexes.get(i);
+            items[index] = toBatchItem(index, results.get(i));
+        }
+        return Arrays.asList(items);
+    }
+
+    /**
+     * Converts the result of creating a single user into the batch response element.
+     */
+    private UserBatchItemDto toBatchItem(int index, UserBatchResult result) {
+        if (result.isCreated()) {
+            return new UserBatchItemDto(index, HttpStatus.CREATED.value(), userMapper.userToUserDto(result.user()), null);
+        }
+        HttpStatus status = result.error() instanceof InvalidAgeException ? HttpStatus.BAD_REQUEST : HttpStatus.CONFLICT;
+        return new UserBatchItemDto(index, status.value(), null, result.error().getMessage());
+    }
+
+    /**
+     * Extracts property paths and messages of the given constraint violations.
+     */
+    private static Map<String, String> violationDetails(Set<ConstraintViolation<UserPostPutDto>> violations) {
+        return violations.stream()
+                .collect(Collectors.toMap(
+                        violation -> String.valueOf(violation.getPropertyPath()),
+                        ConstraintViolation::getMessage,
+                        (first, second) -> first + " " + second));
+    }
+}
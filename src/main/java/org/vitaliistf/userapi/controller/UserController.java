@@ -1,26 +1,48 @@
 package org.vitaliistf.userapi.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.vitaliistf.userapi.dto.PageDto;
+import org.vitaliistf.userapi.dto.UserBatchItemDto;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.dto.UserDeltasDto;
+import org.vitaliistf.userapi.dto.UserDeletionDto;
 import org.vitaliistf.userapi.dto.UserPatchDto;
 import org.vitaliistf.userapi.dto.UserPostPutDto;
 import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.entity.User;
 import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.service.UserBatchResult;
 import org.vitaliistf.userapi.service.UserService;
+import org.vitaliistf.userapi.util.CursorCodec;
+import org.vitaliistf.userapi.util.UserFields;
+import org.vitaliistf.userapi.util.VersionTags;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Controller for handling user-related operations.
@@ -29,51 +51,149 @@ import java.util.stream.Collectors;
         title = "Users REST API",
         description = "REST API responsible for the resource named Users"))
 @AllArgsConstructor
+@Profile("!reactive")
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
     private final UserService userService;
     private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     /**
-     * Retrieves all users.
+     * Retrieves a page of users.
      *
-     * @return ResponseEntity with a list of UserDto objects.
+     * @param after The cursor returned with the previous page, if any.
+     * @param limit The maximum number of users in the page.
+     * @return ResponseEntity with a page of UserDto objects.
      */
     @Operation(
-            summary = "Retrieves all users.",
-            description = "Retrieves all users that are present in the system.",
+            summary = "Retrieves a page of users.",
+            description = "Retrieves users ordered by ID. Pass the returned nextCursor as 'after' to get the next page.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Users are retrieved.")
+                    @ApiResponse(responseCode = "200", description = "Users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Cursor is not valid.", content = @Content)
             })
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        List<UserDto> userDtoList = users.stream()
-                .map(userMapper::userToUserDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userDtoList);
+    public ResponseEntity<PageDto<UserDto>> getAllUsers(@RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit) {
+        Long afterId = after == null ? null : CursorCodec.decode(after, values -> Long.parseLong(values[0]));
+        Slice<UserDto> users = userService.getAllUsers(afterId, limit);
+        String nextCursor = users.hasNext() ? CursorCodec.encode(users.getContent().getLast().id()) : null;
+        return ResponseEntity.ok(new PageDto<>(users.getContent(), nextCursor));
+    }
+
+    /**
+     * Retrieves a page of users with only the selected fields.
+     *
+     * @param fields The comma-separated fields to return.
+     * @param after  The cursor returned with the previous page, if any.
+     * @param limit  The maximum number of users in the page.
+     * @return ResponseEntity with a page of users keyed by field name.
+     */
+    @Operation(
+            summary = "Retrieves a page of users with only the selected fields.",
+            description = "Retrieves users ordered by ID, reading and returning only the comma-separated 'fields'.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Cursor or fields are not valid.",
+                            content = @Content)
+            })
+    @GetMapping(params = "fields")
+    public ResponseEntity<PageDto<Map<String, Object>>> getAllUserFields(@RequestParam String fields,
+                                                                         @RequestParam(required = false) String after,
+                                                                         @RequestParam(required = false) Integer limit) {
+        Set<String> selectedFields = UserFields.parse(fields);
+        Long afterId = after == null ? null : CursorCodec.decode(after, values -> Long.parseLong(values[0]));
+        Slice<Map<String, Object>> users = userService.getAllUsers(afterId, limit, selectedFields);
+        String nextCursor = users.hasNext() ? CursorCodec.encode(users.getContent().getLast().get(UserFields.ID)) : null;
+        return ResponseEntity.ok(toPage(users, selectedFields, nextCursor));
+    }
+
+    /**
+     * Exports all users as newline-delimited JSON, or as a JSON array if only JSON is accepted.
+     * Either way, users are written to the response as they are read from the database.
+     *
+     * @param accept The Accept header of the request, if any.
+     * @return ResponseEntity with a body that streams users as they are read from the database.
+     */
+    @Operation(
+            summary = "Exports all users.",
+            description = "Streams all users ordered by ID as newline-delimited JSON, one user per line. "
+                    + "Clients accepting application/json but not application/x-ndjson get a JSON array instead.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Users are exported.")
+            })
+    @GetMapping(value = "/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean jsonArray = acceptsJsonArrayOnly(accept);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                if (jsonArray) {
+                    generator.writeStartArray();
+                    userService.exportUsers(user -> writeElement(generator, userMapper.userToUserDto(user)));
+                    generator.writeEndArray();
+                } else {
+                    generator.setRootValueSeparator(null);
+                    userService.exportUsers(user -> writeLine(generator, userMapper.userToUserDto(user)));
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
     /**
      * Retrieves a user by ID.
+     * When the client sends the ETag of the current version, only the version is looked up.
      *
-     * @param id The ID of the user to retrieve.
-     * @return ResponseEntity with a UserDto object.
+     * @param id          The ID of the user to retrieve.
+     * @param ifNoneMatch The ETags of the versions the client already has, if any.
+     * @return ResponseEntity with a UserDto object and its ETag, or with no content if the user is not modified.
      */
     @Operation(
             summary = "Retrieves a user by ID.",
-            description = "Retrieves a user by specified ID.",
+            description = "Retrieves a user by specified ID. The ETag of the response identifies the version of the user.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "A user is retrieved."),
+                    @ApiResponse(responseCode = "304", description = "User is not modified.", content = @Content),
                     @ApiResponse(responseCode = "404", description = "User not found.", content = @Content)
             })
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
-        User user = userService.getUserById(id);
-        UserDto userDto = userMapper.userToUserDto(user);
-        return ResponseEntity.ok(userDto);
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Long version = userService.getUserVersion(id);
+            if (VersionTags.matchesAny(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(VersionTags.toETag(version)).build();
+            }
+        }
+        UserDto userDto = userService.getUserById(id);
+        return ResponseEntity.ok().eTag(VersionTags.toETag(userDto.version())).body(userDto);
+    }
+
+    /**
+     * Retrieves only the selected fields of a user by ID.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param fields The comma-separated fields to return.
+     * @return ResponseEntity with the selected fields of the user.
+     */
+    @Operation(
+            summary = "Retrieves only the selected fields of a user by ID.",
+            description = "Reads and returns only the comma-separated 'fields' of the user with the specified ID.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "A user is retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Fields are not valid.", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "User not found.", content = @Content)
+            })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFieldsById(@PathVariable Long id, @RequestParam String fields) {
+        return ResponseEntity.ok(userService.getUserById(id, UserFields.parse(fields)));
     }
 
     /**
@@ -96,15 +216,37 @@ public class UserController {
         User user = userMapper.userPostPutDtoToUser(userPostPutDto);
         User createdUser = userService.createUser(user);
         UserDto userDto = userMapper.userToUserDto(createdUser);
-        return ResponseEntity.status(HttpStatus.CREATED).body(userDto);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(VersionTags.toETag(userDto.version())).body(userDto);
+    }
+
+    /**
+     * Creates several users at once.
+     *
+     * @param userPostPutDtos The DTOs for creating users.
+     * @return ResponseEntity with the outcome of every element of the batch.
+     */
+    @Operation(
+            summary = "Creates several users at once.",
+            description = "Validates every user on its own and creates the valid ones. "
+                    + "An invalid or conflicting user does not fail the rest of the batch.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Batch was processed, see the per-user status."),
+                    @ApiResponse(responseCode = "400", description = "Batch is too large.", content = @Content)
+            })
+    @PostMapping("/batch")
+    public ResponseEntity<List<UserBatchItemDto>> createUsers(@RequestBody List<UserPostPutDto> userPostPutDtos) {
+        UserBatch batch = new UserBatch(userPostPutDtos, validator, userMapper);
+        List<UserBatchResult> results = userService.createUsers(batch.users());
+        return ResponseEntity.ok(batch.complete(results));
     }
 
     /**
      * Updates an existing user.
      *
-     * @param id            The ID of the user to update.
+     * @param id             The ID of the user to update.
+     * @param ifMatch        The ETag of the version the update is based on, if any.
      * @param userPostPutDto The DTO for updating a user.
-     * @return ResponseEntity with the updated UserDto object.
+     * @return ResponseEntity with the updated UserDto object and its ETag.
      */
     @Operation(
             summary = "Updates an existing user.",
@@ -114,23 +256,29 @@ public class UserController {
                     @ApiResponse(responseCode = "400", description = "User is not valid.", content = @Content),
                     @ApiResponse(responseCode = "404", description = "User not found.", content = @Content),
                     @ApiResponse(responseCode = "409", description = "User email or phone number is not unique.",
+                            content = @Content),
+                    @ApiResponse(responseCode = "412", description = "User was modified since the If-Match version.",
                             content = @Content)
             })
     @PutMapping("/{id}")
     public ResponseEntity<UserDto> updateUser(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                              String ifMatch,
                                               @Valid @RequestBody UserPostPutDto userPostPutDto) {
         User user = userMapper.userPostPutDtoToUser(userPostPutDto);
+        user.setVersion(VersionTags.fromIfMatch(ifMatch));
         User updatedUser = userService.updateUser(id, user);
         UserDto userDto = userMapper.userToUserDto(updatedUser);
-        return ResponseEntity.ok(userDto);
+        return ResponseEntity.ok().eTag(VersionTags.toETag(userDto.version())).body(userDto);
     }
 
     /**
      * Partially updates an existing user.
      *
-     * @param id            The ID of the user to partially update.
+     * @param id           The ID of the user to partially update.
+     * @param ifMatch      The ETag of the version the update is based on, if any.
      * @param userPatchDto The DTO for partially updating a user.
-     * @return ResponseEntity with the partially updated UserDto object.
+     * @return ResponseEntity with the partially updated UserDto object and its ETag.
      */
     @Operation(
             summary = "Partially updates an existing user.",
@@ -140,15 +288,58 @@ public class UserController {
                     @ApiResponse(responseCode = "400", description = "User is not valid.", content = @Content),
                     @ApiResponse(responseCode = "404", description = "User not found.", content = @Content),
                     @ApiResponse(responseCode = "409", description = "User email or phone number is not unique.",
+                            content = @Content),
+                    @ApiResponse(responseCode = "412", description = "User was modified since the If-Match version.",
                             content = @Content)
             })
     @PatchMapping("/{id}")
     public ResponseEntity<UserDto> partialUpdateUser(@PathVariable Long id,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                     String ifMatch,
                                                      @RequestBody @Valid UserPatchDto userPatchDto) {
         User user = userMapper.userPatchDtoToUser(userPatchDto);
+        user.setVersion(VersionTags.fromIfMatch(ifMatch));
         User updatedUser = userService.partialUpdateUser(id, user);
         UserDto userDto = userMapper.userToUserDto(updatedUser);
-        return ResponseEntity.ok(userDto);
+        return ResponseEntity.ok().eTag(VersionTags.toETag(userDto.version())).body(userDto);
+    }
+
+    /**
+     * Partially updates an existing user without returning it, when the client prefers a minimal response.
+     * The user is updated with a single statement and is not read back.
+     *
+     * @param id           The ID of the user to partially update.
+     * @param ifMatch      The ETag of the version the update is based on, if any.
+     * @param userPatchDto The DTO for partially updating a user.
+     * @return ResponseEntity with no content, with the ETag of the new version if the update was based on one.
+     */
+    @Operation(
+            summary = "Partially updates an existing user without returning it.",
+            description = "Updates only user's fields that are not null in the input object "
+                    + "when the request has the 'Prefer: return=minimal' header.",
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Updates partially a user."),
+                    @ApiResponse(responseCode = "400", description = "User is not valid.", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "User not found.", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "User email or phone number is not unique.",
+                            content = @Content),
+                    @ApiResponse(responseCode = "412", description = "User was modified since the If-Match version.",
+                            content = @Content)
+            })
+    @PatchMapping(value = "/{id}", headers = "Prefer=return=minimal")
+    public ResponseEntity<Void> patchUser(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                          String ifMatch,
+                                          @RequestBody @Valid UserPatchDto userPatchDto) {
+        User user = userMapper.userPatchDtoToUser(userPatchDto);
+        user.setVersion(VersionTags.fromIfMatch(ifMatch));
+        userService.patchUser(id, user);
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.noContent()
+                .header("Preference-Applied", "return=minimal");
+        if (user.getVersion() != null) {
+            response.eTag(VersionTags.toETag(user.getVersion() + 1));
+        }
+        return response.build();
     }
 
     /**
@@ -171,27 +362,226 @@ public class UserController {
     }
 
     /**
-     * Retrieves users within a specified birthdate range.
+     * Deletes several users at once.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return ResponseEntity with the number of deleted users.
+     */
+    @Operation(
+            summary = "Deletes several users at once.",
+            description = "Deletes the users with the given IDs. IDs of users that do not exist are ignored.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Users were deleted successfully."),
+                    @ApiResponse(responseCode = "400", description = "Batch is too large.", content = @Content)
+            })
+    @DeleteMapping
+    public ResponseEntity<UserDeletionDto> deleteUsers(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(new UserDeletionDto(userService.deleteUsers(ids)));
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range.
      *
      * @param startDate The start date of the birthdate range.
      * @param endDate   The end date of the birthdate range.
-     * @return ResponseEntity with a list of UserDto objects.
+     * @param after     The cursor returned with the previous page, if any.
+     * @param limit     The maximum number of users in the page.
+     * @return ResponseEntity with a page of UserDto objects.
      */
     @Operation(
             summary = "Retrieves users within a specified birthdate range.",
-            description = "Searches for users using startDate and endDate request parameters.",
+            description = "Searches for users using startDate and endDate request parameters. "
+                    + "Results are ordered by birthdate; pass the returned nextCursor as 'after' to get the next page.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Returns all users that fit requirements."),
+                    @ApiResponse(responseCode = "200", description = "Returns a page of users that fit requirements."),
                     @ApiResponse(responseCode = "400", description = "Request parameters are not valid.",
                             content = @Content)
             })
     @GetMapping("/search")
-    public ResponseEntity<List<UserDto>> getUsersByBirthDateRange(@RequestParam LocalDate startDate,
-                                                                  @RequestParam LocalDate endDate) {
-        List<User> users = userService.getUsersByBirthDateRange(startDate, endDate);
-        List<UserDto> userDtoList = users.stream()
-                .map(userMapper::userToUserDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(userDtoList);
+    public ResponseEntity<PageDto<UserDto>> getUsersByBirthDateRange(@RequestParam LocalDate startDate,
+                                                                     @RequestParam LocalDate endDate,
+                                                                     @RequestParam(required = false) String after,
+                                                                     @RequestParam(required = false) Integer limit) {
+        BirthDateKeyset keyset = BirthDateKeyset.decode(after);
+        Slice<UserDto> users = userService.getUsersByBirthDateRange(startDate, endDate,
+                keyset.birthDate(), keyset.id(), limit);
+        String nextCursor = users.hasNext() ? BirthDateKeyset.encodeAfter(users.getContent().getLast()) : null;
+        return ResponseEntity.ok(new PageDto<>(users.getContent(), nextCursor));
+    }
+
+    /**
+     * Searches users by text.
+     *
+     * @param q     The substring of the names or email, or the prefix of the phone number, to search for.
+     * @param after The cursor returned with the previous page, if any.
+     * @param limit The maximum number of users in the page.
+     * @return ResponseEntity with a page of matching UserDto objects.
+     */
+    @Operation(
+            summary = "Searches users by text.",
+            description = "Retrieves users whose first name, last name or email contains the terms of 'q', "
+                    + "ranked by relevance, or whose phone number starts with 'q' if it is a phone number. "
+                    + "Pass the returned nextCursor as 'after' to get the next page.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Matching users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Query or cursor is not valid.",
+                            content = @Content)
+            })
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<PageDto<UserDto>> searchUsers(@RequestParam String q,
+                                                        @RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit) {
+        SearchOffset offset = SearchOffset.decode(after);
+        Slice<UserDto> users = userService.searchUsers(q, offset.offset(), limit);
+        return ResponseEntity.ok(new PageDto<>(users.getContent(), offset.encodeAfter(users)));
+    }
+
+    /**
+     * Suggests users for type-ahead.
+     *
+     * @param q     The beginnings of words of the names or email to search for.
+     * @param limit The maximum number of suggestions.
+     * @return ResponseEntity with the matching UserDto objects.
+     */
+    @Operation(
+            summary = "Suggests users for type-ahead.",
+            description = "Retrieves users whose first name, last name or email has words starting with, "
+                    + "or a few typos away from, every term of 'q', ranked by relevance.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Suggested users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Query is not valid.", content = @Content)
+            })
+    @GetMapping("/suggest")
+    public ResponseEntity<List<UserDto>> suggestUsers(@RequestParam String q,
+                                                      @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.suggestUsers(q, limit));
+    }
+
+    /**
+     * Retrieves the changes of users following a position of the change stream.
+     *
+     * @param sinceSeq The position of the last change already read.
+     * @param limit    The maximum number of changes.
+     * @return ResponseEntity with the changes and the position to read the next changes from.
+     */
+    @Operation(
+            summary = "Retrieves the changes of users.",
+            description = "Retrieves the creations, updates and deletions of users in commit order, following "
+                    + "the position 'sinceSeq'. Pass the returned lastSeq as 'sinceSeq' to get the next changes.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Changes are retrieved."),
+                    @ApiResponse(responseCode = "404", description = "Change stream is not enabled.",
+                            content = @Content)
+            })
+    @GetMapping("/changes")
+    public ResponseEntity<UserChangesDto> getChanges(@RequestParam(defaultValue = "0") long sinceSeq,
+                                                     @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.getChanges(sinceSeq, limit));
+    }
+
+    /**
+     * Retrieves the users updated or deleted since a time or since the previous sync.
+     *
+     * @param ts     The time to read changes from, when no cursor is given.
+     * @param cursor The cursor returned by the previous sync, if any.
+     * @param limit  The maximum number of changes.
+     * @return ResponseEntity with the changed users and the cursor of the following changes.
+     */
+    @Operation(
+            summary = "Retrieves the users changed since a time.",
+            description = "Retrieves the users updated or deleted since 'ts', or since 'cursor' if given, ordered by "
+                    + "the time of the change. Deleted users come without their state. Keep the returned cursor: "
+                    + "read again with it right away while hasMore is true, and in the next sync otherwise.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Changed users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Time or cursor is not valid.",
+                            content = @Content)
+            })
+    @GetMapping("/changed-since")
+    public ResponseEntity<UserDeltasDto> getChangedSince(@RequestParam(required = false) Instant ts,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer limit) {
+        DeltaKeyset keyset = DeltaKeyset.decode(cursor);
+        Slice<UserDeltaDto> changes = userService.getChangedSince(ts, keyset.changedAt(), keyset.id(), limit);
+        String nextCursor;
+        if (changes.hasContent()) {
+            nextCursor = DeltaKeyset.encodeAfter(changes.getContent().getLast());
+        } else if (cursor != null) {
+            nextCursor = cursor;
+        } else {
+            nextCursor = new DeltaKeyset(ts == null ? Instant.EPOCH : ts, 0L).encode();
+        }
+        return ResponseEntity.ok(new UserDeltasDto(changes.getContent(), nextCursor, changes.hasNext()));
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range with only the selected fields.
+     *
+     * @param startDate The start date of the birthdate range.
+     * @param endDate   The end date of the birthdate range.
+     * @param fields    The comma-separated fields to return.
+     * @param after     The cursor returned with the previous page, if any.
+     * @param limit     The maximum number of users in the page.
+     * @return ResponseEntity with a page of users keyed by field name.
+     */
+    @Operation(
+            summary = "Retrieves a page of users by birthdate range with only the selected fields.",
+            description = "Retrieves users ordered by birthdate and ID, reading and returning only the "
+                    + "comma-separated 'fields'.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Users are retrieved."),
+                    @ApiResponse(responseCode = "400", description = "Range, cursor or fields are not valid.",
+                            content = @Content)
+            })
+    @GetMapping(value = "/search", params = {"fields", "!q"})
+    public ResponseEntity<PageDto<Map<String, Object>>> getUserFieldsByBirthDateRange(
+            @RequestParam LocalDate startDate,
+            @RequestParam LocalDate endDate,
+            @RequestParam String fields,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit) {
+        Set<String> selectedFields = UserFields.parse(fields);
+        BirthDateKeyset keyset = BirthDateKeyset.decode(after);
+        Slice<Map<String, Object>> users = userService.getUsersByBirthDateRange(startDate, endDate,
+                keyset.birthDate(), keyset.id(), limit, selectedFields);
+        String nextCursor = users.hasNext() ? BirthDateKeyset.encodeAfter(users.getContent().getLast()) : null;
+        return ResponseEntity.ok(toPage(users, selectedFields, nextCursor));
+    }
+
+    /**
+     * Builds a page of the selected fields of the users, with the cursor of the next page.
+     */
+    private PageDto<Map<String, Object>> toPage(Slice<Map<String, Object>> users, Set<String> fields,
+                                                String nextCursor) {
+        return new PageDto<>(users.map(user -> UserFields.select(user, fields)).getContent(), nextCursor);
+    }
+
+    private boolean acceptsJsonArrayOnly(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        List<MediaType> acceptedTypes = MediaType.parseMediaTypes(accept);
+        return acceptedTypes.stream().anyMatch(MediaType.APPLICATION_JSON::equalsTypeAndSubtype)
+                && acceptedTypes.stream().noneMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+    }
+
+    /**
+     * Writes a single value followed by a line separator.
+     */
+    private void writeLine(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeElement(JsonGenerator generator, Object value) {
+        try {
+            generator.writeObject(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,99 @@
+package org.vitaliistf.userapi.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.media.Content;
+import lombok.AllArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.vitaliistf.userapi.dto.ImportJobDto;
+import org.vitaliistf.userapi.entity.ImportJob;
+import org.vitaliistf.userapi.service.UserImportService;
+
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * Controller for bulk imports of users from CSV or newline-delimited JSON files.
+ */
+@AllArgsConstructor
+@Profile("!reactive")
+@RestController
+@RequestMapping("/api/users/imports")
+public class UserImportController {
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private final UserImportService userImportService;
+
+    /**
+     * Uploads a file of users and queues its import.
+     *
+     * @param contentType The Content-Type header of the request, telling the format of the file.
+     * @param content     The content of the file, streamed to disk as it is received.
+     * @return ResponseEntity with the queued import and its location.
+     */
+    @Operation(
+            summary = "Imports users from a file.",
+            description = "Accepts a CSV file with a header row naming the user properties, or newline-delimited "
+                    + "JSON with one user per line. The file is imported in the background, "
+                    + "poll the returned location for the progress.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Import is queued."),
+                    @ApiResponse(responseCode = "415", description = "File format is not supported.",
+                            content = @Content)
+            })
+    @PostMapping(consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportJobDto> startImport(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream content) {
+        ImportJob.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+                ? ImportJob.Format.NDJSON
+                : ImportJob.Format.CSV;
+        ImportJobDto job = userImportService.startImport(format, content);
+        URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(job.id()).toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param id The ID of the import.
+     * @return ResponseEntity with the import, its progress and first rejected rows.
+     */
+    @Operation(
+            summary = "Retrieves the progress of an import.",
+            description = "Reports the status, the processed, imported and rejected rows, the processing rate "
+                    + "and the first rejected rows of an import.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import is retrieved."),
+                    @ApiResponse(responseCode = "404", description = "Import not found.", content = @Content)
+            })
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> getImport(@PathVariable Long id) {
+        return ResponseEntity.ok(userImportService.getImport(id));
+    }
+
+    /**
+     * Resumes a failed import after its last committed row.
+     *
+     * @param id The ID of the import.
+     * @return ResponseEntity with the queued import.
+     */
+    @Operation(
+            summary = "Resumes a failed import.",
+            description = "Queues a failed import again. Rows committed before the failure are not imported twice.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Import is queued."),
+                    @ApiResponse(responseCode = "404", description = "Import not found.", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "Import has not failed or its file is gone.",
+                            content = @Content)
+            })
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ImportJobDto> resumeImport(@PathVariable Long id) {
+        return ResponseEntity.accepted().body(userImportService.resumeImport(id));
+    }
+}
@@ -0,0 +1,12 @@
+package org.vitaliistf.userapi.dto;
+
+/**
+ * Data transfer object (DTO) for representing a row rejected by a bulk import.
+ *
+ * @param row     The number of the row in the file, starting at 1 and not counting the CSV header.
+ * @param message The reason of the rejection.
+ */
+public record ImportErrorDto(
+        long row,
+        String message) {
+}
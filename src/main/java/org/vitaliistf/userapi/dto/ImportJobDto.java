@@ -0,0 +1,35 @@
+package org.vitaliistf.userapi.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Data transfer object (DTO) for representing the progress of a bulk import of users.
+ *
+ * @param id            The ID of the import.
+ * @param format        The format of the uploaded file.
+ * @param status        The status of the import: QUEUED, RUNNING, COMPLETED or FAILED.
+ * @param rowsProcessed The number of rows read and committed so far.
+ * @param rowsImported  The number of users created so far.
+ * @param rowsFailed    The number of rows rejected so far.
+ * @param rowsPerSecond The processing rate since the import was last started.
+ * @param errorMessage  The reason the import failed, or null.
+ * @param createdAt     The time of the upload.
+ * @param startedAt     The time the import was last started, or null if it is still queued.
+ * @param finishedAt    The time the import completed or failed, or null.
+ * @param errors        The first rejected rows.
+ */
+public record ImportJobDto(
+        Long id,
+        String format,
+        String status,
+        long rowsProcessed,
+        long rowsImported,
+        long rowsFailed,
+        double rowsPerSecond,
+        String errorMessage,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        List<ImportErrorDto> errors) {
+}
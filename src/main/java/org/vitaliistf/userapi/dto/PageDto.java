@@ -0,0 +1,14 @@
+package org.vitaliistf.userapi.dto;
+
+import java.util.List;
+
+/**
+ * Data transfer object (DTO) for representing a keyset-paginated page of elements.
+ *
+ * @param content    The elements of the page.
+ * @param nextCursor The opaque cursor of the next page, or null if this is the last page.
+ */
+public record PageDto<T>(
+        List<T> content,
+        String nextCursor) {
+}
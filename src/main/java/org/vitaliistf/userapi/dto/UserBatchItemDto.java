@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.dto;
+
+/**
+ * Data transfer object (DTO) for representing the outcome of a single element of a batch request.
+ *
+ * @param index   The position of the element in the request.
+ * @param status  The HTTP status code the element would have received as a standalone request.
+ * @param user    The created user, or null if the element failed.
+ * @param details The failure details, or null if the element succeeded.
+ */
+public record UserBatchItemDto(
+        int index,
+        int status,
+        UserDto user,
+        Object details) {
+}
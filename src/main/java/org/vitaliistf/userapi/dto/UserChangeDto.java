@@ -0,0 +1,24 @@
+package org.vitaliistf.userapi.dto;
+
+import java.time.Instant;
+
+/**
+ * Data transfer object (DTO) for representing a published change of a user.
+ *
+ * @param seq        The position of the change in the change stream.
+ * @param userId     The ID of the changed user.
+ * @param type       The type of the change: CREATED, UPDATED or DELETED.
+ * @param version    The version of the user after the change, or null for a deletion.
+ *                   For a partial update, the version as of the publication, or null if the user was deleted since.
+ * @param user       The user after the change, or null for a deletion.
+ *                   For a partial update, the user as of the publication, or null if the user was deleted since.
+ * @param occurredAt The time the change was committed.
+ */
+public record UserChangeDto(
+        long seq,
+        Long userId,
+        String type,
+        Long version,
+        UserDto user,
+        Instant occurredAt) {
+}
@@ -0,0 +1,14 @@
+package org.vitaliistf.userapi.dto;
+
+import java.util.List;
+
+/**
+ * Data transfer object (DTO) for representing a part of the change stream of users.
+ *
+ * @param changes The changes following the requested position, in stream order.
+ * @param lastSeq The position to read the next changes from.
+ */
+public record UserChangesDto(
+        List<UserChangeDto> changes,
+        long lastSeq) {
+}
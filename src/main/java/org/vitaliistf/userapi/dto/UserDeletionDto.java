@@ -0,0 +1,10 @@
+package org.vitaliistf.userapi.dto;
+
+/**
+ * Data transfer object (DTO) for representing the outcome of a bulk deletion.
+ *
+ * @param deleted The number of deleted users.
+ */
+public record UserDeletionDto(
+        int deleted) {
+}
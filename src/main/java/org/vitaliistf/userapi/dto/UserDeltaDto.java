@@ -0,0 +1,18 @@
+package org.vitaliistf.userapi.dto;
+
+import java.time.Instant;
+
+/**
+ * Data transfer object (DTO) for representing a user changed since an incremental sync.
+ *
+ * @param id        The ID of the changed user.
+ * @param changedAt The time the user was last updated or deleted.
+ * @param deleted   Whether the user was deleted.
+ * @param user      The current state of the user, or null if it was deleted.
+ */
+public record UserDeltaDto(
+        Long id,
+        Instant changedAt,
+        boolean deleted,
+        UserDto user) {
+}
@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.dto;
+
+import java.util.List;
+
+/**
+ * Data transfer object (DTO) for representing a page of users changed since an incremental sync.
+ *
+ * @param changes The changed users, ordered by the time of their change and ID.
+ * @param cursor  The opaque cursor to read the following changes from, now or in the next sync.
+ * @param hasMore Whether more changes can be read right away with the cursor.
+ */
+public record UserDeltasDto(
+        List<UserDeltaDto> changes,
+        String cursor,
+        boolean hasMore) {
+}
@@ -12,5 +12,6 @@ public record UserDto (
         String lastName,
         LocalDate birthDate,
         String address,
-        String phoneNumber) {
+        String phoneNumber,
+        Long version) {
 }
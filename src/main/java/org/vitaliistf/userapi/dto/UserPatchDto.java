@@ -1,8 +1,8 @@
 package org.vitaliistf.userapi.dto;
 
-import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Past;
-import jakarta.validation.constraints.Pattern;
+import org.vitaliistf.userapi.validation.EmailAddress;
+import org.vitaliistf.userapi.validation.PhoneNumber;
 
 import java.time.LocalDate;
 
@@ -10,8 +10,7 @@ import java.time.LocalDate;
  * Data transfer object (DTO) for updating user information.
  */
 public record UserPatchDto(
-        @Email(regexp = "^[\\w!#$%&’*+/=?`{|}~^-]+(?:\\.[\\w!#$%&’*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$",
-                message = "Email is not valid.")
+        @EmailAddress
         String email,
 
         String firstName,
@@ -23,7 +22,7 @@ public record UserPatchDto(
 
         String address,
 
-        @Pattern(regexp = "^\\+[0-9]{10,15}$", message = "Phone number is invalid")
+        @PhoneNumber
         String phoneNumber) {
 
 }
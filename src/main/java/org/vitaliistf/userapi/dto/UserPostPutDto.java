@@ -1,6 +1,8 @@
 package org.vitaliistf.userapi.dto;
 
 import jakarta.validation.constraints.*;
+import org.vitaliistf.userapi.validation.EmailAddress;
+import org.vitaliistf.userapi.validation.PhoneNumber;
 
 import java.time.LocalDate;
 
@@ -9,8 +11,7 @@ import java.time.LocalDate;
  */
 public record UserPostPutDto(
     @NotBlank
-    @Email(regexp = "^[\\w!#$%&’*+/=?`{|}~^-]+(?:\\.[\\w!#$%&’*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$",
-            message = "Email is not valid.")
+    @EmailAddress
     String email,
 
     @NotBlank(message = "First name should not be empty.")
@@ -25,7 +26,7 @@ public record UserPostPutDto(
 
     String address,
 
-    @Pattern(regexp = "^\\+[0-9]{10,15}$", message = "Phone number is invalid")
+    @PhoneNumber
     String phoneNumber) {
 
 }
\ No newline at end of file
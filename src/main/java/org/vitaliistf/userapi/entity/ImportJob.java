@@ -0,0 +1,86 @@
+package org.vitaliistf.userapi.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Entity class representing a bulk import of users from an uploaded file.
+ * The processed rows are the checkpoint of the import: they are committed together with the users they created.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private Format format;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    private long rowsProcessed;
+
+    private long rowsImported;
+
+    private long rowsFailed;
+
+    // Rows processed before the last start, so the rate covers only the rows of the current run
+    private long resumedFromRow;
+
+    private String errorMessage;
+
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    /**
+     * Constructs a queued import.
+     *
+     * @param format    The format of the uploaded file.
+     * @param createdAt The time of the upload.
+     */
+    public ImportJob(Format format, Instant createdAt) {
+        this.format = format;
+        this.status = Status.QUEUED;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Format of an uploaded file.
+     */
+    public enum Format {
+        /**
+         * Comma-separated values with a header row naming the UserPostPutDto properties.
+         */
+        CSV,
+        /**
+         * Newline-delimited JSON, one UserPostPutDto per line.
+         */
+        NDJSON
+    }
+
+    /**
+     * Status of an import.
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,41 @@
+package org.vitaliistf.userapi.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity class representing a row rejected by a bulk import.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+public class ImportJobError {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long jobId;
+
+    private long rowNum;
+
+    private String message;
+
+    /**
+     * Constructs a rejected row.
+     *
+     * @param jobId   The ID of the import.
+     * @param rowNum  The number of the row in the file, starting at 1 and not counting the CSV header.
+     * @param message The reason of the rejection.
+     */
+    public ImportJobError(Long jobId, long rowNum, String message) {
+        this.jobId = jobId;
+        this.rowNum = rowNum;
+        this.message = message;
+    }
+}
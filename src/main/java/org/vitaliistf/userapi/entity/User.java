@@ -1,15 +1,21 @@
 package org.vitaliistf.userapi.entity;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Entity class representing a user.
@@ -17,11 +23,13 @@ import java.time.LocalDate;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 @Entity
 public class User {
+    // JPA maps the entity by the jakarta annotations, R2DBC (reactive profile) by the Spring Data ones
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @org.springframework.data.annotation.Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "user_seq", allocationSize = 50)
     private Long id;
 
     private String email;
@@ -35,4 +43,56 @@ public class User {
     private String address;
 
     private String phoneNumber;
+
+    // Spring Data JPA rejects the Spring Data @Version, so the reactive profile checks the version in its updates
+    @Version
+    private Long version;
+
+    // Set on persist and on dirty flush; bulk updates and the reactive profile set them explicitly
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    private Instant updatedAt;
+
+    /**
+     * Constructs a user that has not been versioned yet.
+     *
+     * @param id          The ID of the user, or null for a new one.
+     * @param email       The email of the user.
+     * @param firstName   The first name of the user.
+     * @param lastName    The last name of the user.
+     * @param birthDate   The birthdate of the user.
+     * @param address     The address of the user.
+     * @param phoneNumber The phone number of the user.
+     */
+    public User(Long id, String email, String firstName, String lastName, LocalDate birthDate, String address,
+                String phoneNumber) {
+        this.id = id;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthDate = birthDate;
+        this.address = address;
+        this.phoneNumber = phoneNumber;
+    }
+
+    /**
+     * Returns the current time at the precision of the timestamp columns.
+     *
+     * @return The current time, truncated to milliseconds.
+     */
+    public static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
+
+    @PrePersist
+    void onCreate() {
+        createdAt = now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = now();
+    }
 }
@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that a batch request contains more elements than allowed.
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+    /**
+     * Constructs a new BatchTooLargeException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public BatchTooLargeException(String message) {
+        super(message);
+    }
+}
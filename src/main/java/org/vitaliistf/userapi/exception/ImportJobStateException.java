@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that an import cannot be resumed in its current status.
+ */
+public class ImportJobStateException extends RuntimeException {
+
+    /**
+     * Constructs a new ImportJobStateException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public ImportJobStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that a malformed pagination cursor was provided.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidCursorException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that a field selection refers to fields that do not exist.
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidFieldsException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
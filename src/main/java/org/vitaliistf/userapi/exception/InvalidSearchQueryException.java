@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that a search query contains no searchable term.
+ */
+public class InvalidSearchQueryException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidSearchQueryException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public InvalidSearchQueryException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package org.vitaliistf.userapi.exception;
+
+/**
+ * Exception indicating that the resource was modified since the version the client based its request on.
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Constructs a new PreconditionFailedException with the specified detail message.
+     *
+     * @param message The detail message.
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -28,6 +28,9 @@ public interface UserMapper {
      * @return The mapped User entity.
      */
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     User userPostPutDtoToUser(UserPostPutDto userPostPutDTO);
 
     /**
@@ -37,5 +40,8 @@ public interface UserMapper {
      * @return The mapped User entity.
      */
     @Mapping(target = "id", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
     User userPatchDtoToUser(UserPatchDto userPatchDTO);
 }
@@ -0,0 +1,71 @@
+package org.vitaliistf.userapi.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.vitaliistf.userapi.dto.UserChangeDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Sink appending published changes to a file as newline-delimited JSON, for local runs and tests.
+ */
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "file")
+@Component
+public class FileUserChangeSink implements UserChangeSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    /**
+     * Constructor for FileUserChangeSink.
+     *
+     * @param objectMapper The mapper the changes are written with.
+     * @param file         The file the changes are appended to.
+     */
+    public FileUserChangeSink(ObjectMapper objectMapper, @Value("${app.outbox.sink.file.path}") Path file) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+    }
+
+    /**
+     * Appends the changes to the file, one per line, and flushes them to disk.
+     *
+     * @param changes The changes, in sequence order.
+     * @throws UncheckedIOException if the changes cannot be written.
+     */
+    @Override
+    public synchronized void publish(List<UserChangeDto> changes) {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            byte[] lines = toLines(changes);
+            try (OutputStream outputStream = Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC)) {
+                outputStream.write(lines);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] toLines(List<UserChangeDto> changes) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (UserChangeDto change : changes) {
+            lines.append(objectMapper.writeValueAsString(change)).append('\n');
+        }
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,56 @@
+package org.vitaliistf.userapi.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.vitaliistf.userapi.dto.UserChangeDto;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Sink keeping the latest published changes in memory, for local runs and tests.
+ */
+@Profile("!reactive")
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "memory")
+@Component
+public class InMemoryUserChangeSink implements UserChangeSink {
+
+    private final Deque<UserChangeDto> changes = new ArrayDeque<>();
+    private final int capacity;
+
+    /**
+     * Constructor for InMemoryUserChangeSink.
+     *
+     * @param capacity The number of latest changes kept.
+     */
+    public InMemoryUserChangeSink(@Value("${app.outbox.sink.memory.capacity}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Keeps the published changes, dropping the oldest ones beyond the capacity.
+     *
+     * @param changes The changes, in sequence order.
+     */
+    @Override
+    public synchronized void publish(List<UserChangeDto> changes) {
+        for (UserChangeDto change : changes) {
+            if (this.changes.size() == capacity) {
+                this.changes.removeFirst();
+            }
+            this.changes.addLast(change);
+        }
+    }
+
+    /**
+     * Returns the kept changes.
+     *
+     * @return The latest published changes, in sequence order.
+     */
+    public synchronized List<UserChangeDto> getChanges() {
+        return List.copyOf(changes);
+    }
+}
@@ -0,0 +1,244 @@
+package org.vitaliistf.userapi.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.vitaliistf.userapi.dto.UserChangeDto;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDto;
+
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Outbox of user changes. Changes are inserted in the transaction that makes them, so a change is published
+ * if and only if it is committed. Published changes are numbered by the relay and can be read back by position.
+ */
+@Profile("!reactive & !sharding")
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+@Component
+public class UserChangeOutbox {
+
+    private static final String INSERT_CHANGE = "INSERT INTO user_change (user_id, type, user_version, payload, "
+            + "occurred_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_CHANGE = "SELECT id, seq, user_id, type, user_version, payload, occurred_at "
+            + "FROM user_change ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for UserChangeOutbox.
+     *
+     * @param jdbcTemplate The JDBC template, sharing the connection of the surrounding JPA transaction.
+     * @param objectMapper The mapper the users are stored with.
+     */
+    public UserChangeOutbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records the creation or update of users, with their state after the change.
+     *
+     * @param type  The type of the change.
+     * @param users The users after the change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSaved(UserChangeType type, List<UserDto> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        Timestamp occurredAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, users.stream()
+                .map(user -> new Object[]{user.id(), type.name(), user.version(), toJson(user), occurredAt})
+                .toList());
+    }
+
+    /**
+     * Records the update of users without their state after the change, for writes that do not read the users back.
+     * The relay fills in the state of the users when it publishes the changes.
+     *
+     * @param ids The IDs of the updated users.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordUpdated(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp occurredAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, ids.stream()
+                .map(id -> new Object[]{id, UserChangeType.UPDATED.name(), null, null, occurredAt})
+                .toList());
+    }
+
+    /**
+     * Records the deletion of users.
+     *
+     * @param ids The IDs of the deleted users.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp occurredAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_CHANGE, ids.stream()
+                .map(id -> new Object[]{id, UserChangeType.DELETED.name(), null, null, occurredAt})
+                .toList());
+    }
+
+    /**
+     * Retrieves published changes following the given position, in stream order.
+     *
+     * @param sinceSeq The position of the last change already read, 0 to read from the start.
+     * @param limit    The maximum number of changes.
+     * @return The changes, and the position to read the next changes from.
+     */
+    @Transactional(readOnly = true)
+    public UserChangesDto findChanges(long sinceSeq, int limit) {
+        List<UserChangeDto> changes = jdbcTemplate.query(SELECT_CHANGE + "WHERE seq > ? ORDER BY seq LIMIT ?",
+                (resultSet, row) -> toChange(resultSet, resultSet.getLong("seq")), sinceSeq, limit);
+        return new UserChangesDto(changes, changes.isEmpty() ? sinceSeq : changes.getLast().seq());
+    }
+
+    /**
+     * Locks the relay position, so that a single relay publishes at a time, and reads the last assigned position.
+     * Must be called in the transaction that records the published changes.
+     *
+     * @return The position of the last published change.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    long lockLastSeq() {
+        Long lastSeq = jdbcTemplate.queryForObject("SELECT last_seq FROM user_change_relay WHERE id = 1 FOR UPDATE",
+                Long.class);
+        return lastSeq == null ? 0L : lastSeq;
+    }
+
+    /**
+     * Retrieves the oldest unpublished changes and numbers them after the given position.
+     *
+     * @param lastSeq The position of the last published change.
+     * @param limit   The maximum number of changes.
+     * @return The outbox IDs of the changes, and the numbered changes.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    List<PendingChange> findUnpublished(long lastSeq, int limit) {
+        return jdbcTemplate.query(SELECT_CHANGE + "WHERE seq IS NULL ORDER BY id LIMIT ?",
+                (resultSet, row) -> new PendingChange(resultSet.getLong("id"), toChange(resultSet, lastSeq + row + 1),
+                        false),
+                limit);
+    }
+
+    /**
+     * Records the given changes as published, with the users filled in by the relay,
+     * and moves the relay position past them.
+     *
+     * @param changes The published changes, in sequence order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    void markPublished(List<PendingChange> changes) {
+        Timestamp publishedAt = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate("UPDATE user_change SET seq = ?, published_at = ?, "
+                + "user_version = COALESCE(user_version, ?), payload = COALESCE(payload, ?) WHERE id = ?", changes.stream()
+                .map(change -> new Object[]{change.change().seq(), publishedAt,
+                        change.filledIn() ? change.change().version() : null,
+                        change.filledIn() && change.change().user() != null ? toJson(change.change().user()) : null,
+                        change.id()})
+                .toList());
+        jdbcTemplate.update("UPDATE user_change_relay SET last_seq = ? WHERE id = 1", changes.getLast().change().seq());
+    }
+
+    /**
+     * Deletes published changes older than the given time, in statements of a bounded size.
+     *
+     * @param publishedBefore The time before which published changes are deleted.
+     * @param chunkSize       The maximum number of changes deleted by a single statement.
+     * @return The number of deleted changes.
+     */
+    int deletePublishedBefore(Instant publishedBefore, int chunkSize) {
+        // Changes are published in seq order, so the newest expired one bounds an index range of expired changes
+        List<Long> lastExpiredSeq = jdbcTemplate.queryForList("SELECT seq FROM user_change "
+                + "WHERE seq IS NOT NULL AND published_at < ? ORDER BY seq DESC LIMIT 1",
+                Long.class, Timestamp.from(publishedBefore));
+        if (lastExpiredSeq.isEmpty()) {
+            return 0;
+        }
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = jdbcTemplate.update("DELETE FROM user_change WHERE seq <= ? ORDER BY seq LIMIT ?",
+                    lastExpiredSeq.getFirst(), chunkSize);
+            deleted += chunk;
+        } while (chunk == chunkSize);
+        return deleted;
+    }
+
+    private UserChangeDto toChange(ResultSet resultSet, long seq) throws SQLException {
+        String payload = resultSet.getString("payload");
+        long version = resultSet.getLong("user_version");
+        boolean deleted = resultSet.wasNull();
+        return new UserChangeDto(seq,
+                resultSet.getLong("user_id"),
+                resultSet.getString("type"),
+                deleted ? null : version,
+                payload == null ? null : fromJson(payload),
+                resultSet.getTimestamp("occurred_at").toInstant());
+    }
+
+    private String toJson(UserDto user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private UserDto fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, UserDto.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * An unpublished change with its outbox ID, numbered for publication.
+     *
+     * @param id       The ID of the change in the outbox.
+     * @param change   The change.
+     * @param filledIn Whether the user was filled in by the relay, after the change was recorded without it.
+     */
+    record PendingChange(long id, UserChangeDto change, boolean filledIn) {
+
+        /**
+         * Checks whether the change is an update recorded without the user.
+         *
+         * @return true if the relay has to fill in the user.
+         */
+        boolean isMissingUser() {
+            return !filledIn && change.user() == null && !UserChangeType.DELETED.name().equals(change.type());
+        }
+
+        /**
+         * Returns this change with the user filled in.
+         *
+         * @param user The current state of the user, or null if the user was deleted since.
+         * @return The change with the user and its version.
+         */
+        PendingChange withUser(UserDto user) {
+            return new PendingChange(id, new UserChangeDto(change.seq(), change.userId(), change.type(),
+                    user == null ? null : user.version(), user, change.occurredAt()), true);
+        }
+    }
+}
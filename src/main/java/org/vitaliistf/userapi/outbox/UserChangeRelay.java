@@ -0,0 +1,140 @@
+package org.vitaliistf.userapi.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitaliistf.userapi.dto.UserChangeDto;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Relay publishing the changes of the outbox to the configured sink, in batches and in commit order.
+ * Every batch is numbered, published and marked as published in one transaction holding the relay lock,
+ * so instances relay one at a time and a batch whose transaction fails is published again with the same numbers.
+ * Updates recorded without the user are published with the user as of their publication.
+ */
+@Slf4j
+@Profile("!reactive & !sharding")
+@ConditionalOnProperty(name = "app.outbox.enabled", havingValue = "true")
+@Component
+public class UserChangeRelay {
+
+    private static final int DELETE_CHUNK_SIZE = 10000;
+
+    private final UserChangeOutbox outbox;
+    private final UserChangeSink sink;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final Timer publishLag;
+    private final int batchSize;
+    private final Duration retention;
+
+    /**
+     * Constructor for UserChangeRelay.
+     *
+     * @param outbox             The outbox of user changes.
+     * @param sink               The sink the changes are published to.
+     * @param userRepository     The repository the users of updates recorded without them are read from.
+     * @param transactionManager The transaction manager of the outbox.
+     * @param meterRegistry      The registry where the published changes and their lag are exposed.
+     * @param batchSize          The maximum number of changes published at once.
+     * @param retention          How long published changes stay readable from the change stream.
+     */
+    public UserChangeRelay(UserChangeOutbox outbox,
+                           UserChangeSink sink,
+                           UserRepository userRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.outbox.relay.batch-size}") int batchSize,
+                           @Value("${app.outbox.retention}") Duration retention) {
+        this.outbox = outbox;
+        this.sink = sink;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = Counter.builder("users.outbox.published")
+                .description("Number of user changes published by the relay")
+                .register(meterRegistry);
+        this.publishLag = Timer.builder("users.outbox.publish.lag")
+                .description("Time from the commit of a user change until it is published")
+                .register(meterRegistry);
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Publishes the pending changes, batch after batch, until none is left.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.relay.interval}")
+    public void relay() {
+        try {
+            Integer count;
+            do {
+                count = transactionTemplate.execute(status -> relayBatch());
+            } while (count != null && count == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to relay user changes, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the published changes that are older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval}", initialDelayString = "${app.outbox.cleanup-interval}")
+    public void deleteExpired() {
+        try {
+            int deleted = outbox.deletePublishedBefore(Instant.now().minus(retention), DELETE_CHUNK_SIZE);
+            if (deleted > 0) {
+                log.info("Deleted {} user changes published more than {} ago", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to delete expired user changes: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        List<UserChangeOutbox.PendingChange> pending = withUsers(outbox.findUnpublished(outbox.lockLastSeq(), batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<UserChangeDto> changes = pending.stream().map(UserChangeOutbox.PendingChange::change).toList();
+        sink.publish(changes);
+        outbox.markPublished(pending);
+        Instant now = Instant.now();
+        changes.forEach(change -> publishLag.record(Duration.between(change.occurredAt(), now)));
+        published.increment(changes.size());
+        return changes.size();
+    }
+
+    private List<UserChangeOutbox.PendingChange> withUsers(List<UserChangeOutbox.PendingChange> pending) {
+        List<Long> ids = pending.stream()
+                .filter(UserChangeOutbox.PendingChange::isMissingUser)
+                .map(change -> change.change().userId())
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return pending;
+        }
+        // The relay transaction is read-write, so the users are read from the primary
+        Map<Long, UserDto> users = userRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserDto::id, Function.identity()));
+        return pending.stream()
+                .map(change -> change.isMissingUser() ? change.withUser(users.get(change.change().userId())) : change)
+                .toList();
+    }
+}
@@ -0,0 +1,21 @@
+package org.vitaliistf.userapi.outbox;
+
+import org.vitaliistf.userapi.dto.UserChangeDto;
+
+import java.util.List;
+
+/**
+ * Destination the relay publishes user changes to, such as a message broker.
+ * Publishing is at least once: a batch is published again if the relay fails to record it as published,
+ * with the same sequence numbers, which consumers may use to skip duplicates.
+ */
+public interface UserChangeSink {
+
+    /**
+     * Publishes a batch of changes.
+     *
+     * @param changes The changes, in sequence order.
+     * @throws RuntimeException if the batch was not published, it is retried on the next run of the relay.
+     */
+    void publish(List<UserChangeDto> changes);
+}
@@ -0,0 +1,10 @@
+package org.vitaliistf.userapi.outbox;
+
+/**
+ * Type of a change of a user.
+ */
+public enum UserChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
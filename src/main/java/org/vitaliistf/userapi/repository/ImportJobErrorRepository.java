@@ -0,0 +1,22 @@
+package org.vitaliistf.userapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.vitaliistf.userapi.entity.ImportJobError;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing the rows rejected by bulk imports.
+ */
+@Repository
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, Long> {
+
+    /**
+     * Retrieves the rejected rows of an import.
+     *
+     * @param jobId The ID of the import.
+     * @return A list of ImportJobError objects ordered by row number.
+     */
+    List<ImportJobError> findByJobIdOrderByRowNum(Long jobId);
+}
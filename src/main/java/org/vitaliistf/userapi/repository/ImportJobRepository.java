@@ -0,0 +1,23 @@
+package org.vitaliistf.userapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.vitaliistf.userapi.entity.ImportJob;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing bulk imports of users.
+ */
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    /**
+     * Retrieves the imports with any of the given statuses.
+     *
+     * @param statuses The statuses to look for.
+     * @return A list of ImportJob objects ordered by ID.
+     */
+    List<ImportJob> findByStatusInOrderById(Collection<ImportJob.Status> statuses);
+}
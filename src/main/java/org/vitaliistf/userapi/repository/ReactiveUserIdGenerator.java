@@ -0,0 +1,78 @@
+package org.vitaliistf.userapi.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Generator of user IDs for the reactive profile.
+ * Reserves blocks of IDs from the user_seq table the same way the pooled Hibernate generator of {@code User} does,
+ * so both stacks can run against the same database without handing out the same ID twice.
+ */
+@Profile("reactive")
+@Component
+public class ReactiveUserIdGenerator {
+
+    /**
+     * Must match the allocationSize of the sequence generator of {@code User}.
+     */
+    static final int ALLOCATION_SIZE = 50;
+
+    private final DatabaseClient databaseClient;
+    private long nextId;
+    private long lastId = -1;
+
+    /**
+     * Constructor for ReactiveUserIdGenerator.
+     *
+     * @param databaseClient The client used to reserve blocks of IDs.
+     */
+    public ReactiveUserIdGenerator(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Returns the next free user ID, reserving a new block of IDs when the current one is used up.
+     *
+     * @return A mono of the next user ID.
+     */
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            synchronized (this) {
+                if (nextId <= lastId) {
+                    return Mono.just(nextId++);
+                }
+            }
+            return reserveBlock().map(this::startBlock);
+        });
+    }
+
+    /**
+     * Starts handing out IDs of a freshly reserved block and returns the first of them.
+     * Concurrently reserved blocks never overlap, so replacing the current block only skips its remaining IDs.
+     */
+    private synchronized long startBlock(long blockEnd) {
+        nextId = blockEnd - ALLOCATION_SIZE + 2;
+        lastId = blockEnd;
+        return blockEnd - ALLOCATION_SIZE + 1;
+    }
+
+    /**
+     * Advances the sequence by one block with a compare-and-set update, retrying when another writer got there first.
+     * The value read before the update is the last ID of the reserved block.
+     */
+    private Mono<Long> reserveBlock() {
+        return databaseClient.sql("SELECT next_val FROM user_seq")
+                .map(row -> row.get("next_val", Long.class))
+                .one()
+                .flatMap(current -> databaseClient.sql("UPDATE user_seq SET next_val = :next WHERE next_val = :current")
+                        .bind("next", current + ALLOCATION_SIZE)
+                        .bind("current", current)
+                        .fetch()
+                        .rowsUpdated()
+                        .filter(updated -> updated > 0)
+                        .map(updated -> current))
+                .repeatWhenEmpty(Integer.MAX_VALUE, attempts -> attempts);
+    }
+}
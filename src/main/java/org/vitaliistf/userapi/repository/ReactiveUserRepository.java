@@ -0,0 +1,155 @@
+package org.vitaliistf.userapi.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import org.vitaliistf.userapi.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Non-blocking repository interface for managing user data over R2DBC, used by the reactive profile.
+ * Mirrors the queries of {@link UserRepository}.
+ */
+@Repository
+public interface ReactiveUserRepository extends R2dbcRepository<User, Long> {
+
+    /**
+     * Retrieves users whose ID is greater than the given one.
+     *
+     * @param id       The ID of the last user of the previous page.
+     * @param pageable The size and ordering of the page.
+     * @return A flux of User objects following the given ID.
+     */
+    Flux<User> findByIdGreaterThan(Long id, Pageable pageable);
+
+    /**
+     * Retrieves the version of the user with the given ID without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return A mono of the version of the user, empty if no user exists with the given ID.
+     */
+    @Query("SELECT version FROM user WHERE id = :id")
+    Mono<Long> findVersionById(Long id);
+
+    /**
+     * Deletes the user with the given ID with a single statement, without loading the user.
+     *
+     * @param id The ID of the user to delete.
+     * @return A mono of the number of deleted users, 0 if no user exists with the given ID.
+     */
+    @Modifying
+    @Query("DELETE FROM user WHERE id = :id")
+    Mono<Integer> deleteUserById(Long id);
+
+    /**
+     * Deletes the users with the given IDs with a single statement, without loading the users.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return A mono of the number of deleted users.
+     */
+    @Modifying
+    @Query("DELETE FROM user WHERE id IN (:ids)")
+    Mono<Integer> deleteUsersByIdIn(Collection<Long> ids);
+
+    /**
+     * Records the users with the given IDs as deleted, before they are deleted in the same transaction.
+     * IDs of users that do not exist are skipped.
+     *
+     * @param ids       The IDs of the users to delete.
+     * @param deletedAt The time of the deletion.
+     * @return A mono of the number of recorded users.
+     */
+    @Modifying
+    @Query("INSERT INTO user_tombstone (user_id, deleted_at) SELECT id, :deletedAt FROM user WHERE id IN (:ids)")
+    Mono<Integer> insertTombstones(Collection<Long> ids, Instant deletedAt);
+
+    /**
+     * Streams all users ordered by ID. Rows are requested from the database as the subscriber consumes them.
+     *
+     * @return A flux of User objects.
+     */
+    @Query("SELECT * FROM user ORDER BY id")
+    Flux<User> streamAll();
+
+    /**
+     * Retrieves users within a specified birthdate range, ordered by birthdate and ID,
+     * following the given keyset position.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param limit          The maximum number of users.
+     * @return A flux of User objects within the specified birthdate range.
+     */
+    @Query("SELECT * FROM user WHERE birth_date BETWEEN :startDate AND :endDate "
+            + "AND (birth_date > :afterBirthDate OR (birth_date = :afterBirthDate AND id > :afterId)) "
+            + "ORDER BY birth_date, id LIMIT :limit")
+    Flux<User> findByBirthDateBetweenAfter(LocalDate startDate, LocalDate endDate,
+                                           LocalDate afterBirthDate, Long afterId, int limit);
+
+    /**
+     * Retrieves users matching a boolean-mode query on the n-gram full-text index of names and email,
+     * ordered by relevance and ID.
+     *
+     * @param query  The boolean-mode full-text query.
+     * @param limit  The maximum number of users.
+     * @param offset The number of matching users to skip.
+     * @return A flux of the matching User objects.
+     */
+    @Query("SELECT * FROM user WHERE MATCH(first_name, last_name, email) AGAINST (:query IN BOOLEAN MODE) "
+            + "ORDER BY MATCH(first_name, last_name, email) AGAINST (:query IN BOOLEAN MODE) DESC, id "
+            + "LIMIT :limit OFFSET :offset")
+    Flux<User> searchByFullText(String query, int limit, long offset);
+
+    /**
+     * Retrieves users whose phone number starts with the given prefix, ordered by phone number.
+     *
+     * @param prefix The phone number prefix.
+     * @param limit  The maximum number of users.
+     * @param offset The number of matching users to skip.
+     * @return A flux of the matching User objects.
+     */
+    @Query("SELECT * FROM user WHERE phone_number LIKE CONCAT(:prefix, '%') ORDER BY phone_number "
+            + "LIMIT :limit OFFSET :offset")
+    Flux<User> searchByPhonePrefix(String prefix, int limit, long offset);
+
+    /**
+     * Retrieves the emails from the given collection that already belong to users.
+     *
+     * @param emails The emails to check.
+     * @return The emails that already exist.
+     */
+    @Query("SELECT email FROM user WHERE email IN (:emails)")
+    Flux<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Retrieves the phone numbers from the given collection that already belong to users.
+     *
+     * @param phoneNumbers The phone numbers to check.
+     * @return The phone numbers that already exist.
+     */
+    @Query("SELECT phone_number FROM user WHERE phone_number IN (:phoneNumbers)")
+    Flux<String> findExistingPhoneNumbers(Collection<String> phoneNumbers);
+
+    /**
+     * Retrieves the contact details of users whose email or phone number matches the given ones,
+     * excluding the user with the specified ID.
+     *
+     * @param email       The email to check.
+     * @param phoneNumber The phone number to check.
+     * @param excludedId  The ID of the user to exclude, or null to check all users.
+     * @return The contact details of the colliding users.
+     */
+    @Query("SELECT email, phone_number FROM user "
+            + "WHERE (email = :email OR phone_number = :phoneNumber) "
+            + "AND (:excludedId IS NULL OR id <> :excludedId)")
+    Flux<UserContactView> findContactConflicts(String email, String phoneNumber, Long excludedId);
+}
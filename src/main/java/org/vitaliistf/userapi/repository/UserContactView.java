@@ -0,0 +1,17 @@
+package org.vitaliistf.userapi.repository;
+
+/**
+ * Projection exposing the unique contact details of a user.
+ */
+public interface UserContactView {
+
+    /**
+     * @return The email of the user.
+     */
+    String getEmail();
+
+    /**
+     * @return The phone number of the user.
+     */
+    String getPhoneNumber();
+}
@@ -0,0 +1,13 @@
+package org.vitaliistf.userapi.repository;
+
+import java.time.Instant;
+
+/**
+ * Position of a user in the incremental sync: the time of its last change, and whether it was deleted.
+ *
+ * @param id        The ID of the user.
+ * @param changedAt The time the user was last updated or deleted.
+ * @param deleted   Whether the user was deleted.
+ */
+public record UserDeltaView(Long id, Instant changedAt, boolean deleted) {
+}
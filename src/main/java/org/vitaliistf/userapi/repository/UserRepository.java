@@ -1,58 +1,242 @@
 package org.vitaliistf.userapi.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.entity.User;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Repository interface for managing user data.
+ * Read queries project straight into UserDto in read-only transactions, so no entity is hydrated,
+ * snapshotted for dirty checking or flushed.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+
+    String SELECT_USER_DTO = "select new org.vitaliistf.userapi.dto.UserDto(u.id, u.email, u.firstName, u.lastName, "
+            + "u.birthDate, u.address, u.phoneNumber, u.version) from User u ";
 
     /**
-     * Retrieves users within a specified birthdate range.
+     * Retrieves the user with the given ID as a DTO.
      *
-     * @param startDate The start date of the birthdate range.
-     * @param endDate   The end date of the birthdate range.
-     * @return A list of User objects within the specified birthdate range.
+     * @param id The ID of the user.
+     * @return The user, or an empty Optional if no user exists with the given ID.
      */
-    List<User> findByBirthDateBetween(LocalDate startDate, LocalDate endDate);
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_DTO + "where u.id = :id")
+    Optional<UserDto> findDtoById(Long id);
 
     /**
-     * Checks if a user with the given email exists.
+     * Retrieves a slice of users whose ID is greater than the given one.
+     * Used for keyset pagination on the primary key, so the cost of a page does not depend on its position.
      *
-     * @param email The email to check.
-     * @return true if a user with the given email exists, otherwise false.
+     * @param id       The ID of the last user of the previous page.
+     * @param pageable The size and ordering of the slice.
+     * @return A slice of UserDto objects following the given ID.
      */
-    boolean existsByEmail(String email);
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_DTO + "where u.id > :id")
+    Slice<UserDto> findByIdGreaterThan(Long id, Pageable pageable);
 
     /**
-     * Checks if a user with the given email exists, excluding the user with the specified ID.
+     * Retrieves the version of the user with the given ID without loading the user.
      *
-     * @param email The email to check.
-     * @param id    The ID of the user to exclude.
-     * @return true if a user with the given email exists, excluding the user with the specified ID, otherwise false.
+     * @param id The ID of the user.
+     * @return The version of the user, or an empty Optional if no user exists with the given ID.
      */
-    boolean existsByEmailAndIdNot(String email, Long id);
+    @Transactional(readOnly = true)
+    @Query("select u.version from User u where u.id = :id")
+    Optional<Long> findVersionById(Long id);
 
     /**
-     * Checks if a user with the given phone number exists.
+     * Deletes the user with the given ID with a single statement, without loading the user.
      *
-     * @param phoneNumber The phone number to check.
-     * @return true if a user with the given phone number exists, otherwise false.
+     * @param id The ID of the user to delete.
+     * @return The number of deleted users, 0 if no user exists with the given ID.
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(Long id);
+
+    /**
+     * Deletes the users with the given IDs with a single statement, without loading the users.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return The number of deleted users.
+     */
+    @Modifying
+    @Query("delete from User u where u.id in :ids")
+    int deleteUsersByIdIn(Collection<Long> ids);
+
+    /**
+     * Records the users with the given IDs as deleted, before they are deleted in the same transaction.
+     * IDs of users that do not exist are skipped.
+     *
+     * @param ids       The IDs of the users to delete.
+     * @param deletedAt The time of the deletion.
+     * @return The number of recorded users.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_tombstone (user_id, deleted_at) SELECT id, :deletedAt FROM user WHERE id IN (:ids)",
+            nativeQuery = true)
+    int insertTombstones(Collection<Long> ids, Instant deletedAt);
+
+    /**
+     * Deletes the oldest tombstones of users deleted before the given time, at most the given number of them.
+     *
+     * @param deletedBefore The time before which tombstones are deleted.
+     * @param limit         The maximum number of tombstones to delete.
+     * @return The number of deleted tombstones.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_tombstone WHERE deleted_at < :deletedBefore ORDER BY deleted_at, user_id "
+            + "LIMIT :limit", nativeQuery = true)
+    int deleteTombstonesBefore(Instant deletedBefore, int limit);
+
+    /**
+     * Locks the users with the given IDs until the end of the transaction.
+     *
+     * @param ids The IDs of the users to lock.
+     * @return The IDs of the existing users among the given ones.
+     */
+    @Query(value = "SELECT id FROM user WHERE id IN (:ids) FOR UPDATE", nativeQuery = true)
+    List<Long> lockExistingIds(Collection<Long> ids);
+
+    /**
+     * Streams all users ordered by ID through a forward-only result set.
+     * The MySQL driver streams rows one by one when the fetch size is Integer.MIN_VALUE.
+     * Must be consumed inside a transaction and closed afterward.
+     *
+     * @return A stream of User objects.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_CACHEABLE, value = "false"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("select u from User u order by u.id")
+    Stream<User> streamAll();
+
+    /**
+     * Streams all users ordered by ID as DTOs through a forward-only result set.
+     * Projected rows are not managed, so they need no detaching while the stream is consumed.
+     * Must be consumed inside a transaction and closed afterward.
+     *
+     * @return A stream of UserDto objects.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query(SELECT_USER_DTO + "order by u.id")
+    Stream<UserDto> streamAllDtos();
+
+    /**
+     * Retrieves the users with the given IDs. IDs of users that do not exist are skipped.
+     *
+     * @param ids The IDs of the users.
+     * @return A list of UserDto objects in no particular order.
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_DTO + "where u.id in :ids")
+    List<UserDto> findDtosByIdIn(Collection<Long> ids);
+
+    /**
+     * Retrieves a slice of users within a specified birthdate range, ordered by birthdate and ID,
+     * following the given keyset position.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param pageable       The size of the slice.
+     * @return A slice of UserDto objects within the specified birthdate range.
+     */
+    @Transactional(readOnly = true)
+    @Query(SELECT_USER_DTO + "where u.birthDate between :startDate and :endDate "
+            + "and (u.birthDate > :afterBirthDate or (u.birthDate = :afterBirthDate and u.id > :afterId)) "
+            + "order by u.birthDate, u.id")
+    Slice<UserDto> findByBirthDateBetweenAfter(LocalDate startDate, LocalDate endDate,
+                                               LocalDate afterBirthDate, Long afterId, Pageable pageable);
+
+    /**
+     * Retrieves users matching a boolean-mode query on the n-gram full-text index of names and email,
+     * ordered by relevance and ID.
+     *
+     * @param query  The boolean-mode full-text query.
+     * @param limit  The maximum number of users.
+     * @param offset The number of matching users to skip.
+     * @return A list of the matching User objects.
+     */
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT * FROM user WHERE MATCH(first_name, last_name, email) AGAINST (:query IN BOOLEAN MODE) "
+            + "ORDER BY MATCH(first_name, last_name, email) AGAINST (:query IN BOOLEAN MODE) DESC, id "
+            + "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<User> searchByFullText(String query, int limit, long offset);
+
+    /**
+     * Retrieves users whose phone number starts with the given prefix, ordered by phone number.
+     *
+     * @param prefix The phone number prefix.
+     * @param limit  The maximum number of users.
+     * @param offset The number of matching users to skip.
+     * @return A list of the matching User objects.
+     */
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT * FROM user WHERE phone_number LIKE CONCAT(:prefix, '%') ORDER BY phone_number "
+            + "LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<User> searchByPhonePrefix(String prefix, int limit, long offset);
+
+    /**
+     * Retrieves the emails from the given collection that already belong to users.
+     *
+     * @param emails The emails to check.
+     * @return The set of emails that already exist.
+     */
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(Collection<String> emails);
+
+    /**
+     * Retrieves the phone numbers from the given collection that already belong to users.
+     *
+     * @param phoneNumbers The phone numbers to check.
+     * @return The set of phone numbers that already exist.
      */
-    boolean existsByPhoneNumber(String phoneNumber);
+    @Query("select u.phoneNumber from User u where u.phoneNumber in :phoneNumbers")
+    Set<String> findExistingPhoneNumbers(Collection<String> phoneNumbers);
 
     /**
-     * Checks if a user with the given phone number exists, excluding the user with the specified ID.
+     * Retrieves the contact details of users whose email or phone number matches the given ones,
+     * excluding the user with the specified ID. Both uniqueness checks are answered by a single query.
      *
+     * @param email       The email to check.
      * @param phoneNumber The phone number to check.
-     * @param id          The ID of the user to exclude.
-     * @return true if a user with the given phone number exists, excluding the user with the specified ID, otherwise false.
+     * @param excludedId  The ID of the user to exclude, or null to check all users.
+     * @return The contact details of the colliding users.
      */
-    boolean existsByPhoneNumberAndIdNot(String phoneNumber, Long id);
-}
\ No newline at end of file
+    @Query("select u.email as email, u.phoneNumber as phoneNumber from User u "
+            + "where (u.email = :email or u.phoneNumber = :phoneNumber) "
+            + "and (:excludedId is null or u.id <> :excludedId)")
+    List<UserContactView> findContactConflicts(String email, String phoneNumber, Long excludedId);
+}
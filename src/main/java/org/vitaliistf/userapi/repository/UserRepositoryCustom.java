@@ -0,0 +1,77 @@
+package org.vitaliistf.userapi.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.vitaliistf.userapi.entity.User;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Custom repository operations for users that cannot be expressed as query methods.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Updates only the non-null fields of the given user with a single UPDATE statement, without loading the user.
+     * The version of the user is incremented.
+     *
+     * @param id      The ID of the user to update.
+     * @param version The version the update is based on, or null to update any version.
+     * @param changes The user whose non-null fields are written.
+     * @return The number of updated rows, 0 if no user with the given ID and version exists.
+     */
+    int updateNonNullFields(Long id, Long version, User changes);
+
+    /**
+     * Retrieves the users updated or deleted after the given keyset position and not after the given time,
+     * ordered by the time of the change and ID.
+     *
+     * @param afterChangedAt The time of the change of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param until          The latest time of change to return.
+     * @param limit          The maximum number of users.
+     * @return The positions of the changed users.
+     */
+    List<UserDeltaView> findDeltas(Instant afterChangedAt, Long afterId, Instant until, int limit);
+
+    /**
+     * Retrieves only the selected fields of the user with the given ID.
+     *
+     * @param fields The fields to select.
+     * @param id     The ID of the user.
+     * @return The selected fields of the user, or an empty Optional if no user exists with the given ID.
+     */
+    Optional<Map<String, Object>> findFieldsById(Set<String> fields, Long id);
+
+    /**
+     * Retrieves only the selected fields of users whose ID is greater than the given one, ordered by ID.
+     * The ID is read as well, as the keyset of the next page.
+     *
+     * @param fields   The fields to select.
+     * @param id       The ID of the last user of the previous page.
+     * @param pageable The size of the slice.
+     * @return A slice of rows keyed by field name.
+     */
+    Slice<Map<String, Object>> findFieldsByIdGreaterThan(Set<String> fields, Long id, Pageable pageable);
+
+    /**
+     * Retrieves only the selected fields of users within a specified birthdate range, ordered by birthdate and ID,
+     * following the given keyset position. The birthdate and the ID are read as well, as the keyset of the next page.
+     *
+     * @param fields         The fields to select.
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param pageable       The size of the slice.
+     * @return A slice of rows keyed by field name.
+     */
+    Slice<Map<String, Object>> findFieldsByBirthDateBetweenAfter(Set<String> fields, LocalDate startDate,
+                                                                 LocalDate endDate, LocalDate afterBirthDate,
+                                                                 Long afterId, Pageable pageable);
+}
@@ -0,0 +1,227 @@
+package org.vitaliistf.userapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
+import org.vitaliistf.userapi.entity.User;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.vitaliistf.userapi.util.UserFields.BIRTH_DATE;
+import static org.vitaliistf.userapi.util.UserFields.ID;
+import static org.vitaliistf.userapi.util.UserFields.VERSION;
+
+/**
+ * Implementation of UserRepositoryCustom interface with the JPA Criteria API.
+ * Field selections are read as tuples of only the selected columns, in read-only transactions.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    // Each branch reads a range of its (time, id) index, the union is cut to the same limit
+    private static final String KEYSET = "(%1$s > :afterChangedAt OR (%1$s = :afterChangedAt AND %2$s > :afterId)) "
+            + "AND %1$s <= :until ORDER BY %1$s, %2$s LIMIT :limit";
+    private static final String SELECT_DELTAS = "SELECT id, changed_at, deleted FROM ("
+            + "(SELECT id, updated_at AS changed_at, FALSE AS deleted FROM user WHERE "
+            + KEYSET.formatted("updated_at", "id") + ") UNION ALL "
+            + "(SELECT user_id, deleted_at, TRUE FROM user_tombstone WHERE "
+            + KEYSET.formatted("deleted_at", "user_id") + ")"
+            + ") deltas ORDER BY changed_at, id LIMIT :limit";
+
+    private final EntityManager entityManager;
+
+    /**
+     * Constructor for UserRepositoryCustomImpl.
+     *
+     * @param entityManager The entity manager used to run the update.
+     */
+    public UserRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Updates only the non-null fields of the given user with a single UPDATE statement, without loading the user.
+     * Hibernate does not dirty-check bulk updates, so the version and the update time are set explicitly.
+     *
+     * @param id      The ID of the user to update.
+     * @param version The version the update is based on, or null to update any version.
+     * @param changes The user whose non-null fields are written.
+     * @return The number of updated rows, 0 if no user with the given ID and version exists.
+     */
+    @Override
+    @Transactional
+    public int updateNonNullFields(Long id, Long version, User changes) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = builder.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+
+        nonNullFields(changes).forEach(update::set);
+        update.set(user.<Long>get(VERSION), builder.sum(user.<Long>get(VERSION), 1L));
+        update.set(user.<Instant>get("updatedAt"), User.now());
+
+        Predicate predicate = builder.equal(user.get(ID), id);
+        if (version != null) {
+            predicate = builder.and(predicate, builder.equal(user.get(VERSION), version));
+        }
+        update.where(predicate);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    /**
+     * Retrieves the users updated or deleted after the given keyset position and not after the given time,
+     * ordered by the time of the change and ID, from the user table and the tombstones of deleted users.
+     *
+     * @param afterChangedAt The time of the change of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param until          The latest time of change to return.
+     * @param limit          The maximum number of users.
+     * @return The positions of the changed users.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public List<UserDeltaView> findDeltas(Instant afterChangedAt, Long afterId, Instant until, int limit) {
+        List<Object[]> rows = entityManager.createNativeQuery(SELECT_DELTAS)
+                .unwrap(NativeQuery.class)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("changed_at", StandardBasicTypes.INSTANT)
+                .addScalar("deleted", StandardBasicTypes.BOOLEAN)
+                .setParameter("afterChangedAt", afterChangedAt)
+                .setParameter("afterId", afterId)
+                .setParameter("until", until)
+                .setParameter("limit", limit)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new UserDeltaView((Long) row[0], (Instant) row[1], (Boolean) row[2]))
+                .toList();
+    }
+
+    /**
+     * Retrieves only the selected fields of the user with the given ID.
+     *
+     * @param fields The fields to select.
+     * @param id     The ID of the user.
+     * @return The selected fields of the user, or an empty Optional if no user exists with the given ID.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Map<String, Object>> findFieldsById(Set<String> fields, Long id) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selection(user, fields)).where(builder.equal(user.get(ID), id));
+        return entityManager.createQuery(query).getResultStream().findFirst().map(this::toRow);
+    }
+
+    /**
+     * Retrieves only the selected fields of users whose ID is greater than the given one, ordered by ID.
+     *
+     * @param fields   The fields to select.
+     * @param id       The ID of the last user of the previous page.
+     * @param pageable The size of the slice.
+     * @return A slice of rows keyed by field name.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findFieldsByIdGreaterThan(Set<String> fields, Long id, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selection(user, fields, ID))
+                .where(builder.greaterThan(user.get(ID), id))
+                .orderBy(builder.asc(user.get(ID)));
+        return slice(query, pageable);
+    }
+
+    /**
+     * Retrieves only the selected fields of users within a specified birthdate range, ordered by birthdate and ID,
+     * following the given keyset position.
+     *
+     * @param fields         The fields to select.
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page.
+     * @param afterId        The ID of the last user of the previous page.
+     * @param pageable       The size of the slice.
+     * @return A slice of rows keyed by field name.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> findFieldsByBirthDateBetweenAfter(Set<String> fields, LocalDate startDate,
+                                                                        LocalDate endDate, LocalDate afterBirthDate,
+                                                                        Long afterId, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        Path<LocalDate> birthDate = user.get(BIRTH_DATE);
+        Path<Long> id = user.get(ID);
+        query.multiselect(selection(user, fields, BIRTH_DATE, ID))
+                .where(builder.between(birthDate, startDate, endDate),
+                        builder.or(builder.greaterThan(birthDate, afterBirthDate),
+                                builder.and(builder.equal(birthDate, afterBirthDate), builder.greaterThan(id, afterId))))
+                .orderBy(builder.asc(birthDate), builder.asc(id));
+        return slice(query, pageable);
+    }
+
+    private List<Selection<?>> selection(Root<User> user, Set<String> fields, String... keysetFields) {
+        Set<String> names = new LinkedHashSet<>(fields);
+        names.addAll(List.of(keysetFields));
+        return names.stream()
+                .<Selection<?>>map(name -> user.get(name).alias(name))
+                .toList();
+    }
+
+    private Slice<Map<String, Object>> slice(CriteriaQuery<Tuple> query, Pageable pageable) {
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<Map<String, Object>> content = rows.stream()
+                .limit(pageable.getPageSize())
+                .map(this::toRow)
+                .toList();
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    private Map<String, Object> toRow(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        tuple.getElements().forEach(element -> row.put(element.getAlias(), tuple.get(element)));
+        return row;
+    }
+
+    private Map<String, Object> nonNullFields(User changes) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        putIfNotNull(fields, "email", changes.getEmail());
+        putIfNotNull(fields, "firstName", changes.getFirstName());
+        putIfNotNull(fields, "lastName", changes.getLastName());
+        putIfNotNull(fields, "birthDate", changes.getBirthDate());
+        putIfNotNull(fields, "address", changes.getAddress());
+        putIfNotNull(fields, "phoneNumber", changes.getPhoneNumber());
+        return fields;
+    }
+
+    private void putIfNotNull(Map<String, Object> fields, String name, Object value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
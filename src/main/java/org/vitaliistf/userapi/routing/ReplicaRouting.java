@@ -0,0 +1,66 @@
+package org.vitaliistf.userapi.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Per-thread override of the replica routing, for reads that must see the latest writes.
+ * Read-only transactions started while the override is active read from the primary.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    /**
+     * Routes the reads of the current thread to the primary until the returned scope is closed.
+     *
+     * @return The scope restoring the previous routing when closed.
+     */
+    public static Scope requirePrimary() {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Runs the given reads on the primary.
+     *
+     * @param reads The reads to run.
+     * @param <T>   The type of the result.
+     * @return The result of the reads.
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        try (Scope ignored = requirePrimary()) {
+            return reads.get();
+        }
+    }
+
+    /**
+     * Checks whether the reads of the current thread must go to the primary.
+     *
+     * @return true if the reads must go to the primary.
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    /**
+     * Scope of a routing override.
+     */
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Restores the previous routing.
+         */
+        @Override
+        void close();
+    }
+}
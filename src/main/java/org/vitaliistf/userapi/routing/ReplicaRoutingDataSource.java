@@ -0,0 +1,155 @@
+package org.vitaliistf.userapi.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source routing read-only transactions to replicas, in turn, and everything else to the primary.
+ * Must be wrapped in a LazyConnectionDataSourceProxy, so that the connection is obtained once the transaction
+ * is marked read-only. Replicas failing to give a connection or a periodic validation are skipped until they
+ * validate again; reads go to the primary while no replica is available.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration healthCheckInterval;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-health-check").daemon().factory());
+
+    /**
+     * Constructor for ReplicaRoutingDataSource.
+     *
+     * @param primary             The data source of the primary.
+     * @param replicas            The data sources of the replicas, keyed by name.
+     * @param healthCheckInterval The interval between validations of the replicas.
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    Duration healthCheckInterval) {
+        this.primary = primary;
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    /**
+     * Starts validating the replicas periodically.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, healthCheckInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtains a connection to the next available replica in a read-only transaction, to the primary otherwise
+     * or if no replica gives a connection.
+     *
+     * @return The connection.
+     * @throws SQLException if no connection to the primary can be obtained.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReplicaRouting.isPrimaryRequired()) {
+            // A failing replica is marked unavailable, so each one is tried at most once
+            for (Replica replica = nextAvailableReplica(); replica != null; replica = nextAvailableReplica()) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    markUnavailable(replica, e);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    /**
+     * Not supported, connections use the configured credentials.
+     *
+     * @throws SQLFeatureNotSupportedException always.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the configured credentials");
+    }
+
+    /**
+     * Stops validating the replicas and closes their data sources.
+     *
+     * @throws Exception if a data source cannot be closed.
+     */
+    @Override
+    public void destroy() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Replica nextAvailableReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    markUnavailable(replica, new SQLException("Connection is not valid"));
+                } else if (!replica.available) {
+                    replica.available = true;
+                    log.info("Replica {} is available again", replica.name);
+                }
+            } catch (SQLException | RuntimeException e) {
+                markUnavailable(replica, e);
+            }
+        }
+    }
+
+    private void markUnavailable(Replica replica, Exception e) {
+        if (replica.available) {
+            replica.available = false;
+            log.warn("Replica {} is unavailable, reading from the other replicas or the primary: {}",
+                    replica.name, e.getMessage());
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean available = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package org.vitaliistf.userapi.search;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.IOUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.exception.InvalidSearchQueryException;
+import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.routing.ReplicaRouting;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.vitaliistf.userapi.util.TransactionCallbacks.afterCommit;
+
+/**
+ * In-memory Lucene index of user names and emails, serving type-ahead search without querying the database.
+ * The index is loaded from a streaming scan of the users once the application is ready. Afterward, the IDs of
+ * changed users are queued once their transaction commits, and a single updater thread reloads those users and
+ * reindexes them. Reloading rather than indexing the written state keeps the index converging on the database
+ * even when concurrent commits are reported out of order.
+ */
+@Slf4j
+@Profile("!reactive & !sharding")
+@ConditionalOnProperty(name = "app.search.index.enabled", havingValue = "true")
+@Component
+public class UserSearchIndex implements DisposableBean {
+
+    private static final String ID = "id";
+    private static final String TEXT = "text";
+    private static final String EMAIL = "email";
+    private static final String FIRST_NAME = "firstName";
+    private static final String LAST_NAME = "lastName";
+    private static final String BIRTH_DATE = "birthDate";
+    private static final String ADDRESS = "address";
+    private static final String PHONE_NUMBER = "phoneNumber";
+    private static final String VERSION = "version";
+    // StandardAnalyzer keeps dotted words together, which would hide "doe" in "john.doe@example.com"
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Shorter terms match too many others within one edit, so they are only matched as prefixes
+    private static final int MIN_FUZZY_TERM_LENGTH = 3;
+    private static final int TWO_EDITS_TERM_LENGTH = 6;
+    private static final int FUZZY_PREFIX_LENGTH = 1;
+    private static final float PREFIX_BOOST = 2f;
+    private static final int RELOAD_CHUNK_SIZE = 1000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory = new ByteBuffersDirectory();
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final ThreadPoolExecutor updater;
+    private final Timer refreshLag;
+    private volatile boolean ready;
+    // Only accessed by the updater thread
+    private long oldestUnrefreshedCommit;
+    private boolean unrefreshed;
+
+    /**
+     * Constructor for UserSearchIndex.
+     *
+     * @param userRepository     The user repository the index is loaded from.
+     * @param transactionManager The transaction manager used to stream users at startup.
+     * @param meterRegistry      The registry where the index size and the refresh lag are exposed.
+     * @throws IOException if the index cannot be opened.
+     */
+    public UserSearchIndex(UserRepository userRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) throws IOException {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+        this.updater = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                Thread.ofPlatform().name("user-search-index").daemon().factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+        this.refreshLag = Timer.builder("users.search.index.refresh.lag")
+                .description("Time from the commit of a user change until it is searchable")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.size", writer, index -> index.isOpen() ? index.getDocStats().numDocs : 0)
+                .description("Number of users in the search index")
+                .register(meterRegistry);
+        Gauge.builder("users.search.index.pending", updater, executor -> executor.getQueue().size())
+                .description("Number of user changes waiting to be indexed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads every user into the index in the background once the application is ready.
+     * Changes committed meanwhile are queued behind the load and applied after it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        updater.execute(() -> {
+            try {
+                long started = System.nanoTime();
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try (Stream<UserDto> users = userRepository.streamAllDtos()) {
+                        users.forEach(this::write);
+                    }
+                });
+                searcherManager.maybeRefreshBlocking();
+                ready = true;
+                log.info("Indexed {} users in {} ms", writer.getDocStats().numDocs,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to load the user search index, searches fall back to the database", e);
+            }
+        });
+    }
+
+    /**
+     * Tells whether the initial load has completed, so that searches cover every user.
+     *
+     * @return true if the index can serve searches.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Reindexes the users with the given IDs once the current transaction commits.
+     * Users that no longer exist are removed from the index.
+     *
+     * @param ids The IDs of the created, updated or deleted users.
+     */
+    public void update(Collection<Long> ids) {
+        List<Long> changedIds = List.copyOf(ids);
+        afterCommit(() -> {
+            long committed = System.nanoTime();
+            updater.execute(() -> reindex(changedIds, committed));
+        });
+    }
+
+    /**
+     * Searches users whose names or email contain words starting with, or within a few edits of,
+     * every term of the query. Prefix matches rank above fuzzy ones.
+     *
+     * @param query The search query.
+     * @param limit The maximum number of users.
+     * @return The matching users, ordered by relevance.
+     * @throws InvalidSearchQueryException if the query contains no letter or digit.
+     */
+    public List<UserDto> search(String query, int limit) {
+        Query luceneQuery = toQuery(query);
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                ScoreDoc[] hits = searcher.search(luceneQuery, limit).scoreDocs;
+                StoredFields storedFields = searcher.storedFields();
+                List<UserDto> users = new ArrayList<>(hits.length);
+                for (ScoreDoc hit : hits) {
+                    users.add(toUser(storedFields.document(hit.doc)));
+                }
+                return users;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the updater thread and closes the index.
+     *
+     * @throws Exception if the index cannot be closed.
+     */
+    @Override
+    public void destroy() throws Exception {
+        updater.shutdown();
+        updater.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        IOUtils.close(searcherManager, writer, directory, analyzer);
+    }
+
+    private void reindex(List<Long> ids, long committed) {
+        try {
+            for (int from = 0; from < ids.size(); from += RELOAD_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(from, Math.min(from + RELOAD_CHUNK_SIZE, ids.size()));
+                // Changes are indexed once, so they are read from the primary rather than a lagging replica
+                Map<Long, UserDto> users = ReplicaRouting.onPrimary(() -> userRepository.findDtosByIdIn(chunk)).stream()
+                        .collect(Collectors.toMap(UserDto::id, Function.identity()));
+                for (Long id : chunk) {
+                    UserDto user = users.get(id);
+                    if (user == null) {
+                        writer.deleteDocuments(idTerm(id));
+                    } else {
+                        write(user);
+                    }
+                }
+            }
+            if (!unrefreshed) {
+                oldestUnrefreshedCommit = committed;
+                unrefreshed = true;
+            }
+            // Changes queued behind this one are applied before refreshing, so bursts cost a single refresh
+            if (updater.getQueue().isEmpty()) {
+                searcherManager.maybeRefreshBlocking();
+                refreshLag.record(System.nanoTime() - oldestUnrefreshedCommit, TimeUnit.NANOSECONDS);
+                unrefreshed = false;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to reindex users {}", ids, e);
+        }
+    }
+
+    private void write(UserDto user) {
+        try {
+            writer.updateDocument(idTerm(user.id()), toDocument(user));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Query toQuery(String query) {
+        List<String> terms = analyze(query);
+        if (terms.isEmpty()) {
+            throw new InvalidSearchQueryException("Search query must contain a letter or a digit");
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder();
+        for (String term : terms) {
+            builder.add(termQuery(new Term(TEXT, term)), BooleanClause.Occur.MUST);
+        }
+        return builder.build();
+    }
+
+    private Query termQuery(Term term) {
+        Query prefix = new BoostQuery(new PrefixQuery(term), PREFIX_BOOST);
+        int length = term.text().length();
+        if (length < MIN_FUZZY_TERM_LENGTH) {
+            return prefix;
+        }
+        int maxEdits = length < TWO_EDITS_TERM_LENGTH ? 1 : 2;
+        return new BooleanQuery.Builder()
+                .add(prefix, BooleanClause.Occur.SHOULD)
+                .add(new FuzzyQuery(term, maxEdits, FUZZY_PREFIX_LENGTH), BooleanClause.Occur.SHOULD)
+                .build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokens = analyzer.tokenStream(TEXT, words(text))) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private static Document toDocument(UserDto user) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(user.id()), Field.Store.YES));
+        document.add(new TextField(TEXT, words(user.firstName() + " " + user.lastName() + " " + user.email()),
+                Field.Store.NO));
+        store(document, EMAIL, user.email());
+        store(document, FIRST_NAME, user.firstName());
+        store(document, LAST_NAME, user.lastName());
+        store(document, BIRTH_DATE, user.birthDate() == null ? null : user.birthDate().toString());
+        store(document, ADDRESS, user.address());
+        store(document, PHONE_NUMBER, user.phoneNumber());
+        if (user.version() != null) {
+            document.add(new StoredField(VERSION, user.version()));
+        }
+        return document;
+    }
+
+    private static void store(Document document, String name, String value) {
+        if (value != null) {
+            document.add(new StoredField(name, value));
+        }
+    }
+
+    private static UserDto toUser(Document document) {
+        String birthDate = document.get(BIRTH_DATE);
+        IndexableField version = document.getField(VERSION);
+        return new UserDto(Long.valueOf(document.get(ID)), document.get(EMAIL), document.get(FIRST_NAME),
+                document.get(LAST_NAME), birthDate == null ? null : LocalDate.parse(birthDate),
+                document.get(ADDRESS), document.get(PHONE_NUMBER),
+                version == null ? null : version.numericValue().longValue());
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, String.valueOf(id));
+    }
+
+    private static String words(String text) {
+        return SEPARATORS.matcher(text).replaceAll(" ");
+    }
+}
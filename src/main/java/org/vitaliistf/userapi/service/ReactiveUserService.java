@@ -0,0 +1,125 @@
+package org.vitaliistf.userapi.service;
+
+import org.springframework.data.domain.Slice;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.entity.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link UserService}, used by the reactive profile.
+ * Reports the same errors as UserService, signalled through the returned publishers.
+ */
+public interface ReactiveUserService {
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @return A mono of a slice of User objects.
+     */
+    Mono<Slice<User>> getAllUsers(Long afterId, Integer limit);
+
+    /**
+     * Streams every user ordered by ID.
+     *
+     * @return A flux of all User objects.
+     */
+    Flux<User> exportUsers();
+
+    /**
+     * Retrieves a user by ID.
+     *
+     * @param id The ID of the user to retrieve.
+     * @return A mono of the UserDto object with the specified ID.
+     */
+    Mono<UserDto> getUserById(Long id);
+
+    /**
+     * Retrieves the current version of a user without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return A mono of the version of the user with the specified ID.
+     */
+    Mono<Long> getUserVersion(Long id);
+
+    /**
+     * Creates a new user.
+     *
+     * @param user The User object to create.
+     * @return A mono of the created User object.
+     */
+    Mono<User> createUser(User user);
+
+    /**
+     * Creates several users at once. Users that fail validation are reported and skipped.
+     *
+     * @param users The User objects to create.
+     * @return A mono of the results of creation, in the order of the given users.
+     */
+    Mono<List<UserBatchResult>> createUsers(List<User> users);
+
+    /**
+     * Updates an existing user.
+     *
+     * @param id   The ID of the user to update.
+     * @param user The User object with updated information. A non-null version is the version
+     *             the update is based on, and must match the current one.
+     * @return A mono of the updated User object.
+     */
+    Mono<User> updateUser(Long id, User user);
+
+    /**
+     * Partially updates an existing user.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information. A non-null version is the version
+     *             the update is based on, and must match the current one.
+     * @return A mono of the partially updated User object.
+     */
+    Mono<User> partialUpdateUser(Long id, User user);
+
+    /**
+     * Deletes a user by ID.
+     *
+     * @param id The ID of the user to delete.
+     * @return A mono completing once the user is deleted.
+     */
+    Mono<Void> deleteUser(Long id);
+
+    /**
+     * Deletes several users at once. IDs of users that do not exist are ignored.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return A mono of the number of deleted users.
+     */
+    Mono<Integer> deleteUsers(List<Long> ids);
+
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A mono of a slice of User objects within the specified birthdate range.
+     */
+    Mono<Slice<User>> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                               LocalDate afterBirthDate, Long afterId, Integer limit);
+
+    /**
+     * Searches users by a substring of their names or email, or by a prefix of their phone number,
+     * ordered by relevance.
+     *
+     * @param query  The search query.
+     * @param offset The number of matching users to skip, or null for the first page.
+     * @param limit  The requested page size, or null for the default one.
+     * @return A mono of a slice of matching User objects.
+     */
+    Mono<Slice<User>> searchUsers(String query, Integer offset, Integer limit);
+}
@@ -0,0 +1,41 @@
+package org.vitaliistf.userapi.service;
+
+import org.vitaliistf.userapi.entity.User;
+
+/**
+ * Result of creating a single user as a part of a batch.
+ *
+ * @param user  The created User object, or null if the creation failed.
+ * @param error The exception describing why the creation failed, or null if the user was created.
+ */
+public record UserBatchResult(User user, RuntimeException error) {
+
+    /**
+     * Creates a successful result.
+     *
+     * @param user The created User object.
+     * @return The successful result.
+     */
+    public static UserBatchResult created(User user) {
+        return new UserBatchResult(user, null);
+    }
+
+    /**
+     * Creates a failed result.
+     *
+     * @param error The exception describing the failure.
+     * @return The failed result.
+     */
+    public static UserBatchResult failed(RuntimeException error) {
+        return new UserBatchResult(null, error);
+    }
+
+    /**
+     * Checks if the user was created.
+     *
+     * @return true if the user was created, otherwise false.
+     */
+    public boolean isCreated() {
+        return error == null;
+    }
+}
@@ -0,0 +1,37 @@
+package org.vitaliistf.userapi.service;
+
+import org.vitaliistf.userapi.dto.ImportJobDto;
+import org.vitaliistf.userapi.entity.ImportJob;
+
+import java.io.InputStream;
+
+/**
+ * Service interface for bulk imports of users from uploaded files.
+ */
+public interface UserImportService {
+
+    /**
+     * Stores the uploaded file and queues its import.
+     *
+     * @param format  The format of the file.
+     * @param content The content of the file.
+     * @return The queued import.
+     */
+    ImportJobDto startImport(ImportJob.Format format, InputStream content);
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param id The ID of the import.
+     * @return The import with its progress and first rejected rows.
+     */
+    ImportJobDto getImport(Long id);
+
+    /**
+     * Queues a failed import again, to continue after its last committed row.
+     *
+     * @param id The ID of the import.
+     * @return The queued import.
+     */
+    ImportJobDto resumeImport(Long id);
+}
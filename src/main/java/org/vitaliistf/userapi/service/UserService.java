@@ -1,10 +1,18 @@
 package org.vitaliistf.userapi.service;
 
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.entity.User;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing user-related operations.
@@ -13,19 +21,56 @@ import java.util.List;
 public interface UserService {
 
     /**
-     * Retrieves all users.
+     * Retrieves a page of users ordered by ID, starting after the given ID.
      *
-     * @return A list of User objects.
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @return A slice of UserDto objects.
      */
-    List<User> getAllUsers();
+    Slice<UserDto> getAllUsers(Long afterId, Integer limit);
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID, reading only the selected fields.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @param fields  The fields to read. The ID is always read as the keyset of the next page.
+     * @return A slice of users keyed by field name.
+     */
+    Slice<Map<String, Object>> getAllUsers(Long afterId, Integer limit, Set<String> fields);
+
+    /**
+     * Passes every user, ordered by ID, to the given consumer while reading them from a database cursor.
+     * Users are detached once consumed, so memory usage does not depend on the number of users.
+     *
+     * @param consumer The consumer of exported users.
+     */
+    void exportUsers(Consumer<User> consumer);
 
     /**
      * Retrieves a user by ID.
      *
      * @param id The ID of the user to retrieve.
-     * @return The User object with the specified ID.
+     * @return The UserDto object with the specified ID.
+     */
+    UserDto getUserById(Long id);
+
+    /**
+     * Retrieves only the selected fields of a user by ID.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param fields The fields to read.
+     * @return The selected fields of the user with the specified ID.
      */
-    User getUserById(Long id);
+    Map<String, Object> getUserById(Long id, Set<String> fields);
+
+    /**
+     * Retrieves the current version of a user, without loading the user when possible.
+     *
+     * @param id The ID of the user.
+     * @return The version of the user with the specified ID.
+     */
+    Long getUserVersion(Long id);
 
     /**
      * Creates a new user.
@@ -35,11 +80,21 @@ public interface UserService {
      */
     User createUser(User user);
 
+    /**
+     * Creates several users at once. Users that fail validation are reported and skipped,
+     * the rest are inserted in JDBC batches.
+     *
+     * @param users The User objects to create.
+     * @return The results of creation, in the order of the given users.
+     */
+    List<UserBatchResult> createUsers(List<User> users);
+
     /**
      * Updates an existing user.
      *
      * @param id   The ID of the user to update.
-     * @param user The User object with updated information.
+     * @param user The User object with updated information. A non-null version is the version
+     *             the update is based on, and must match the current one.
      * @return The updated User object.
      */
     User updateUser(Long id, User user);
@@ -48,11 +103,22 @@ public interface UserService {
      * Partially updates an existing user.
      *
      * @param id   The ID of the user to partially update.
-     * @param user The User object with updated information.
+     * @param user The User object with updated information. A non-null version is the version
+     *             the update is based on, and must match the current one.
      * @return The partially updated User object.
      */
     User partialUpdateUser(Long id, User user);
 
+    /**
+     * Partially updates an existing user with a single UPDATE of the non-null fields, without loading the user.
+     * Email and phone number uniqueness is enforced by the database constraints only.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information. A non-null version is the version
+     *             the update is based on, and must match the current one.
+     */
+    void patchUser(Long id, User user);
+
     /**
      * Deletes a user by ID.
      *
@@ -61,12 +127,80 @@ public interface UserService {
     void deleteUser(Long id);
 
     /**
-     * Retrieves users within a specified birthdate range.
+     * Deletes several users at once. IDs of users that do not exist are ignored.
      *
-     * @param startDate The start date of the birthdate range.
-     * @param endDate   The end date of the birthdate range.
-     * @return A list of User objects within the specified birthdate range.
+     * @param ids The IDs of the users to delete.
+     * @return The number of deleted users.
      */
-    List<User> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate);
+    int deleteUsers(List<Long> ids);
 
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of UserDto objects within the specified birthdate range.
+     */
+    Slice<UserDto> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                            LocalDate afterBirthDate, Long afterId, Integer limit);
+
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID,
+     * reading only the selected fields.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @param fields         The fields to read. The birthdate and the ID are always read as the keyset of the next page.
+     * @return A slice of users keyed by field name within the specified birthdate range.
+     */
+    Slice<Map<String, Object>> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                        LocalDate afterBirthDate, Long afterId, Integer limit,
+                                                        Set<String> fields);
+
+
+    /**
+     * Searches users by a substring of their names or email, or by a prefix of their phone number,
+     * ordered by relevance.
+     *
+     * @param query  The search query.
+     * @param offset The number of matching users to skip, or null for the first page.
+     * @param limit  The requested page size, or null for the default one.
+     * @return A slice of matching UserDto objects.
+     */
+    Slice<UserDto> searchUsers(String query, Integer offset, Integer limit);
+
+    /**
+     * Suggests users for type-ahead by words of their names or email, tolerating typos.
+     *
+     * @param query The search query.
+     * @param limit The requested number of suggestions, or null for the default one.
+     * @return The matching UserDto objects, ordered by relevance.
+     */
+    List<UserDto> suggestUsers(String query, Integer limit);
+
+    /**
+     * Retrieves the published changes of users following the given position of the change stream.
+     *
+     * @param sinceSeq The position of the last change already read, 0 to read from the start.
+     * @param limit    The requested number of changes, or null for the default one.
+     * @return The changes in stream order, and the position to read the next changes from.
+     */
+    UserChangesDto getChanges(long sinceSeq, Integer limit);
+
+    /**
+     * Retrieves a page of users updated or deleted since the given time, ordered by the time of the change and ID.
+     *
+     * @param since          The time to read changes from, or null to read all users.
+     * @param afterChangedAt The time of the change of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of changed users, with the current state of the updated ones.
+     */
+    Slice<UserDeltaDto> getChangedSince(Instant since, Instant afterChangedAt, Long afterId, Integer limit);
 }
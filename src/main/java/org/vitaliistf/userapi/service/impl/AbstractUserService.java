@@ -0,0 +1,276 @@
+package org.vitaliistf.userapi.service.impl;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.repository.UserContactView;
+import org.vitaliistf.userapi.service.UserBatchResult;
+import org.vitaliistf.userapi.util.MinimumAge;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Validation and update rules shared by the blocking and the reactive user services,
+ * so both stacks report the same errors for the same input.
+ */
+public abstract class AbstractUserService {
+    // Keeps the IN lists of bulk deletes well within the limits of the database
+    protected static final int DELETE_CHUNK_SIZE = 1000;
+    // Shorter terms are below the ngram_token_size of the full-text index
+    private static final int MIN_SEARCH_TERM_LENGTH = 2;
+    private static final Pattern PHONE_PREFIX = Pattern.compile("\\+?\\d{3,}");
+    private static final Pattern FULL_TEXT_OPERATORS = Pattern.compile("[+\\-<>()~*\"@]");
+
+    protected final UserMapper userMapper;
+    protected final MinimumAge minAge;
+    protected final int defaultPageSize;
+    protected final int maxPageSize;
+    protected final int maxBatchSize;
+    protected final int maxDeleteBatchSize;
+    protected final boolean uniquenessPreCheck;
+
+    /**
+     * Constructor for AbstractUserService.
+     *
+     * @param userMapper         The mapper of users to DTOs.
+     * @param minAge             Minimum age for users.
+     * @param defaultPageSize    Page size used when none is requested.
+     * @param maxPageSize        Upper bound for the requested page size.
+     * @param maxBatchSize       Maximum number of users created in a single batch.
+     * @param maxDeleteBatchSize Maximum number of users deleted in a single batch.
+     * @param uniquenessPreCheck Whether email and phone number uniqueness is checked before writing,
+     *                           rather than relying on the database constraints only.
+     */
+    protected AbstractUserService(UserMapper userMapper, int minAge, int defaultPageSize, int maxPageSize,
+                                  int maxBatchSize, int maxDeleteBatchSize, boolean uniquenessPreCheck) {
+        this.userMapper = userMapper;
+        this.minAge = new MinimumAge(minAge);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDeleteBatchSize = maxDeleteBatchSize;
+        this.uniquenessPreCheck = uniquenessPreCheck;
+    }
+
+    /**
+     * Screens a batch of users against the already taken emails and phone numbers, and against each other.
+     * The given sets are updated with the keys of the accepted users.
+     *
+     * @return The results of screening, in the order of the given users; created results hold the users to save.
+     */
+    protected List<UserBatchResult> screenBatch(List<User> users, Set<String> takenEmails,
+                                                Set<String> takenPhoneNumbers) {
+        List<UserBatchResult> results = new ArrayList<>(users.size());
+        for (User user : users) {
+            try {
+                validateAge(user.getBirthDate());
+                if (takenEmails.contains(emailKey(user.getEmail()))) {
+                    throw new EmailAlreadyExistsException("Email " + user.getEmail() + " already exists");
+                }
+                if (user.getPhoneNumber() != null && takenPhoneNumbers.contains(user.getPhoneNumber())) {
+                    throw new PhoneNumberAlreadyExistsException("Phone number " + user.getPhoneNumber()
+                            + " already exists");
+                }
+                takenEmails.add(emailKey(user.getEmail()));
+                if (user.getPhoneNumber() != null) {
+                    takenPhoneNumbers.add(user.getPhoneNumber());
+                }
+                results.add(UserBatchResult.created(user));
+            } catch (InvalidAgeException | EmailAlreadyExistsException | PhoneNumberAlreadyExistsException e) {
+                results.add(UserBatchResult.failed(e));
+            }
+        }
+        return results;
+    }
+
+    protected void validateBatchSize(List<User> users) {
+        if (users.size() > maxBatchSize) {
+            throw new BatchTooLargeException("Batch must not contain more than " + maxBatchSize + " users");
+        }
+    }
+
+    /**
+     * Validates the size of a batch of IDs to delete and splits its distinct IDs into chunks,
+     * each deleted with a single statement.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return The chunks of distinct IDs.
+     * @throws BatchTooLargeException if the batch contains more IDs than allowed.
+     */
+    protected List<List<Long>> deleteChunks(List<Long> ids) {
+        if (ids.size() > maxDeleteBatchSize) {
+            throw new BatchTooLargeException("Batch must not contain more than " + maxDeleteBatchSize + " IDs");
+        }
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += DELETE_CHUNK_SIZE) {
+            chunks.add(distinctIds.subList(from, Math.min(from + DELETE_CHUNK_SIZE, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    protected Set<String> distinctValues(List<User> users, Function<User, String> key) {
+        return users.stream()
+                .map(key)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    protected Set<String> emailKeys(Collection<String> emails) {
+        return emails.stream()
+                .map(this::emailKey)
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Emails are compared case-insensitively, as they are by the database collation.
+     */
+    protected String emailKey(String email) {
+        return email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
+
+    protected int pageSize(Integer limit) {
+        return limit == null ? defaultPageSize : Math.clamp(limit, 1, maxPageSize);
+    }
+
+    protected Pageable pageOf(Integer limit, Sort sort) {
+        return PageRequest.of(0, pageSize(limit), sort);
+    }
+
+    /**
+     * Collects users fetched with one extra row into a slice, the extra row telling whether a next slice exists.
+     */
+    protected <T> Slice<T> toSlice(List<T> content, Pageable pageable) {
+        boolean hasNext = content.size() > pageable.getPageSize();
+        List<T> page = hasNext ? content.subList(0, pageable.getPageSize()) : content;
+        return new SliceImpl<>(page, pageable, hasNext);
+    }
+
+    /**
+     * Phone numbers are searched by prefix on their unique index, other queries by the full-text index.
+     */
+    protected boolean isPhonePrefix(String query) {
+        return PHONE_PREFIX.matcher(query.trim()).matches();
+    }
+
+    /**
+     * Converts a search query into a boolean-mode full-text query requiring every term as a phrase,
+     * which the n-gram parser answers as a substring match.
+     *
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    protected String fullTextQuery(String query) {
+        List<String> terms = Arrays.stream(FULL_TEXT_OPERATORS.matcher(query).replaceAll(" ").split("\\s+"))
+                .filter(term -> term.length() >= MIN_SEARCH_TERM_LENGTH)
+                .toList();
+        if (terms.isEmpty()) {
+            throw new InvalidSearchQueryException("Search query must contain a term of at least "
+                    + MIN_SEARCH_TERM_LENGTH + " characters");
+        }
+        return terms.stream()
+                .map(term -> "+\"" + term + "\"")
+                .collect(Collectors.joining(" "));
+    }
+
+    protected ResourceNotFoundException notFound(Long id) {
+        return new ResourceNotFoundException("User not found with id " + id);
+    }
+
+    /**
+     * Explains why an update of a single statement changed no row. Without a version precondition the user is
+     * missing; with one, the current version tells a missing user from a stale precondition.
+     *
+     * @param id              The ID of the user.
+     * @param expectedVersion The version the update was based on, or null if it had no precondition.
+     * @param currentVersion  The lookup of the current version of the user.
+     * @return The exception to throw.
+     */
+    protected RuntimeException rejectedUpdate(Long id, Long expectedVersion, Supplier<Optional<Long>> currentVersion) {
+        if (expectedVersion == null) {
+            return notFound(id);
+        }
+        return currentVersion.get()
+                .<RuntimeException>map(version -> new PreconditionFailedException(
+                        "User with id " + id + " was modified, the current version is " + version))
+                .orElseGet(() -> notFound(id));
+    }
+
+    protected boolean needsUniquenessCheck(String email, String phoneNumber) {
+        return uniquenessPreCheck && (email != null || phoneNumber != null);
+    }
+
+    protected void validateNoConflicts(String email, String phoneNumber, List<UserContactView> conflicts) {
+        if (conflicts.stream().anyMatch(conflict -> email != null && email.equalsIgnoreCase(conflict.getEmail()))) {
+            throw new EmailAlreadyExistsException("Email " + email + " already exists");
+        }
+        if (conflicts.stream().anyMatch(conflict -> phoneNumber != null && phoneNumber.equals(conflict.getPhoneNumber()))) {
+            throw new PhoneNumberAlreadyExistsException("Phone number " + phoneNumber + " already exists");
+        }
+    }
+
+    /**
+     * Rejects an update based on a version other than the current one, so concurrent updates are not lost.
+     */
+    protected void validateVersion(User existingUser, User user) {
+        if (user.getVersion() != null && !user.getVersion().equals(existingUser.getVersion())) {
+            throw new PreconditionFailedException("User with id " + existingUser.getId()
+                    + " was modified, the current version is " + existingUser.getVersion());
+        }
+    }
+
+    protected void validateAge(LocalDate birthDate) {
+        if (!minAge.isReachedBy(birthDate)) {
+            throw new InvalidAgeException("User must be at least " + minAge.years() + " years old");
+        }
+    }
+
+    protected void validateDateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new InvalidDateRangeException("Start date must be before end date");
+        }
+    }
+
+    protected void updateUserFields(User existingUser, User user) {
+        updateUserFields(existingUser, user, false);
+    }
+
+    protected void updateUserFields(User existingUser, User user, boolean partialUpdate) {
+        if (user.getEmail() != null || !partialUpdate) {
+            existingUser.setEmail(user.getEmail());
+        }
+        if (user.getFirstName() != null || !partialUpdate) {
+            existingUser.setFirstName(user.getFirstName());
+        }
+        if (user.getLastName() != null || !partialUpdate) {
+            existingUser.setLastName(user.getLastName());
+        }
+        if (user.getBirthDate() != null || !partialUpdate) {
+            validateAge(user.getBirthDate());
+            existingUser.setBirthDate(user.getBirthDate());
+        }
+        if (user.getAddress() != null || !partialUpdate) {
+            existingUser.setAddress(user.getAddress());
+        }
+        if (user.getPhoneNumber() != null || !partialUpdate) {
+            existingUser.setPhoneNumber(user.getPhoneNumber());
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package org.vitaliistf.userapi.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.repository.ReactiveUserIdGenerator;
+import org.vitaliistf.userapi.repository.ReactiveUserRepository;
+import org.vitaliistf.userapi.service.ReactiveUserService;
+import org.vitaliistf.userapi.service.UserBatchResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Implementation of ReactiveUserService interface over R2DBC.
+ */
+@Profile("reactive")
+@Service
+public class ReactiveUserServiceImpl extends AbstractUserService implements ReactiveUserService {
+    private final ReactiveUserRepository userRepository;
+    private final R2dbcEntityOperations entityOperations;
+    private final ReactiveUserIdGenerator idGenerator;
+
+    /**
+     * Constructor for ReactiveUserServiceImpl.
+     *
+     * @param userRepository     The reactive user repository.
+     * @param entityOperations   The operations used to insert users with a generated ID and to update them by version.
+     * @param idGenerator        The generator of user IDs.
+     * @param userMapper         The mapper of users to DTOs.
+     * @param minAge             Minimum age for users.
+     * @param defaultPageSize    Page size used when none is requested.
+     * @param maxPageSize        Upper bound for the requested page size.
+     * @param maxBatchSize       Maximum number of users created in a single batch.
+     * @param maxDeleteBatchSize Maximum number of users deleted in a single batch.
+     * @param uniquenessPreCheck Whether email and phone number uniqueness is checked before writing,
+     *                           rather than relying on the database constraints only.
+     */
+    public ReactiveUserServiceImpl(ReactiveUserRepository userRepository,
+                                   R2dbcEntityOperations entityOperations,
+                                   ReactiveUserIdGenerator idGenerator,
+                                   UserMapper userMapper,
+                                   @Value("${app.min-age}") int minAge,
+                                   @Value("${app.page.default-size}") int defaultPageSize,
+                                   @Value("${app.page.max-size}") int maxPageSize,
+                                   @Value("${app.batch.max-size}") int maxBatchSize,
+                                   @Value("${app.batch.max-delete-size}") int maxDeleteBatchSize,
+                                   @Value("${app.validation.uniqueness-pre-check}") boolean uniquenessPreCheck) {
+        super(userMapper, minAge, defaultPageSize, maxPageSize, maxBatchSize, maxDeleteBatchSize, uniquenessPreCheck);
+        this.userRepository = userRepository;
+        this.entityOperations = entityOperations;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @return A mono of a slice of User objects.
+     */
+    @Override
+    public Mono<Slice<User>> getAllUsers(Long afterId, Integer limit) {
+        long lastId = afterId == null ? 0L : afterId;
+        Pageable pageable = pageOf(limit, Sort.by("id"));
+        return toSlice(userRepository.findByIdGreaterThan(lastId,
+                PageRequest.of(0, pageable.getPageSize() + 1, pageable.getSort())), pageable);
+    }
+
+    /**
+     * Streams every user ordered by ID.
+     *
+     * @return A flux of all User objects.
+     */
+    @Override
+    public Flux<User> exportUsers() {
+        return userRepository.streamAll();
+    }
+
+    /**
+     * Retrieves a user by ID.
+     *
+     * @param id The ID of the user to retrieve.
+     * @return A mono of the UserDto object with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public Mono<UserDto> getUserById(Long id) {
+        return findUser(id).map(userMapper::userToUserDto);
+    }
+
+    /**
+     * Retrieves the current version of a user without loading the user.
+     *
+     * @param id The ID of the user.
+     * @return A mono of the version of the user with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public Mono<Long> getUserVersion(Long id) {
+        return userRepository.findVersionById(id).switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    /**
+     * Creates a new user.
+     *
+     * @param user The User object to create.
+     * @return A mono of the created User object.
+     * @throws EmailAlreadyExistsException       if the email already exists in the database.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists in the database.
+     * @throws InvalidAgeException              if the user's age is below the minimum required age.
+     */
+    @Override
+    public Mono<User> createUser(User user) {
+        return Mono.defer(() -> {
+            validateAge(user.getBirthDate());
+            return validateUniqueness(user.getEmail(), user.getPhoneNumber(), null)
+                    .then(Mono.defer(() -> insert(user)));
+        });
+    }
+
+    /**
+     * Creates several users at once.
+     * Uniqueness is checked for the whole batch with one query per key, both against the database
+     * and between the users of the batch.
+     *
+     * @param users The User objects to create.
+     * @return A mono of the results of creation, in the order of the given users.
+     * @throws BatchTooLargeException if the batch contains more users than allowed.
+     */
+    @Override
+    @Transactional
+    public Mono<List<UserBatchResult>> createUsers(List<User> users) {
+        return Mono.defer(() -> {
+                    validateBatchSize(users);
+                    return Mono.zip(
+                            findExisting(users, User::getEmail, userRepository::findExistingEmails),
+                            findExisting(users, User::getPhoneNumber, userRepository::findExistingPhoneNumbers));
+                })
+                .map(taken -> screenBatch(users, emailKeys(taken.getT1()), taken.getT2()))
+                .flatMap(results -> Flux.fromIterable(results)
+                        .filter(UserBatchResult::isCreated)
+                        .concatMap(result -> insert(result.user()))
+                        .then(Mono.just(results)));
+    }
+
+    /**
+     * Updates an existing user.
+     *
+     * @param id   The ID of the user to update.
+     * @param user The User object with updated information.
+     * @return A mono of the updated User object.
+     * @throws ResourceNotFoundException         if no user exists with the given ID.
+     * @throws PreconditionFailedException       if the update is based on another version of the user.
+     * @throws EmailAlreadyExistsException       if the email already exists for another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
+     */
+    @Override
+    public Mono<User> updateUser(Long id, User user) {
+        return update(id, user, false);
+    }
+
+    /**
+     * Partially updates an existing user.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information.
+     * @return A mono of the partially updated User object.
+     * @throws ResourceNotFoundException         if no user exists with the given ID.
+     * @throws PreconditionFailedException       if the update is based on another version of the user.
+     * @throws EmailAlreadyExistsException       if the email already exists for another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
+     */
+    @Override
+    public Mono<User> partialUpdateUser(Long id, User user) {
+        return update(id, user, true);
+    }
+
+    /**
+     * Deletes a user by ID with a single statement, without loading the user,
+     * leaving a tombstone for incremental syncs.
+     *
+     * @param id The ID of the user to delete.
+     * @return A mono completing once the user is deleted.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    @Transactional
+    public Mono<Void> deleteUser(Long id) {
+        return Mono.defer(() -> userRepository.insertTombstones(List.of(id), User.now()))
+                .then(Mono.defer(() -> userRepository.deleteUserById(id)))
+                .flatMap(deleted -> deleted == 0 ? Mono.error(notFound(id)) : Mono.empty());
+    }
+
+    /**
+     * Deletes several users at once with one statement per chunk of IDs, without loading the users,
+     * leaving tombstones for incremental syncs.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return A mono of the number of deleted users.
+     * @throws BatchTooLargeException if the batch contains more IDs than allowed.
+     */
+    @Override
+    @Transactional
+    public Mono<Integer> deleteUsers(List<Long> ids) {
+        Instant deletedAt = User.now();
+        return Mono.fromCallable(() -> deleteChunks(ids))
+                .flatMapMany(Flux::fromIterable)
+                .concatMap(chunk -> userRepository.insertTombstones(chunk, deletedAt)
+                        .then(Mono.defer(() -> userRepository.deleteUsersByIdIn(chunk))))
+                .reduce(0, Integer::sum);
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A mono of a slice of User objects within the specified birthdate range.
+     * @throws InvalidDateRangeException if the start date is after the end date.
+     */
+    @Override
+    public Mono<Slice<User>> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                      LocalDate afterBirthDate, Long afterId, Integer limit) {
+        return Mono.defer(() -> {
+            validateDateRange(startDate, endDate);
+            LocalDate lastBirthDate = afterBirthDate == null ? startDate : afterBirthDate;
+            long lastId = afterId == null ? 0L : afterId;
+            Pageable pageable = pageOf(limit, Sort.unsorted());
+            return toSlice(userRepository.findByBirthDateBetweenAfter(startDate, endDate, lastBirthDate, lastId,
+                    pageable.getPageSize() + 1), pageable);
+        });
+    }
+
+    /**
+     * Searches users by a substring of their names or email on the n-gram full-text index,
+     * or by a prefix of their phone number on its unique index, ordered by relevance.
+     *
+     * @param query  The search query.
+     * @param offset The number of matching users to skip, or null for the first page.
+     * @param limit  The requested page size, or null for the default one.
+     * @return A mono of a slice of matching User objects.
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    @Override
+    public Mono<Slice<User>> searchUsers(String query, Integer offset, Integer limit) {
+        return Mono.defer(() -> {
+            Pageable pageable = pageOf(limit, Sort.unsorted());
+            long skipped = offset == null ? 0L : offset;
+            Flux<User> users = isPhonePrefix(query)
+                    ? userRepository.searchByPhonePrefix(query.trim(), pageable.getPageSize() + 1, skipped)
+                    : userRepository.searchByFullText(fullTextQuery(query), pageable.getPageSize() + 1, skipped);
+            return toSlice(users, pageable);
+        });
+    }
+
+    private Mono<Slice<User>> toSlice(Flux<User> users, Pageable pageable) {
+        return users.collectList().map(content -> toSlice(content, pageable));
+    }
+
+    private Mono<Set<String>> findExisting(List<User> users, Function<User, String> key,
+                                           Function<Collection<String>, Flux<String>> query) {
+        Set<String> values = distinctValues(users, key);
+        if (values.isEmpty()) {
+            return Mono.just(new HashSet<>());
+        }
+        return query.apply(values).collect(HashSet::new, Set::add);
+    }
+
+    private Mono<User> findUser(Long id) {
+        return userRepository.findById(id).switchIfEmpty(Mono.error(() -> notFound(id)));
+    }
+
+    private Mono<User> update(Long id, User user, boolean partialUpdate) {
+        return findUser(id)
+                .doOnNext(existingUser -> validateVersion(existingUser, user))
+                .flatMap(existingUser -> validateUniqueness(user.getEmail(), user.getPhoneNumber(), existingUser.getId())
+                        .then(Mono.fromCallable(() -> {
+                            updateUserFields(existingUser, user, partialUpdate);
+                            return existingUser;
+                        })))
+                .flatMap(this::updateVersioned);
+    }
+
+    private Mono<User> updateVersioned(User user) {
+        Long currentVersion = user.getVersion();
+        Update update = Update.update("email", user.getEmail())
+                .set("firstName", user.getFirstName())
+                .set("lastName", user.getLastName())
+                .set("birthDate", user.getBirthDate())
+                .set("address", user.getAddress())
+                .set("phoneNumber", user.getPhoneNumber())
+                .set("version", currentVersion + 1)
+                .set("updatedAt", User.now());
+        Query query = Query.query(Criteria.where("id").is(user.getId()).and("version").is(currentVersion));
+        return entityOperations.update(query, update, User.class).flatMap(rows -> {
+            if (rows == 0) {
+                return Mono.error(new OptimisticLockingFailureException(
+                        "User with id " + user.getId() + " was modified by another request"));
+            }
+            user.setVersion(currentVersion + 1);
+            return Mono.just(user);
+        });
+    }
+
+    private Mono<User> insert(User user) {
+        return idGenerator.nextId().flatMap(id -> {
+            user.setId(id);
+            user.setVersion(0L);
+            user.setCreatedAt(User.now());
+            user.setUpdatedAt(user.getCreatedAt());
+            return entityOperations.insert(user);
+        });
+    }
+
+    private Mono<Void> validateUniqueness(String email, String phoneNumber, Long excludedId) {
+        if (!needsUniquenessCheck(email, phoneNumber)) {
+            return Mono.empty();
+        }
+        return userRepository.findContactConflicts(email, phoneNumber, excludedId)
+                .collectList()
+                .doOnNext(conflicts -> validateNoConflicts(email, phoneNumber, conflicts))
+                .then();
+    }
+}
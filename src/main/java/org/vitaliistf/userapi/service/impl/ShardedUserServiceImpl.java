@@ -0,0 +1,639 @@
+package org.vitaliistf.userapi.service.impl;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.vitaliistf.userapi.cache.UserCache;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.repository.UserDeltaView;
+import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.service.UserBatchResult;
+import org.vitaliistf.userapi.service.UserService;
+import org.vitaliistf.userapi.sharding.UserContactDirectory;
+import org.vitaliistf.userapi.sharding.UserContactDirectory.ContactType;
+import org.vitaliistf.userapi.sharding.UserShards;
+import org.vitaliistf.userapi.util.TransactionCallbacks;
+import org.vitaliistf.userapi.util.UserFields;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of UserService interface spreading users over shards (sharding profile).
+ * A new user is placed on a shard by a hash of its email, and found afterward from the shard encoded in its ID.
+ * Emails and phone numbers are kept unique across shards by the UserContactDirectory. Reads that are not by ID
+ * query every shard in parallel and merge their results.
+ */
+@Profile("sharding & !reactive")
+@Service
+public class ShardedUserServiceImpl extends AbstractUserService implements UserService {
+    private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final EntityManager entityManager;
+    private final UserShards shards;
+    private final UserContactDirectory contactDirectory;
+    private final Duration syncSettleTime;
+
+    /**
+     * Constructor for ShardedUserServiceImpl.
+     *
+     * @param userRepository     The user repository, reading and writing the shard of the current thread.
+     * @param userMapper         The mapper of users to DTOs.
+     * @param userCache          The cache of users keyed by ID.
+     * @param entityManager      The entity manager used to detach streamed users.
+     * @param shards             The placement of users on the shards.
+     * @param contactDirectory   The owners of emails and phone numbers across shards.
+     * @param minAge             Minimum age for users.
+     * @param defaultPageSize    Page size used when none is requested.
+     * @param maxPageSize        Upper bound for the requested page size.
+     * @param maxBatchSize       Maximum number of users created in a single batch.
+     * @param maxDeleteBatchSize Maximum number of users deleted in a single batch.
+     * @param syncSettleTime     How long changes are held back from incremental syncs, so that transactions
+     *                           committing after a later one are not skipped.
+     */
+    public ShardedUserServiceImpl(UserRepository userRepository,
+                                  UserMapper userMapper,
+                                  UserCache userCache,
+                                  EntityManager entityManager,
+                                  UserShards shards,
+                                  UserContactDirectory contactDirectory,
+                                  @Value("${app.min-age}") int minAge,
+                                  @Value("${app.page.default-size}") int defaultPageSize,
+                                  @Value("${app.page.max-size}") int maxPageSize,
+                                  @Value("${app.batch.max-size}") int maxBatchSize,
+                                  @Value("${app.batch.max-delete-size}") int maxDeleteBatchSize,
+                                  @Value("${app.sync.settle-time}") Duration syncSettleTime) {
+        // Uniqueness across shards is always checked, the constraints of a shard only cover its own users
+        super(userMapper, minAge, defaultPageSize, maxPageSize, maxBatchSize, maxDeleteBatchSize, true);
+        this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.entityManager = entityManager;
+        this.shards = shards;
+        this.contactDirectory = contactDirectory;
+        this.syncSettleTime = syncSettleTime;
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID.
+     * The IDs of a shard are all above those of the previous shards, so shards are read in order from the shard of
+     * the given ID until the page is full.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @return A slice of UserDto objects.
+     */
+    @Override
+    public Slice<UserDto> getAllUsers(Long afterId, Integer limit) {
+        long lastId = afterId == null ? 0L : afterId;
+        return readInIdOrder(lastId, limit, remaining -> userRepository.findByIdGreaterThan(lastId,
+                PageRequest.of(0, remaining, Sort.by(UserFields.ID))).getContent());
+    }
+
+    /**
+     * Retrieves a page of users ordered by ID, starting after the given ID, reading only the selected fields.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @param fields  The fields to read. The ID is always read as the keyset of the next page.
+     * @return A slice of users keyed by field name.
+     */
+    @Override
+    public Slice<Map<String, Object>> getAllUsers(Long afterId, Integer limit, Set<String> fields) {
+        long lastId = afterId == null ? 0L : afterId;
+        return readInIdOrder(lastId, limit, remaining -> userRepository.findFieldsByIdGreaterThan(fields, lastId,
+                PageRequest.of(0, remaining)).getContent());
+    }
+
+    /**
+     * Passes every user, ordered by ID, to the given consumer while reading them from a database cursor,
+     * one shard after the other.
+     *
+     * @param consumer The consumer of exported users.
+     */
+    @Override
+    public void exportUsers(Consumer<User> consumer) {
+        for (int shard = 0; shard < shards.shardCount(); shard++) {
+            shards.inReadOnlyTransaction(shard, () -> {
+                try (Stream<User> users = userRepository.streamAll()) {
+                    users.forEach(user -> {
+                        consumer.accept(user);
+                        entityManager.detach(user);
+                    });
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Retrieves a user by ID from its shard, serving it from the cache when possible.
+     *
+     * @param id The ID of the user to retrieve.
+     * @return The UserDto object with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public UserDto getUserById(Long id) {
+        return userCache.get(id, userId -> readShardOf(userId, () -> userRepository.findDtoById(userId)))
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Retrieves only the selected fields of a user by ID, from the cache when the user is cached.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param fields The fields to read.
+     * @return The selected fields of the user with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public Map<String, Object> getUserById(Long id, Set<String> fields) {
+        return userCache.getIfPresent(id)
+                .map(user -> UserFields.select(user, fields))
+                .or(() -> readShardOf(id, () -> userRepository.findFieldsById(fields, id)))
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Retrieves the current version of a user from the cache, or with a query that does not load the user.
+     *
+     * @param id The ID of the user.
+     * @return The version of the user with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public Long getUserVersion(Long id) {
+        return userCache.getIfPresent(id)
+                .map(UserDto::version)
+                .or(() -> readShardOf(id, () -> userRepository.findVersionById(id)))
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Creates a new user on the shard of its email, claiming its email and phone number first.
+     *
+     * @param user The User object to create.
+     * @return The created User object.
+     * @throws EmailAlreadyExistsException       if the email already exists on any shard.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists on any shard.
+     * @throws InvalidAgeException               if the user's age is below the minimum required age.
+     */
+    @Override
+    public User createUser(User user) {
+        validateAge(user.getBirthDate());
+        return shards.inTransaction(shards.shardFor(emailKey(user.getEmail())), () -> {
+            User createdUser = userRepository.save(user);
+            claimContacts(createdUser);
+            userCache.put(userMapper.userToUserDto(createdUser));
+            return createdUser;
+        });
+    }
+
+    /**
+     * Creates several users at once, in one transaction per shard.
+     * The batch is screened against the claimed emails and phone numbers with one query per key. A user losing
+     * its claim to a concurrent write is not created, and reported as failed.
+     * Shards commit one after the other, so users of a shard committed before a failure of another one are kept.
+     *
+     * @param users The User objects to create.
+     * @return The results of creation, in the order of the given users.
+     * @throws BatchTooLargeException if the batch contains more users than allowed.
+     */
+    @Override
+    public List<UserBatchResult> createUsers(List<User> users) {
+        validateBatchSize(users);
+        Set<String> takenEmails = contactDirectory.findClaimed(ContactType.EMAIL,
+                distinctValues(users, User::getEmail));
+        Set<String> takenPhoneNumbers = contactDirectory.findClaimed(ContactType.PHONE_NUMBER,
+                distinctValues(users, User::getPhoneNumber));
+
+        List<UserBatchResult> results = screenBatch(users, takenEmails, takenPhoneNumbers);
+        Map<Integer, List<Integer>> positionsByShard = new TreeMap<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isCreated()) {
+                int shard = shards.shardFor(emailKey(results.get(i).user().getEmail()));
+                positionsByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+            }
+        }
+        positionsByShard.forEach((shard, positions) -> shards.inTransaction(shard, () -> {
+            List<User> savedUsers = userRepository.saveAll(positions.stream()
+                    .map(position -> results.get(position).user())
+                    .toList());
+            for (int i = 0; i < savedUsers.size(); i++) {
+                User savedUser = savedUsers.get(i);
+                try {
+                    claimContacts(savedUser);
+                } catch (EmailAlreadyExistsException | PhoneNumberAlreadyExistsException e) {
+                    userRepository.delete(savedUser);
+                    contactDirectory.releaseAll(List.of(savedUser.getId()));
+                    results.set(positions.get(i), UserBatchResult.failed(e));
+                }
+            }
+            userCache.evictAll(savedUsers.stream().map(User::getId).toList());
+            return null;
+        }));
+        return results;
+    }
+
+    /**
+     * Updates an existing user on its shard.
+     *
+     * @param id   The ID of the user to update.
+     * @param user The User object with updated information.
+     * @return The updated User object.
+     * @throws ResourceNotFoundException         if no user exists with the given ID.
+     * @throws PreconditionFailedException       if the update is based on another version of the user.
+     * @throws EmailAlreadyExistsException       if the email already exists for another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
+     */
+    @Override
+    public User updateUser(Long id, User user) {
+        return inShardOf(id, () -> {
+            User existingUser = findUser(id);
+            validateVersion(existingUser, user);
+            updateUserFields(existingUser, user);
+            return saveAndCache(existingUser);
+        });
+    }
+
+    /**
+     * Partially updates an existing user on its shard.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information.
+     * @return The partially updated User object.
+     * @throws ResourceNotFoundException         if no user exists with the given ID.
+     * @throws PreconditionFailedException       if the update is based on another version of the user.
+     * @throws EmailAlreadyExistsException       if the email already exists for another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
+     */
+    @Override
+    public User partialUpdateUser(Long id, User user) {
+        return inShardOf(id, () -> {
+            User existingUser = findUser(id);
+            validateVersion(existingUser, user);
+            updateUserFields(existingUser, user, true);
+            return saveAndCache(existingUser);
+        });
+    }
+
+    /**
+     * Partially updates an existing user with a single UPDATE of the non-null fields on its shard, without loading
+     * the user. The given email and phone number are claimed first, and the version is only checked when the update is
+     * based on one.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information.
+     * @throws ResourceNotFoundException         if no user exists with the given ID.
+     * @throws PreconditionFailedException       if the update is based on another version of the user.
+     * @throws InvalidAgeException               if the new birthdate is below the minimum required age.
+     * @throws EmailAlreadyExistsException       if the email already exists for another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
+     */
+    @Override
+    public void patchUser(Long id, User user) {
+        if (user.getBirthDate() != null) {
+            validateAge(user.getBirthDate());
+        }
+        inShardOf(id, () -> {
+            claim(ContactType.EMAIL, user.getEmail(), id);
+            claim(ContactType.PHONE_NUMBER, user.getPhoneNumber(), id);
+            if (userRepository.updateNonNullFields(id, user.getVersion(), user) == 0) {
+                throw rejectedUpdate(id, user.getVersion(), () -> userRepository.findVersionById(id));
+            }
+            userCache.evict(id);
+            TransactionCallbacks.afterCommit(() -> {
+                if (user.getEmail() != null) {
+                    contactDirectory.releaseOthers(ContactType.EMAIL, id, user.getEmail());
+                }
+                if (user.getPhoneNumber() != null) {
+                    contactDirectory.releaseOthers(ContactType.PHONE_NUMBER, id, user.getPhoneNumber());
+                }
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Deletes a user by ID with a single statement on its shard, without loading the user,
+     * leaving a tombstone for incremental syncs. Its email and phone number are released once deleted.
+     *
+     * @param id The ID of the user to delete.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public void deleteUser(Long id) {
+        inShardOf(id, () -> {
+            userRepository.insertTombstones(List.of(id), User.now());
+            if (userRepository.deleteUserById(id) == 0) {
+                throw notFound(id);
+            }
+            userCache.evict(id);
+            TransactionCallbacks.afterCommit(() -> contactDirectory.releaseAll(List.of(id)));
+            return null;
+        });
+    }
+
+    /**
+     * Deletes several users at once with one statement per chunk of IDs and shard, without loading the users,
+     * leaving tombstones for incremental syncs. IDs of no shard are skipped.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return The number of deleted users.
+     * @throws BatchTooLargeException if the batch contains more IDs than allowed.
+     */
+    @Override
+    public int deleteUsers(List<Long> ids) {
+        int deleted = 0;
+        Instant deletedAt = User.now();
+        for (List<Long> chunk : deleteChunks(ids)) {
+            Map<Integer, List<Long>> idsByShard = new TreeMap<>();
+            for (Long id : chunk) {
+                shards.shardOf(id).ifPresent(shard -> idsByShard.computeIfAbsent(shard, key -> new ArrayList<>())
+                        .add(id));
+            }
+            for (Map.Entry<Integer, List<Long>> shardIds : idsByShard.entrySet()) {
+                deleted += shards.inTransaction(shardIds.getKey(), () -> {
+                    userRepository.insertTombstones(shardIds.getValue(), deletedAt);
+                    int deletedOnShard = userRepository.deleteUsersByIdIn(shardIds.getValue());
+                    userCache.evictAll(shardIds.getValue());
+                    TransactionCallbacks.afterCommit(() -> contactDirectory.releaseAll(shardIds.getValue()));
+                    return deletedOnShard;
+                });
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID,
+     * merging the pages of every shard.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of UserDto objects within the specified birthdate range.
+     * @throws InvalidDateRangeException if the start date is after the end date.
+     */
+    @Override
+    public Slice<UserDto> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                   LocalDate afterBirthDate, Long afterId, Integer limit) {
+        validateDateRange(startDate, endDate);
+        LocalDate lastBirthDate = afterBirthDate == null ? startDate : afterBirthDate;
+        long lastId = afterId == null ? 0L : afterId;
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        return merge(shards.queryAll(() -> userRepository.findByBirthDateBetweenAfter(startDate, endDate,
+                        lastBirthDate, lastId, pageable)),
+                Comparator.comparing(UserDto::birthDate).thenComparing(UserDto::id), pageable);
+    }
+
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID,
+     * reading only the selected fields, merging the pages of every shard.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @param fields         The fields to read. The birthdate and the ID are always read as the keyset of the next page.
+     * @return A slice of users keyed by field name within the specified birthdate range.
+     * @throws InvalidDateRangeException if the start date is after the end date.
+     */
+    @Override
+    public Slice<Map<String, Object>> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                               LocalDate afterBirthDate, Long afterId, Integer limit,
+                                                               Set<String> fields) {
+        validateDateRange(startDate, endDate);
+        LocalDate lastBirthDate = afterBirthDate == null ? startDate : afterBirthDate;
+        long lastId = afterId == null ? 0L : afterId;
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        return merge(shards.queryAll(() -> userRepository.findFieldsByBirthDateBetweenAfter(fields, startDate,
+                        endDate, lastBirthDate, lastId, pageable)),
+                Comparator.comparing((Map<String, Object> row) -> (LocalDate) row.get(UserFields.BIRTH_DATE))
+                        .thenComparing(row -> (Long) row.get(UserFields.ID)),
+                pageable);
+    }
+
+    /**
+     * Searches users by a substring of their names or email on the n-gram full-text index,
+     * or by a prefix of their phone number on its unique index, on every shard.
+     * Phone numbers are merged in order; full-text matches are interleaved by their rank on their shard, as
+     * relevance scores of different shards are not comparable.
+     *
+     * @param query  The search query.
+     * @param offset The number of matching users to skip, or null for the first page.
+     * @param limit  The requested page size, or null for the default one.
+     * @return A slice of matching UserDto objects.
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    @Override
+    public Slice<UserDto> searchUsers(String query, Integer offset, Integer limit) {
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        int skipped = offset == null ? 0 : offset;
+        // Each shard may hold the whole page, so every shard reads up to the end of the page from its start
+        int shardLimit = skipped + pageable.getPageSize() + 1;
+        List<User> users;
+        if (isPhonePrefix(query)) {
+            String prefix = query.trim();
+            users = shards.queryAll(() -> userRepository.searchByPhonePrefix(prefix, shardLimit, 0)).stream()
+                    .flatMap(List::stream)
+                    .sorted(Comparator.comparing(User::getPhoneNumber))
+                    .toList();
+        } else {
+            String fullTextQuery = fullTextQuery(query);
+            users = interleave(shards.queryAll(() -> userRepository.searchByFullText(fullTextQuery, shardLimit, 0)));
+        }
+        return toSlice(users.stream().skip(skipped).map(userMapper::userToUserDto).toList(), pageable);
+    }
+
+    /**
+     * Suggests users for type-ahead by words of their names or email, from the database full-text search of
+     * every shard.
+     *
+     * @param query The search query.
+     * @param limit The requested number of suggestions, or null for the default one.
+     * @return The matching UserDto objects, ordered by relevance.
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    @Override
+    public List<UserDto> suggestUsers(String query, Integer limit) {
+        return searchUsers(query, 0, pageSize(limit)).getContent();
+    }
+
+    /**
+     * The change stream is not recorded while users are sharded.
+     *
+     * @param sinceSeq The position of the last change already read, 0 to read from the start.
+     * @param limit    The requested number of changes, or null for the default one.
+     * @return Never returns.
+     * @throws ResourceNotFoundException always.
+     */
+    @Override
+    public UserChangesDto getChanges(long sinceSeq, Integer limit) {
+        throw new ResourceNotFoundException("Change stream is not enabled");
+    }
+
+    /**
+     * Retrieves a page of users updated or deleted since the given time, ordered by the time of the change and ID,
+     * merging the changes of every shard. Changes of the last settle time are left for the next sync.
+     *
+     * @param since          The time to read changes from, or null to read all users.
+     * @param afterChangedAt The time of the change of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of changed users, with the current state of the updated ones.
+     */
+    @Override
+    public Slice<UserDeltaDto> getChangedSince(Instant since, Instant afterChangedAt, Long afterId, Integer limit) {
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        Instant lastChangedAt = afterChangedAt != null ? afterChangedAt : since != null ? since : Instant.EPOCH;
+        long lastId = afterId == null ? 0L : afterId;
+        Instant until = User.now().minus(syncSettleTime);
+        List<UserDeltaDto> content = shards.queryAll(() -> findDeltas(lastChangedAt, lastId, until,
+                        pageable.getPageSize() + 1)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(UserDeltaDto::changedAt).thenComparing(UserDeltaDto::id))
+                .toList();
+        return toSlice(content, pageable);
+    }
+
+    private List<UserDeltaDto> findDeltas(Instant lastChangedAt, long lastId, Instant until, int limit) {
+        List<UserDeltaView> deltas = userRepository.findDeltas(lastChangedAt, lastId, until, limit);
+        List<Long> updatedIds = deltas.stream().filter(delta -> !delta.deleted()).map(UserDeltaView::id).toList();
+        Map<Long, UserDto> users = updatedIds.isEmpty() ? Map.of() : userRepository.findDtosByIdIn(updatedIds).stream()
+                .collect(Collectors.toMap(UserDto::id, Function.identity()));
+        return deltas.stream()
+                .map(delta -> new UserDeltaDto(delta.id(), delta.changedAt(), delta.deleted(), users.get(delta.id())))
+                .toList();
+    }
+
+    /**
+     * Reads the shards holding IDs above the given one in order, each for the rows still missing from the page
+     * plus one telling whether a next page exists.
+     */
+    private <T> Slice<T> readInIdOrder(long lastId, Integer limit, Function<Integer, List<T>> reads) {
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        List<T> content = new ArrayList<>();
+        int firstShard = (int) Math.min(Math.max(lastId, 0L) >>> UserShards.SHARD_SHIFT, shards.shardCount() - 1);
+        for (int shard = firstShard; shard < shards.shardCount() && content.size() <= pageable.getPageSize(); shard++) {
+            int remaining = pageable.getPageSize() + 1 - content.size();
+            content.addAll(shards.inReadOnlyTransaction(shard, () -> reads.apply(remaining)));
+        }
+        return toSlice(content, pageable);
+    }
+
+    /**
+     * Merges slices of the shards, each ordered by the given order, into a slice of the given size.
+     */
+    private <T> Slice<T> merge(List<Slice<T>> slices, Comparator<T> order, Pageable pageable) {
+        List<T> content = slices.stream()
+                .flatMap(slice -> slice.getContent().stream())
+                .sorted(order)
+                .toList();
+        boolean hasNext = content.size() > pageable.getPageSize() || slices.stream().anyMatch(Slice::hasNext);
+        return new SliceImpl<>(content.subList(0, Math.min(content.size(), pageable.getPageSize())), pageable,
+                hasNext);
+    }
+
+    /**
+     * Interleaves the ranked matches of the shards: first the best match of every shard, then the second ones,
+     * matches of the same rank ordered by ID.
+     */
+    private static List<User> interleave(List<List<User>> matches) {
+        List<User> interleaved = new ArrayList<>();
+        int longest = matches.stream().mapToInt(List::size).max().orElse(0);
+        for (int rank = 0; rank < longest; rank++) {
+            int position = rank;
+            matches.stream()
+                    .filter(shardMatches -> position < shardMatches.size())
+                    .map(shardMatches -> shardMatches.get(position))
+                    .sorted(Comparator.comparing(User::getId))
+                    .forEach(interleaved::add);
+        }
+        return interleaved;
+    }
+
+    private <T> Optional<T> readShardOf(Long id, Supplier<Optional<T>> reads) {
+        OptionalInt shard = shards.shardOf(id);
+        return shard.isPresent() ? shards.inReadOnlyTransaction(shard.getAsInt(), reads) : Optional.empty();
+    }
+
+    private <T> T inShardOf(Long id, Supplier<T> work) {
+        int shard = shards.shardOf(id).orElseThrow(() -> notFound(id));
+        return shards.inTransaction(shard, work);
+    }
+
+    private User findUser(Long id) {
+        return userRepository.findById(id).orElseThrow(() -> notFound(id));
+    }
+
+    private User saveAndCache(User user) {
+        Long id = user.getId();
+        claimContacts(user);
+        User savedUser = userRepository.save(user);
+        // Flushing increments the version, so the cached user is the committed one
+        userRepository.flush();
+        userCache.put(userMapper.userToUserDto(savedUser));
+        String email = savedUser.getEmail();
+        String phoneNumber = savedUser.getPhoneNumber();
+        TransactionCallbacks.afterCommit(() -> {
+            contactDirectory.releaseOthers(ContactType.EMAIL, id, email);
+            contactDirectory.releaseOthers(ContactType.PHONE_NUMBER, id, phoneNumber);
+        });
+        return savedUser;
+    }
+
+    private void claimContacts(User user) {
+        claim(ContactType.EMAIL, user.getEmail(), user.getId());
+        claim(ContactType.PHONE_NUMBER, user.getPhoneNumber(), user.getId());
+    }
+
+    /**
+     * Claims a value for a user in the current shard transaction, releasing it if the transaction rolls back.
+     *
+     * @throws EmailAlreadyExistsException       if the email is owned by another user.
+     * @throws PhoneNumberAlreadyExistsException if the phone number is owned by another user.
+     */
+    private void claim(ContactType type, String value, Long userId) {
+        if (value == null) {
+            return;
+        }
+        switch (contactDirectory.claim(type, value, userId)) {
+            case CLAIMED -> TransactionCallbacks.afterRollback(() -> contactDirectory.release(type, value, userId));
+            case ALREADY_OWNED -> {
+                // Kept on rollback, as the user still holds the value
+            }
+            case TAKEN -> throw type == ContactType.EMAIL
+                    ? new EmailAlreadyExistsException("Email " + value + " already exists")
+                    : new PhoneNumberAlreadyExistsException("Phone number " + value + " already exists");
+        }
+    }
+}
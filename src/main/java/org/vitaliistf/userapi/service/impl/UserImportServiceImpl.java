@@ -0,0 +1,439 @@
+package org.vitaliistf.userapi.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvFactory;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitaliistf.userapi.dto.ImportErrorDto;
+import org.vitaliistf.userapi.dto.ImportJobDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.ImportJob;
+import org.vitaliistf.userapi.entity.ImportJobError;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.ImportJobStateException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.repository.ImportJobErrorRepository;
+import org.vitaliistf.userapi.repository.ImportJobRepository;
+import org.vitaliistf.userapi.service.UserBatchResult;
+import org.vitaliistf.userapi.service.UserImportService;
+import org.vitaliistf.userapi.service.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of UserImportService interface.
+ * Uploaded files are stored on disk and imported by background threads. Rows are parsed one by one as the file is
+ * read, validated with the UserPostPutDto rules, and created in chunks through UserService#createUsers, which
+ * dedupes emails and phone numbers within the chunk and against the database, and writes with batched inserts.
+ * Every chunk commits together with the progress of its import, so an interrupted import resumes after the last
+ * committed row: on the next start for imports cut off by a shutdown, on request for failed ones.
+ */
+@Slf4j
+@Profile("!reactive")
+@Service
+public class UserImportServiceImpl implements UserImportService, DisposableBean {
+
+    private static final int MAX_MESSAGE_LENGTH = 1024;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final String ROWS_METRIC = "users.import.rows";
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobErrorRepository importJobErrorRepository;
+    private final UserService userService;
+    private final UserMapper userMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader ndjsonReader;
+    private final ObjectReader csvReader;
+    private final ExecutorService importer;
+    private final Counter importedRows;
+    private final Counter failedRows;
+    private final Path directory;
+    private final int chunkSize;
+    private final int maxErrors;
+
+    /**
+     * Constructor for UserImportServiceImpl.
+     *
+     * @param importJobRepository      The repository of imports.
+     * @param importJobErrorRepository The repository of rejected rows.
+     * @param userService              The user service creating the imported users.
+     * @param userMapper               The mapper of DTOs to users.
+     * @param validator                The validator of the imported rows.
+     * @param transactionManager       The transaction manager committing every chunk with its progress.
+     * @param objectMapperBuilder      The ObjectMapper builder configured by Spring Boot, used to read the files.
+     * @param meterRegistry            The registry where the imported and rejected rows are counted.
+     * @param directory                The directory where uploaded files are kept until imported.
+     * @param chunkSize                The number of rows created in a single transaction,
+     *                                 at most the maximum batch size.
+     * @param concurrency              The number of imports running at the same time.
+     * @param maxErrors                The number of rejected rows stored per import, the others are only counted.
+     */
+    public UserImportServiceImpl(ImportJobRepository importJobRepository,
+                                 ImportJobErrorRepository importJobErrorRepository,
+                                 UserService userService,
+                                 UserMapper userMapper,
+                                 Validator validator,
+                                 PlatformTransactionManager transactionManager,
+                                 Jackson2ObjectMapperBuilder objectMapperBuilder,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.import.directory}") Path directory,
+                                 @Value("${app.import.chunk-size}") int chunkSize,
+                                 @Value("${app.import.concurrency}") int concurrency,
+                                 @Value("${app.import.max-errors}") int maxErrors) {
+        this.importJobRepository = importJobRepository;
+        this.importJobErrorRepository = importJobErrorRepository;
+        this.userService = userService;
+        this.userMapper = userMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ndjsonReader = objectMapperBuilder.build().readerFor(UserPostPutDto.class);
+        this.csvReader = objectMapperBuilder.factory(new CsvFactory()).build()
+                .readerFor(UserPostPutDto.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .with(CsvParser.Feature.TRIM_SPACES)
+                .with(CsvParser.Feature.EMPTY_STRING_AS_NULL);
+        this.importer = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("user-import-", 1).daemon().factory());
+        this.importedRows = Counter.builder(ROWS_METRIC)
+                .description("Rows of imported files")
+                .tag("outcome", "imported")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder(ROWS_METRIC)
+                .description("Rows of imported files")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Stores the uploaded file and queues its import.
+     *
+     * @param format  The format of the file.
+     * @param content The content of the file.
+     * @return The queued import.
+     * @throws UncheckedIOException if the file cannot be stored.
+     */
+    @Override
+    public ImportJobDto startImport(ImportJob.Format format, InputStream content) {
+        ImportJob job = importJobRepository.save(new ImportJob(format, Instant.now()));
+        try {
+            Files.createDirectories(directory);
+            Files.copy(content, file(job), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // A partial upload must not be resumed
+            deleteFile(job);
+            finish(job.getId(), ImportJob.Status.FAILED, "File could not be stored: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        submit(job.getId());
+        return toDto(job, List.of());
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param id The ID of the import.
+     * @return The import with its progress and first rejected rows.
+     * @throws ResourceNotFoundException if no import exists with the given ID.
+     */
+    @Override
+    public ImportJobDto getImport(Long id) {
+        ImportJob job = findJob(id);
+        return toDto(job, importJobErrorRepository.findByJobIdOrderByRowNum(id));
+    }
+
+    /**
+     * Queues a failed import again, to continue after its last committed row.
+     *
+     * @param id The ID of the import.
+     * @return The queued import.
+     * @throws ResourceNotFoundException if no import exists with the given ID.
+     * @throws ImportJobStateException   if the import has not failed or its file is no longer available.
+     */
+    @Override
+    public ImportJobDto resumeImport(Long id) {
+        ImportJob job = transactionTemplate.execute(status -> {
+            ImportJob failedJob = findJob(id);
+            if (failedJob.getStatus() != ImportJob.Status.FAILED) {
+                throw new ImportJobStateException("Import " + id + " is " + failedJob.getStatus()
+                        + ", only failed imports can be resumed");
+            }
+            if (!Files.exists(file(failedJob))) {
+                throw new ImportJobStateException("File of import " + id + " is no longer available");
+            }
+            failedJob.setStatus(ImportJob.Status.QUEUED);
+            failedJob.setErrorMessage(null);
+            failedJob.setFinishedAt(null);
+            return importJobRepository.save(failedJob);
+        });
+        submit(id);
+        return toDto(job, importJobErrorRepository.findByJobIdOrderByRowNum(id));
+    }
+
+    /**
+     * Queues the imports left queued or running by the previous shutdown once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedImports() {
+        importer.execute(() -> {
+            try {
+                importJobRepository.findByStatusInOrderById(List.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING))
+                        .forEach(job -> {
+                            log.info("Resuming import {} after row {}", job.getId(), job.getRowsProcessed());
+                            submit(job.getId());
+                        });
+            } catch (RuntimeException e) {
+                log.error("Failed to look up interrupted imports", e);
+            }
+        });
+    }
+
+    /**
+     * Interrupts the running imports, which stop before their next chunk and resume on the next start.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        importer.shutdownNow();
+        importer.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void submit(Long id) {
+        importer.execute(() -> run(id));
+    }
+
+    private void run(Long id) {
+        ImportJob job = transactionTemplate.execute(status -> start(id));
+        if (job == null) {
+            return;
+        }
+        try (MappingIterator<UserPostPutDto> rows = reader(job.getFormat()).readValues(file(job).toFile())) {
+            long row = skip(rows, job.getRowsProcessed());
+            while (true) {
+                if (Thread.currentThread().isInterrupted()) {
+                    log.info("Import {} interrupted after row {}, it resumes on the next start", id, row);
+                    return;
+                }
+                Chunk chunk = readChunk(rows, row);
+                if (chunk.size() == 0) {
+                    break;
+                }
+                long imported = transactionTemplate.execute(status -> importChunk(id, chunk));
+                importedRows.increment(imported);
+                failedRows.increment(chunk.size() - imported);
+                row += chunk.size();
+            }
+            deleteFile(job);
+            finish(id, ImportJob.Status.COMPLETED, null);
+            log.info("Import {} completed after row {}", id, row);
+        } catch (IOException | RuntimeException e) {
+            if (importer.isShutdown()) {
+                log.info("Import {} interrupted by the shutdown, it resumes on the next start", id);
+                return;
+            }
+            log.warn("Import {} failed", id, e);
+            finish(id, ImportJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Marks the import as running, unless it has completed or failed since it was queued.
+     *
+     * @return The started import, or null if it is not to be run.
+     */
+    private ImportJob start(Long id) {
+        ImportJob job = findJob(id);
+        if (job.getStatus() != ImportJob.Status.QUEUED && job.getStatus() != ImportJob.Status.RUNNING) {
+            return null;
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setStartedAt(Instant.now());
+        job.setResumedFromRow(job.getRowsProcessed());
+        return importJobRepository.save(job);
+    }
+
+    /**
+     * Skips the rows committed by previous runs, counting unreadable rows as they were counted then.
+     *
+     * @return The number of skipped rows.
+     */
+    private long skip(MappingIterator<UserPostPutDto> rows, long committedRows) throws IOException {
+        long skipped = 0;
+        while (skipped < committedRows && rows.hasNextValue()) {
+            try {
+                rows.nextValue();
+            } catch (JsonProcessingException e) {
+                // Already reported when the row was processed
+            }
+            skipped++;
+        }
+        return skipped;
+    }
+
+    private Chunk readChunk(MappingIterator<UserPostPutDto> rows, long lastRow) throws IOException {
+        Chunk chunk = new Chunk();
+        while (chunk.size() < chunkSize && rows.hasNextValue()) {
+            long row = lastRow + chunk.size() + 1;
+            try {
+                UserPostPutDto userPostPutDto = rows.nextValue();
+                Set<ConstraintViolation<UserPostPutDto>> violations = validator.validate(userPostPutDto);
+                if (violations.isEmpty()) {
+                    chunk.addUser(row, userMapper.userPostPutDtoToUser(userPostPutDto));
+                } else {
+                    chunk.addError(row, violationMessage(violations));
+                }
+            } catch (JsonProcessingException e) {
+                chunk.addError(row, "Row could not be read: " + e.getOriginalMessage());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Creates the valid users of a chunk and records its progress, in the transaction of the caller.
+     *
+     * @return The number of created users.
+     */
+    private long importChunk(Long id, Chunk chunk) {
+        List<UserBatchResult> results = chunk.users.isEmpty() ? List.of() : userService.createUsers(chunk.users);
+        List<ImportErrorDto> errors = new ArrayList<>(chunk.errors);
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).isCreated()) {
+                errors.add(new ImportErrorDto(chunk.userRows.get(i), results.get(i).error().getMessage()));
+            }
+        }
+        ImportJob job = findJob(id);
+        long storedErrors = Math.min(job.getRowsFailed(), maxErrors);
+        importJobErrorRepository.saveAll(errors.stream()
+                .sorted(Comparator.comparingLong(ImportErrorDto::row))
+                .limit(Math.max(0, maxErrors - storedErrors))
+                .map(error -> new ImportJobError(id, error.row(), truncate(error.message())))
+                .toList());
+        job.setRowsProcessed(job.getRowsProcessed() + chunk.size());
+        job.setRowsImported(job.getRowsImported() + chunk.size() - errors.size());
+        job.setRowsFailed(job.getRowsFailed() + errors.size());
+        importJobRepository.save(job);
+        return chunk.size() - errors.size();
+    }
+
+    private void finish(Long id, ImportJob.Status status, String errorMessage) {
+        transactionTemplate.executeWithoutResult(transaction -> {
+            ImportJob job = findJob(id);
+            job.setStatus(status);
+            job.setErrorMessage(truncate(errorMessage));
+            job.setFinishedAt(Instant.now());
+            importJobRepository.save(job);
+        });
+    }
+
+    private ImportJob findJob(Long id) {
+        return importJobRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Import not found with id " + id));
+    }
+
+    private ObjectReader reader(ImportJob.Format format) {
+        return format == ImportJob.Format.CSV ? csvReader : ndjsonReader;
+    }
+
+    private Path file(ImportJob job) {
+        return directory.resolve(job.getId() + "." + job.getFormat().name().toLowerCase(Locale.ROOT));
+    }
+
+    private void deleteFile(ImportJob job) {
+        try {
+            Files.deleteIfExists(file(job));
+        } catch (IOException e) {
+            log.warn("Failed to delete the file of import {}", job.getId(), e);
+        }
+    }
+
+    private ImportJobDto toDto(ImportJob job, List<ImportJobError> errors) {
+        return new ImportJobDto(job.getId(), job.getFormat().name(), job.getStatus().name(), job.getRowsProcessed(),
+                job.getRowsImported(), job.getRowsFailed(), rowsPerSecond(job), job.getErrorMessage(),
+                job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt(),
+                errors.stream().map(error -> new ImportErrorDto(error.getRowNum(), error.getMessage())).toList());
+    }
+
+    /**
+     * Computes the rate of the current or last run, excluding the rows committed by earlier runs.
+     */
+    private double rowsPerSecond(ImportJob job) {
+        if (job.getStartedAt() == null || job.getStatus() == ImportJob.Status.QUEUED) {
+            return 0;
+        }
+        Instant end = job.getFinishedAt() == null ? Instant.now() : job.getFinishedAt();
+        long millis = Duration.between(job.getStartedAt(), end).toMillis();
+        long rows = job.getRowsProcessed() - job.getResumedFromRow();
+        return millis <= 0 ? 0 : Math.round(rows * 10_000.0 / millis) / 10.0;
+    }
+
+    private static String violationMessage(Set<ConstraintViolation<UserPostPutDto>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String truncate(String message) {
+        return message == null || message.length() <= MAX_MESSAGE_LENGTH
+                ? message
+                : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    /**
+     * Rows read for a single transaction: the users to create with their row numbers, and the rejected rows.
+     */
+    private static final class Chunk {
+        private final List<User> users = new ArrayList<>();
+        private final List<Long> userRows = new ArrayList<>();
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+
+        void addUser(long row, User user) {
+            users.add(user);
+            userRows.add(row);
+        }
+
+        void addError(long row, String message) {
+            errors.add(new ImportErrorDto(row, message));
+        }
+
+        int size() {
+            return users.size() + errors.size();
+        }
+    }
+}
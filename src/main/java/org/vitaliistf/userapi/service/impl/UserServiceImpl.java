@@ -1,56 +1,188 @@
 package org.vitaliistf.userapi.service.impl;
 
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.vitaliistf.userapi.cache.UserCache;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.entity.User;
 import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.outbox.UserChangeOutbox;
+import org.vitaliistf.userapi.outbox.UserChangeType;
+import org.vitaliistf.userapi.repository.UserDeltaView;
 import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.routing.ReplicaRouting;
+import org.vitaliistf.userapi.search.UserSearchIndex;
+import org.vitaliistf.userapi.service.UserBatchResult;
 import org.vitaliistf.userapi.service.UserService;
+import org.vitaliistf.userapi.util.UserFields;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.Period;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of UserService interface.
  */
+@Profile("!reactive & !sharding")
 @Service
-public class UserServiceImpl implements UserService {
+public class UserServiceImpl extends AbstractUserService implements UserService {
     private final UserRepository userRepository;
-    private final int minAge;
+    private final UserCache userCache;
+    private final EntityManager entityManager;
+    private final Optional<UserSearchIndex> searchIndex;
+    private final Optional<UserChangeOutbox> changeOutbox;
+    private final Duration syncSettleTime;
 
     /**
      * Constructor for UserServiceImpl.
      *
-     * @param userRepository The user repository.
-     * @param minAge         Minimum age for users.
+     * @param userRepository     The user repository.
+     * @param userMapper         The mapper of users to DTOs.
+     * @param userCache          The cache of users keyed by ID.
+     * @param entityManager      The entity manager used to detach streamed users.
+     * @param searchIndex        The in-memory search index of users, if enabled.
+     * @param changeOutbox       The outbox the changes of users are recorded to, if enabled.
+     * @param minAge             Minimum age for users.
+     * @param defaultPageSize    Page size used when none is requested.
+     * @param maxPageSize        Upper bound for the requested page size.
+     * @param maxBatchSize       Maximum number of users created in a single batch.
+     * @param maxDeleteBatchSize Maximum number of users deleted in a single batch.
+     * @param uniquenessPreCheck Whether email and phone number uniqueness is checked before writing,
+     *                           rather than relying on the database constraints only.
+     * @param syncSettleTime     How long changes are held back from incremental syncs, so that transactions
+     *                           committing after a later one are not skipped.
      */
-    public UserServiceImpl(UserRepository userRepository, @Value("${app.min-age}") int minAge) {
+    public UserServiceImpl(UserRepository userRepository,
+                           UserMapper userMapper,
+                           UserCache userCache,
+                           EntityManager entityManager,
+                           Optional<UserSearchIndex> searchIndex,
+                           Optional<UserChangeOutbox> changeOutbox,
+                           @Value("${app.min-age}") int minAge,
+                           @Value("${app.page.default-size}") int defaultPageSize,
+                           @Value("${app.page.max-size}") int maxPageSize,
+                           @Value("${app.batch.max-size}") int maxBatchSize,
+                           @Value("${app.batch.max-delete-size}") int maxDeleteBatchSize,
+                           @Value("${app.validation.uniqueness-pre-check}") boolean uniquenessPreCheck,
+                           @Value("${app.sync.settle-time}") Duration syncSettleTime) {
+        super(userMapper, minAge, defaultPageSize, maxPageSize, maxBatchSize, maxDeleteBatchSize, uniquenessPreCheck);
         this.userRepository = userRepository;
-        this.minAge = minAge;
+        this.userCache = userCache;
+        this.entityManager = entityManager;
+        this.searchIndex = searchIndex;
+        this.changeOutbox = changeOutbox;
+        this.syncSettleTime = syncSettleTime;
     }
 
     /**
-     * Retrieves all users.
+     * Retrieves a page of users ordered by ID, starting after the given ID.
      *
-     * @return A list of User objects.
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @return A slice of UserDto objects.
      */
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getAllUsers(Long afterId, Integer limit) {
+        long lastId = afterId == null ? 0L : afterId;
+        return userRepository.findByIdGreaterThan(lastId, pageOf(limit, Sort.by("id")));
     }
 
     /**
-     * Retrieves a user by ID.
+     * Retrieves a page of users ordered by ID, starting after the given ID, reading only the selected fields.
+     *
+     * @param afterId The ID of the last user of the previous page, or null for the first page.
+     * @param limit   The requested page size, or null for the default one.
+     * @param fields  The fields to read. The ID is always read as the keyset of the next page.
+     * @return A slice of users keyed by field name.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getAllUsers(Long afterId, Integer limit, Set<String> fields) {
+        long lastId = afterId == null ? 0L : afterId;
+        return userRepository.findFieldsByIdGreaterThan(fields, lastId, pageOf(limit, Sort.unsorted()));
+    }
+
+    /**
+     * Passes every user, ordered by ID, to the given consumer while reading them from a database cursor.
+     *
+     * @param consumer The consumer of exported users.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<User> consumer) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(user);
+                entityManager.detach(user);
+            });
+        }
+    }
+
+    /**
+     * Retrieves a user by ID, serving it from the cache when possible.
+     * Cache misses read the primary, as the cached user is served until it is next changed.
      *
      * @param id The ID of the user to retrieve.
-     * @return The User object with the specified ID.
+     * @return The UserDto object with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public UserDto getUserById(Long id) {
+        return userCache.get(id, userId -> ReplicaRouting.onPrimary(() -> userRepository.findDtoById(userId)))
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Retrieves only the selected fields of a user by ID, from the cache when the user is cached.
+     *
+     * @param id     The ID of the user to retrieve.
+     * @param fields The fields to read.
+     * @return The selected fields of the user with the specified ID.
      * @throws ResourceNotFoundException if no user exists with the given ID.
      */
     @Override
-    public User getUserById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id " + id));
+    @Transactional(readOnly = true)
+    public Map<String, Object> getUserById(Long id, Set<String> fields) {
+        return userCache.getIfPresent(id)
+                .map(user -> UserFields.select(user, fields))
+                .or(() -> userRepository.findFieldsById(fields, id))
+                .orElseThrow(() -> notFound(id));
+    }
+
+    /**
+     * Retrieves the current version of a user from the cache, or with a query that does not load the user.
+     * Cache misses read the primary, as the version decides whether the client's copy is current.
+     *
+     * @param id The ID of the user.
+     * @return The version of the user with the specified ID.
+     * @throws ResourceNotFoundException if no user exists with the given ID.
+     */
+    @Override
+    public Long getUserVersion(Long id) {
+        return userCache.getIfPresent(id)
+                .map(UserDto::version)
+                .or(() -> ReplicaRouting.onPrimary(() -> userRepository.findVersionById(id)))
+                .orElseThrow(() -> notFound(id));
     }
 
     /**
@@ -63,11 +195,47 @@ public class UserServiceImpl implements UserService {
      * @throws InvalidAgeException           if the user's age is below the minimum required age.
      */
     @Override
+    @Transactional
     public User createUser(User user) {
         validateAge(user.getBirthDate());
-        validateEmailUniqueness(user.getEmail());
-        validatePhoneNumberUniqueness(user.getPhoneNumber());
-        return userRepository.save(user);
+        validateUniqueness(user.getEmail(), user.getPhoneNumber(), null);
+        User createdUser = userRepository.save(user);
+        UserDto createdDto = userMapper.userToUserDto(createdUser);
+        recordSaved(UserChangeType.CREATED, List.of(createdDto));
+        userCache.put(createdDto);
+        reindex(List.of(createdUser.getId()));
+        return createdUser;
+    }
+
+    /**
+     * Creates several users at once.
+     * Uniqueness is checked for the whole batch with one query per key, both against the database
+     * and between the users of the batch.
+     *
+     * @param users The User objects to create.
+     * @return The results of creation, in the order of the given users.
+     * @throws BatchTooLargeException if the batch contains more users than allowed.
+     */
+    @Override
+    @Transactional
+    public List<UserBatchResult> createUsers(List<User> users) {
+        validateBatchSize(users);
+        Set<String> takenEmails = emailKeys(findExisting(users, User::getEmail, userRepository::findExistingEmails));
+        Set<String> takenPhoneNumbers = findExisting(users, User::getPhoneNumber,
+                userRepository::findExistingPhoneNumbers);
+
+        List<UserBatchResult> results = screenBatch(users, takenEmails, takenPhoneNumbers);
+        List<User> usersToSave = results.stream()
+                .filter(UserBatchResult::isCreated)
+                .map(UserBatchResult::user)
+                .toList();
+        List<User> savedUsers = userRepository.saveAll(usersToSave);
+        changeOutbox.ifPresent(outbox -> outbox.recordSaved(UserChangeType.CREATED,
+                savedUsers.stream().map(userMapper::userToUserDto).toList()));
+        List<Long> savedIds = savedUsers.stream().map(User::getId).toList();
+        userCache.evictAll(savedIds);
+        reindex(savedIds);
+        return results;
     }
 
     /**
@@ -77,16 +245,18 @@ public class UserServiceImpl implements UserService {
      * @param user The User object with updated information.
      * @return The updated User object.
      * @throws ResourceNotFoundException     if no user exists with the given ID.
+     * @throws PreconditionFailedException   if the update is based on another version of the user.
      * @throws EmailAlreadyExistsException    if the email already exists for another user.
      * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
      */
     @Override
+    @Transactional
     public User updateUser(Long id, User user) {
-        User existingUser = getUserById(id);
-        validateEmailUniqueness(user.getEmail(), existingUser);
-        validatePhoneNumberUniqueness(user.getPhoneNumber(), existingUser);
+        User existingUser = findUser(id);
+        validateVersion(existingUser, user);
+        validateUniqueness(user.getEmail(), user.getPhoneNumber(), existingUser.getId());
         updateUserFields(existingUser, user);
-        return userRepository.save(existingUser);
+        return saveAndCache(existingUser);
     }
 
     /**
@@ -96,109 +266,258 @@ public class UserServiceImpl implements UserService {
      * @param user The User object with updated information.
      * @return The partially updated User object.
      * @throws ResourceNotFoundException     if no user exists with the given ID.
+     * @throws PreconditionFailedException   if the update is based on another version of the user.
      * @throws EmailAlreadyExistsException    if the email already exists for another user.
      * @throws PhoneNumberAlreadyExistsException if the phone number already exists for another user.
      */
     @Override
+    @Transactional
     public User partialUpdateUser(Long id, User user) {
-        User existingUser = getUserById(id);
-        if (user.getEmail() != null) {
-            validateEmailUniqueness(user.getEmail(), existingUser);
+        User existingUser = findUser(id);
+        validateVersion(existingUser, user);
+        validateUniqueness(user.getEmail(), user.getPhoneNumber(), existingUser.getId());
+        updateUserFields(existingUser, user, true);
+        return saveAndCache(existingUser);
+    }
+
+    /**
+     * Partially updates an existing user with a single UPDATE of the non-null fields, without loading the user.
+     * The version is only checked when the update is based on one. When no row is updated with a version, the version
+     * is looked up to tell a missing user from a stale one. The change is recorded without reading the user back.
+     *
+     * @param id   The ID of the user to partially update.
+     * @param user The User object with updated information.
+     * @throws ResourceNotFoundException   if no user exists with the given ID.
+     * @throws PreconditionFailedException if the update is based on another version of the user.
+     * @throws InvalidAgeException         if the new birthdate is below the minimum required age.
+     */
+    @Override
+    @Transactional
+    public void patchUser(Long id, User user) {
+        if (user.getBirthDate() != null) {
+            validateAge(user.getBirthDate());
         }
-        if (user.getPhoneNumber() != null) {
-            validatePhoneNumberUniqueness(user.getPhoneNumber(), existingUser);
+        if (userRepository.updateNonNullFields(id, user.getVersion(), user) == 0) {
+            // Joins the write transaction, so the version is read from the primary
+            throw rejectedUpdate(id, user.getVersion(), () -> userRepository.findVersionById(id));
         }
-        updateUserFields(existingUser, user, true);
-        return userRepository.save(existingUser);
+        changeOutbox.ifPresent(outbox -> outbox.recordUpdated(List.of(id)));
+        userCache.evict(id);
+        reindex(List.of(id));
     }
 
     /**
-     * Deletes a user by ID.
+     * Deletes a user by ID with a single statement, without loading the user,
+     * leaving a tombstone for incremental syncs.
      *
      * @param id The ID of the user to delete.
      * @throws ResourceNotFoundException if no user exists with the given ID.
      */
     @Override
+    @Transactional
     public void deleteUser(Long id) {
-        User user = getUserById(id);
-        userRepository.delete(user);
+        userRepository.insertTombstones(List.of(id), User.now());
+        if (userRepository.deleteUserById(id) == 0) {
+            throw notFound(id);
+        }
+        changeOutbox.ifPresent(outbox -> outbox.recordDeleted(List.of(id)));
+        userCache.evict(id);
+        reindex(List.of(id));
+    }
+
+    /**
+     * Deletes several users at once with one statement per chunk of IDs, without loading the users,
+     * leaving tombstones for incremental syncs.
+     * When changes are recorded, the existing users of each chunk are locked first to record their deletion.
+     *
+     * @param ids The IDs of the users to delete.
+     * @return The number of deleted users.
+     * @throws BatchTooLargeException if the batch contains more IDs than allowed.
+     */
+    @Override
+    @Transactional
+    public int deleteUsers(List<Long> ids) {
+        int deleted = 0;
+        Instant deletedAt = User.now();
+        for (List<Long> chunk : deleteChunks(ids)) {
+            if (changeOutbox.isPresent()) {
+                List<Long> existingIds = userRepository.lockExistingIds(chunk);
+                if (!existingIds.isEmpty()) {
+                    userRepository.insertTombstones(existingIds, deletedAt);
+                    deleted += userRepository.deleteUsersByIdIn(existingIds);
+                    changeOutbox.get().recordDeleted(existingIds);
+                }
+            } else {
+                userRepository.insertTombstones(chunk, deletedAt);
+                deleted += userRepository.deleteUsersByIdIn(chunk);
+            }
+            userCache.evictAll(chunk);
+            reindex(chunk);
+        }
+        return deleted;
     }
 
     /**
-     * Retrieves users within a specified birthdate range.
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID.
      *
-     * @param startDate The start date of the birthdate range.
-     * @param endDate   The end date of the birthdate range.
-     * @return A list of User objects within the specified birthdate range.
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of UserDto objects within the specified birthdate range.
      * @throws InvalidDateRangeException if the start date is after the end date.
      */
     @Override
-    public List<User> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+    @Transactional(readOnly = true)
+    public Slice<UserDto> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                   LocalDate afterBirthDate, Long afterId, Integer limit) {
         validateDateRange(startDate, endDate);
-        return userRepository.findByBirthDateBetween(startDate, endDate);
+        LocalDate lastBirthDate = afterBirthDate == null ? startDate : afterBirthDate;
+        long lastId = afterId == null ? 0L : afterId;
+        return userRepository.findByBirthDateBetweenAfter(startDate, endDate, lastBirthDate, lastId,
+                pageOf(limit, Sort.unsorted()));
     }
 
-    private void validateEmailUniqueness(String email) {
-        if (userRepository.existsByEmail(email)) {
-            throw new EmailAlreadyExistsException("Email " + email + " already exists");
-        }
+    /**
+     * Retrieves a page of users within a specified birthdate range, ordered by birthdate and ID,
+     * reading only the selected fields.
+     *
+     * @param startDate      The start date of the birthdate range.
+     * @param endDate        The end date of the birthdate range.
+     * @param afterBirthDate The birthdate of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @param fields         The fields to read. The birthdate and the ID are always read as the keyset of the next page.
+     * @return A slice of users keyed by field name within the specified birthdate range.
+     * @throws InvalidDateRangeException if the start date is after the end date.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getUsersByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                                               LocalDate afterBirthDate, Long afterId, Integer limit,
+                                                               Set<String> fields) {
+        validateDateRange(startDate, endDate);
+        LocalDate lastBirthDate = afterBirthDate == null ? startDate : afterBirthDate;
+        long lastId = afterId == null ? 0L : afterId;
+        return userRepository.findFieldsByBirthDateBetweenAfter(fields, startDate, endDate, lastBirthDate, lastId,
+                pageOf(limit, Sort.unsorted()));
     }
 
-    private void validateEmailUniqueness(String email, User existingUser) {
-        if (userRepository.existsByEmailAndIdNot(email, existingUser.getId())) {
-            throw new EmailAlreadyExistsException("Email " + email + " already exists");
-        }
+    /**
+     * Searches users by a substring of their names or email on the n-gram full-text index,
+     * or by a prefix of their phone number on its unique index, ordered by relevance.
+     *
+     * @param query  The search query.
+     * @param offset The number of matching users to skip, or null for the first page.
+     * @param limit  The requested page size, or null for the default one.
+     * @return A slice of matching UserDto objects.
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserDto> searchUsers(String query, Integer offset, Integer limit) {
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        long skipped = offset == null ? 0L : offset;
+        List<User> users = isPhonePrefix(query)
+                ? userRepository.searchByPhonePrefix(query.trim(), pageable.getPageSize() + 1, skipped)
+                : userRepository.searchByFullText(fullTextQuery(query), pageable.getPageSize() + 1, skipped);
+        return toSlice(users.stream().map(userMapper::userToUserDto).toList(), pageable);
     }
 
-    private void validatePhoneNumberUniqueness(String phoneNumber) {
-        if (phoneNumber != null && userRepository.existsByPhoneNumber(phoneNumber)) {
-            throw new PhoneNumberAlreadyExistsException("Phone number " + phoneNumber + " already exists");
-        }
+    /**
+     * Suggests users for type-ahead by words of their names or email, from the in-memory search index
+     * when it is enabled and loaded, or from the database full-text search otherwise.
+     *
+     * @param query The search query.
+     * @param limit The requested number of suggestions, or null for the default one.
+     * @return The matching UserDto objects, ordered by relevance.
+     * @throws InvalidSearchQueryException if the query contains no searchable term.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDto> suggestUsers(String query, Integer limit) {
+        int size = pageSize(limit);
+        return searchIndex.filter(UserSearchIndex::isReady)
+                .map(index -> index.search(query, size))
+                .orElseGet(() -> searchUsers(query, 0, size).getContent());
     }
 
-    private void validatePhoneNumberUniqueness(String phoneNumber, User existingUser) {
-        if (phoneNumber != null && userRepository.existsByPhoneNumberAndIdNot(phoneNumber, existingUser.getId())) {
-            throw new PhoneNumberAlreadyExistsException("Phone number " + phoneNumber + " already exists");
-        }
+    /**
+     * Retrieves the published changes of users following the given position of the change stream.
+     *
+     * @param sinceSeq The position of the last change already read, 0 to read from the start.
+     * @param limit    The requested number of changes, or null for the default one.
+     * @return The changes in stream order, and the position to read the next changes from.
+     * @throws ResourceNotFoundException if the change stream is not enabled.
+     */
+    @Override
+    public UserChangesDto getChanges(long sinceSeq, Integer limit) {
+        return changeOutbox.map(outbox -> outbox.findChanges(sinceSeq, pageSize(limit)))
+                .orElseThrow(() -> new ResourceNotFoundException("Change stream is not enabled"));
     }
 
-    private void validateAge(LocalDate birthDate) {
-        LocalDate today = LocalDate.now();
-        int age = Period.between(birthDate, today).getYears();
-        if (age < minAge) {
-            throw new InvalidAgeException("User must be at least " + minAge + " years old");
-        }
+    /**
+     * Retrieves a page of users updated or deleted since the given time, ordered by the time of the change and ID,
+     * from the update time index and the tombstones of deleted users. Changes of the last settle time are left for
+     * the next sync, and both queries read the same snapshot.
+     *
+     * @param since          The time to read changes from, or null to read all users.
+     * @param afterChangedAt The time of the change of the last user of the previous page, or null for the first page.
+     * @param afterId        The ID of the last user of the previous page, or null for the first page.
+     * @param limit          The requested page size, or null for the default one.
+     * @return A slice of changed users, with the current state of the updated ones.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<UserDeltaDto> getChangedSince(Instant since, Instant afterChangedAt, Long afterId, Integer limit) {
+        Pageable pageable = pageOf(limit, Sort.unsorted());
+        Instant lastChangedAt = afterChangedAt != null ? afterChangedAt : since != null ? since : Instant.EPOCH;
+        long lastId = afterId == null ? 0L : afterId;
+        List<UserDeltaView> deltas = userRepository.findDeltas(lastChangedAt, lastId,
+                User.now().minus(syncSettleTime), pageable.getPageSize() + 1);
+
+        List<Long> updatedIds = deltas.stream().filter(delta -> !delta.deleted()).map(UserDeltaView::id).toList();
+        Map<Long, UserDto> users = updatedIds.isEmpty() ? Map.of() : userRepository.findDtosByIdIn(updatedIds).stream()
+                .collect(Collectors.toMap(UserDto::id, Function.identity()));
+        List<UserDeltaDto> content = deltas.stream()
+                .map(delta -> new UserDeltaDto(delta.id(), delta.changedAt(), delta.deleted(), users.get(delta.id())))
+                .toList();
+        return toSlice(content, pageable);
     }
 
-    private void validateDateRange(LocalDate startDate, LocalDate endDate) {
-        if (startDate.isAfter(endDate)) {
-            throw new InvalidDateRangeException("Start date must be before end date");
-        }
+    private Set<String> findExisting(List<User> users, Function<User, String> key,
+                                     Function<Collection<String>, Set<String>> query) {
+        Set<String> values = distinctValues(users, key);
+        return values.isEmpty() ? new HashSet<>() : new HashSet<>(query.apply(values));
     }
 
-    private void updateUserFields(User existingUser, User user) {
-        updateUserFields(existingUser, user, false);
+    private User findUser(Long id) {
+        return userRepository.findById(id).orElseThrow(() -> notFound(id));
     }
 
-    private void updateUserFields(User existingUser, User user, boolean partialUpdate) {
-        if (user.getEmail() != null || !partialUpdate) {
-            existingUser.setEmail(user.getEmail());
-        }
-        if (user.getFirstName() != null || !partialUpdate) {
-            existingUser.setFirstName(user.getFirstName());
-        }
-        if (user.getLastName() != null || !partialUpdate) {
-            existingUser.setLastName(user.getLastName());
-        }
-        if (user.getBirthDate() != null || !partialUpdate) {
-            validateAge(user.getBirthDate());
-            existingUser.setBirthDate(user.getBirthDate());
-        }
-        if (user.getAddress() != null || !partialUpdate) {
-            existingUser.setAddress(user.getAddress());
-        }
-        if (user.getPhoneNumber() != null || !partialUpdate) {
-            existingUser.setPhoneNumber(user.getPhoneNumber());
+    private void reindex(List<Long> ids) {
+        searchIndex.ifPresent(index -> index.update(ids));
+    }
+
+    private void recordSaved(UserChangeType type, List<UserDto> users) {
+        changeOutbox.ifPresent(outbox -> outbox.recordSaved(type, users));
+    }
+
+    private User saveAndCache(User user) {
+        User savedUser = userRepository.save(user);
+        // Flushing increments the version, so the cached and recorded user is the committed one
+        userRepository.flush();
+        UserDto savedDto = userMapper.userToUserDto(savedUser);
+        recordSaved(UserChangeType.UPDATED, List.of(savedDto));
+        userCache.put(savedDto);
+        reindex(List.of(savedUser.getId()));
+        return savedUser;
+    }
+
+    private void validateUniqueness(String email, String phoneNumber, Long excludedId) {
+        if (needsUniquenessCheck(email, phoneNumber)) {
+            validateNoConflicts(email, phoneNumber, userRepository.findContactConflicts(email, phoneNumber, excludedId));
         }
     }
 }
@@ -0,0 +1,67 @@
+package org.vitaliistf.userapi.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+import org.springframework.beans.factory.DisposableBean;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Provides Hibernate sessions with connections to the shard of their tenant.
+ * Shard 0 is the main database, whose pool is owned by Spring; the pools of the other shards are closed with it.
+ */
+public class ShardConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String>
+        implements DisposableBean {
+
+    private final List<DataSource> shards;
+
+    /**
+     * Constructor for ShardConnectionProvider.
+     *
+     * @param shards The data sources of the shards, in shard order, starting with the main database.
+     */
+    public ShardConnectionProvider(List<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards, the main database included.
+     */
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Returns the data source of a shard.
+     *
+     * @param shard The index of the shard.
+     * @return The data source of the shard.
+     */
+    public DataSource dataSource(int shard) {
+        return shards.get(shard);
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return shards.get(0);
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenantIdentifier) {
+        return shards.get(Integer.parseInt(tenantIdentifier));
+    }
+
+    /**
+     * Closes the connection pools of the shards other than the main database.
+     */
+    @Override
+    public void destroy() {
+        shards.stream()
+                .skip(1)
+                .filter(HikariDataSource.class::isInstance)
+                .forEach(shard -> ((HikariDataSource) shard).close());
+    }
+}
@@ -0,0 +1,66 @@
+package org.vitaliistf.userapi.sharding;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Migrates the shards other than the main database, which Spring Boot migrates, with the same changelog,
+ * then moves the user ID sequence of each shard to the first ID of the shard. Safe to run on every start.
+ */
+public class ShardMigrations implements InitializingBean, ResourceLoaderAware {
+
+    /**
+     * Must match the allocationSize of the sequence generator of {@code User}.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final List<DataSource> shards;
+    private final LiquibaseProperties properties;
+    private ResourceLoader resourceLoader;
+
+    /**
+     * Constructor for ShardMigrations.
+     *
+     * @param shards     The data sources of the shards, in shard order, starting with the main database.
+     * @param properties The spring.liquibase properties.
+     */
+    public ShardMigrations(List<DataSource> shards, LiquibaseProperties properties) {
+        this.shards = shards;
+        this.properties = properties;
+    }
+
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Migrates the shards.
+     *
+     * @throws Exception if a migration fails.
+     */
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        for (int shard = 1; shard < shards.size(); shard++) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(shards.get(shard));
+            liquibase.setChangeLog(properties.getChangeLog());
+            liquibase.setContexts(properties.getContexts());
+            liquibase.setChangeLogParameters(properties.getParameters());
+            liquibase.setResourceLoader(resourceLoader);
+            liquibase.afterPropertiesSet();
+
+            // The pooled optimizer hands out [next_val - 49, next_val], so the first block starts above the first ID
+            long firstBlockEnd = UserShards.firstId(shard) + ID_ALLOCATION_SIZE;
+            new JdbcTemplate(shards.get(shard)).update("UPDATE user_seq SET next_val = ? WHERE next_val < ?",
+                    firstBlockEnd, firstBlockEnd);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.vitaliistf.userapi.sharding;
+
+/**
+ * Per-thread selection of the shard the next transactions run on.
+ * Hibernate sessions read it when they are opened, so a transaction stays on the shard selected when it began.
+ * Without a selection, transactions run on the main database, shard 0.
+ */
+public final class ShardRouting {
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private ShardRouting() {
+    }
+
+    /**
+     * Routes the transactions begun by the current thread to the given shard until the returned scope is closed.
+     *
+     * @param shard The index of the shard.
+     * @return The scope restoring the previous routing when closed.
+     */
+    public static Scope use(int shard) {
+        Integer previous = SHARD.get();
+        SHARD.set(shard);
+        return () -> {
+            if (previous == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Returns the shard the transactions begun by the current thread run on.
+     *
+     * @return The index of the shard, 0 if none is selected.
+     */
+    public static int currentShard() {
+        Integer shard = SHARD.get();
+        return shard == null ? 0 : shard;
+    }
+
+    /**
+     * Scope of a shard selection.
+     */
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Restores the previous routing.
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,30 @@
+package org.vitaliistf.userapi.sharding;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Resolves the Hibernate tenant of new sessions to the shard selected by the current thread.
+ * Each shard is a tenant, so Hibernate also keeps a block of IDs per shard.
+ */
+public class ShardTenantResolver implements CurrentTenantIdentifierResolver<String> {
+
+    /**
+     * Returns the shard selected by the current thread as the tenant identifier.
+     *
+     * @return The index of the shard.
+     */
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return Integer.toString(ShardRouting.currentShard());
+    }
+
+    /**
+     * Sessions are bound to transactions by Spring rather than to Hibernate's current session context.
+     *
+     * @return false.
+     */
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+}
@@ -0,0 +1,221 @@
+package org.vitaliistf.userapi.sharding;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Global owners of emails and phone numbers while users are sharded, kept in the user_contact table of the main
+ * database, as the unique indexes of the user table only hold within a shard. A user claims its email and phone
+ * number before its write commits on its shard, and releases them once they are no longer its own.
+ * A claim left behind by a write that never committed is taken over once it is older than the claim timeout
+ * and its owner does not hold the value on its shard. Every statement commits on its own.
+ */
+public class UserContactDirectory {
+
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+    private static final String INSERT_CLAIM = "INSERT INTO user_contact (contact_type, contact, user_id, claimed_at) "
+            + "VALUES (:type, :contact, :userId, :claimedAt)";
+    private static final String SELECT_CLAIM = "SELECT user_id, claimed_at FROM user_contact "
+            + "WHERE contact_type = :type AND contact = :contact";
+    private static final String TAKE_OVER_CLAIM = "UPDATE user_contact SET user_id = :userId, claimed_at = :claimedAt "
+            + "WHERE contact_type = :type AND contact = :contact AND user_id = :ownerId AND claimed_at = :ownerClaimedAt";
+    private static final String SELECT_CLAIMED = "SELECT contact FROM user_contact "
+            + "WHERE contact_type = :type AND contact IN (:contacts)";
+    private static final String DELETE_CLAIM = "DELETE FROM user_contact "
+            + "WHERE contact_type = :type AND contact = :contact AND user_id = :userId";
+    private static final String DELETE_OTHER_CLAIMS = "DELETE FROM user_contact "
+            + "WHERE user_id = :userId AND contact_type = :type AND (:contact IS NULL OR contact <> :contact)";
+    private static final String DELETE_USER_CLAIMS = "DELETE FROM user_contact WHERE user_id IN (:userIds)";
+    private static final String CLAIM_UNCLAIMED = "INSERT INTO user_contact (contact_type, contact, user_id, claimed_at) "
+            + "SELECT :type, %1$s, u.id, :claimedAt FROM user u LEFT JOIN user_contact c "
+            + "ON c.contact_type = :type AND c.contact = %1$s WHERE u.%2$s IS NOT NULL AND c.user_id IS NULL";
+
+    private final NamedParameterJdbcTemplate mainDatabase;
+    private final List<NamedParameterJdbcTemplate> shards;
+    private final Duration claimTimeout;
+
+    /**
+     * Constructor for UserContactDirectory.
+     *
+     * @param shards       The data sources of the shards, in shard order, starting with the main database.
+     * @param claimTimeout How old a claim must be before it is taken over from an owner not holding its value.
+     */
+    public UserContactDirectory(List<DataSource> shards, Duration claimTimeout) {
+        this.shards = shards.stream().map(NamedParameterJdbcTemplate::new).toList();
+        this.mainDatabase = this.shards.get(0);
+        this.claimTimeout = claimTimeout;
+    }
+
+    /**
+     * Claims a value for a user.
+     *
+     * @param type   The type of the value.
+     * @param value  The value to claim.
+     * @param userId The ID of the user claiming the value.
+     * @return CLAIMED if the value is now owned by the user, ALREADY_OWNED if it was before,
+     * TAKEN if another user owns it.
+     */
+    public ClaimResult claim(ContactType type, String value, long userId) {
+        String contact = type.key(value);
+        for (int attempt = 0; attempt < MAX_CLAIM_ATTEMPTS; attempt++) {
+            Instant now = Instant.now();
+            try {
+                mainDatabase.update(INSERT_CLAIM, params(type, contact)
+                        .addValue("userId", userId)
+                        .addValue("claimedAt", Timestamp.from(now)));
+                return ClaimResult.CLAIMED;
+            } catch (DuplicateKeyException e) {
+                List<Claim> owners = mainDatabase.query(SELECT_CLAIM, params(type, contact),
+                        (rs, rowNum) -> new Claim(rs.getLong("user_id"), rs.getTimestamp("claimed_at")));
+                if (owners.isEmpty()) {
+                    // Released in the meantime
+                    continue;
+                }
+                Claim owner = owners.get(0);
+                if (owner.userId() == userId) {
+                    return ClaimResult.ALREADY_OWNED;
+                }
+                if (owner.claimedAt().toInstant().isAfter(now.minus(claimTimeout))
+                        || holds(owner.userId(), type, contact)) {
+                    return ClaimResult.TAKEN;
+                }
+                int takenOver = mainDatabase.update(TAKE_OVER_CLAIM, params(type, contact)
+                        .addValue("userId", userId)
+                        .addValue("claimedAt", Timestamp.from(now))
+                        .addValue("ownerId", owner.userId())
+                        .addValue("ownerClaimedAt", owner.claimedAt()));
+                if (takenOver == 1) {
+                    return ClaimResult.CLAIMED;
+                }
+            }
+        }
+        return ClaimResult.TAKEN;
+    }
+
+    /**
+     * Claims the emails and phone numbers of the users of the main database that hold no claim, such as the users
+     * created before sharding. Run on every start.
+     */
+    public void claimUnclaimedUsers() {
+        Timestamp now = Timestamp.from(Instant.now());
+        for (ContactType type : ContactType.values()) {
+            mainDatabase.update(CLAIM_UNCLAIMED.formatted(type.keyExpression, type.column),
+                    new MapSqlParameterSource("type", type.name()).addValue("claimedAt", now));
+        }
+    }
+
+    /**
+     * Retrieves the values among the given ones that are owned by users.
+     *
+     * @param type   The type of the values.
+     * @param values The values to check.
+     * @return The owned values, emails in lower case.
+     */
+    public Set<String> findClaimed(ContactType type, Collection<String> values) {
+        List<String> contacts = values.stream().filter(Objects::nonNull).map(type::key).distinct().toList();
+        if (contacts.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(mainDatabase.queryForList(SELECT_CLAIMED,
+                new MapSqlParameterSource("type", type.name()).addValue("contacts", contacts), String.class));
+    }
+
+    /**
+     * Releases a value claimed by a user.
+     *
+     * @param type   The type of the value.
+     * @param value  The value to release.
+     * @param userId The ID of the user owning the value.
+     */
+    public void release(ContactType type, String value, long userId) {
+        mainDatabase.update(DELETE_CLAIM, params(type, type.key(value)).addValue("userId", userId));
+    }
+
+    /**
+     * Releases the values of a type claimed by a user, except the one it holds now.
+     *
+     * @param type      The type of the values.
+     * @param userId    The ID of the user.
+     * @param keptValue The value the user holds, or null to release every value of the type.
+     */
+    public void releaseOthers(ContactType type, long userId, String keptValue) {
+        mainDatabase.update(DELETE_OTHER_CLAIMS, params(type, keptValue == null ? null : type.key(keptValue))
+                .addValue("userId", userId));
+    }
+
+    /**
+     * Releases every value claimed by the given users.
+     *
+     * @param userIds The IDs of the users.
+     */
+    public void releaseAll(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            mainDatabase.update(DELETE_USER_CLAIMS, new MapSqlParameterSource("userIds", userIds));
+        }
+    }
+
+    /**
+     * Checks on its shard whether a user holds a value.
+     */
+    private boolean holds(long userId, ContactType type, String contact) {
+        long shard = userId >>> UserShards.SHARD_SHIFT;
+        if (shard >= shards.size()) {
+            return false;
+        }
+        List<String> values = shards.get((int) shard).queryForList(
+                "SELECT " + type.column + " FROM user WHERE id = :id", new MapSqlParameterSource("id", userId),
+                String.class);
+        return values.stream().anyMatch(value -> value != null && contact.equals(type.key(value)));
+    }
+
+    private static MapSqlParameterSource params(ContactType type, String contact) {
+        return new MapSqlParameterSource("type", type.name()).addValue("contact", contact);
+    }
+
+    /**
+     * Types of unique contact values.
+     */
+    public enum ContactType {
+        EMAIL("email", "LOWER(u.email)"),
+        PHONE_NUMBER("phone_number", "u.phone_number");
+
+        private final String column;
+        private final String keyExpression;
+
+        ContactType(String column, String keyExpression) {
+            this.column = column;
+            this.keyExpression = keyExpression;
+        }
+
+        /**
+         * Emails are compared case-insensitively, as they are by the database collation.
+         */
+        private String key(String value) {
+            return this == EMAIL ? value.toLowerCase(Locale.ROOT) : value;
+        }
+    }
+
+    /**
+     * Results of a claim.
+     */
+    public enum ClaimResult {
+        CLAIMED,
+        ALREADY_OWNED,
+        TAKEN
+    }
+
+    private record Claim(long userId, Timestamp claimedAt) {
+    }
+}
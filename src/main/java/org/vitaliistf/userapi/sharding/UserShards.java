@@ -0,0 +1,197 @@
+package org.vitaliistf.userapi.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Placement of users on shards, and transactions on a single shard or on all of them in parallel.
+ * The ID of a user encodes its shard in its high bits: the sequence of shard n starts at n << 43, so the IDs of
+ * the main database, shard 0, keep their values, and the IDs of every shard are above those of the previous ones.
+ * New users are placed by a hash of their routing key, while existing users are found from their ID alone.
+ */
+public class UserShards implements DisposableBean {
+
+    /**
+     * Position of the shard in user IDs. Ten bits of shard keep IDs below 2^53, exact in JSON numbers.
+     */
+    public static final int SHARD_SHIFT = 43;
+    public static final int MAX_SHARDS = 1 << 10;
+
+    private final int shardCount;
+    private final TransactionTemplate readWriteTransaction;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService queryExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("shard-query-", 1).factory());
+
+    /**
+     * Constructor for UserShards.
+     *
+     * @param shardCount         The number of shards, the main database included.
+     * @param transactionManager The transaction manager of the shards.
+     */
+    public UserShards(int shardCount, PlatformTransactionManager transactionManager) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_SHARDS + " shards are supported");
+        }
+        this.shardCount = shardCount;
+        // New transactions, as a transaction joined on another thread or shard would stay on the shard it began on
+        this.readWriteTransaction = new TransactionTemplate(transactionManager);
+        this.readWriteTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards, the main database included.
+     */
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Returns the lowest ID of a shard; the IDs of the shard are above it.
+     *
+     * @param shard The index of the shard.
+     * @return The lowest ID of the shard.
+     */
+    public static long firstId(int shard) {
+        return (long) shard << SHARD_SHIFT;
+    }
+
+    /**
+     * Returns the shard holding the user with the given ID.
+     *
+     * @param id The ID of the user.
+     * @return The index of the shard, or an empty OptionalInt if no shard can hold the ID.
+     */
+    public OptionalInt shardOf(Long id) {
+        if (id == null || id <= 0) {
+            return OptionalInt.empty();
+        }
+        long shard = id >>> SHARD_SHIFT;
+        return shard < shardCount ? OptionalInt.of((int) shard) : OptionalInt.empty();
+    }
+
+    /**
+     * Returns the shard a new user with the given routing key is placed on.
+     *
+     * @param routingKey The routing key of the user.
+     * @return The index of the shard.
+     */
+    public int shardFor(String routingKey) {
+        // Hash codes of similar keys differ in a few low bits only, so they are mixed before the modulo
+        int hash = routingKey.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shardCount);
+    }
+
+    /**
+     * Runs the given work in a new transaction on a shard.
+     *
+     * @param shard The index of the shard.
+     * @param work  The work to run.
+     * @param <T>   The type of the result.
+     * @return The result of the work.
+     */
+    public <T> T inTransaction(int shard, Supplier<T> work) {
+        try (ShardRouting.Scope ignored = ShardRouting.use(shard)) {
+            return readWriteTransaction.execute(status -> work.get());
+        }
+    }
+
+    /**
+     * Runs the given reads in a new read-only transaction on a shard.
+     *
+     * @param shard The index of the shard.
+     * @param reads The reads to run.
+     * @param <T>   The type of the result.
+     * @return The result of the reads.
+     */
+    public <T> T inReadOnlyTransaction(int shard, Supplier<T> reads) {
+        try (ShardRouting.Scope ignored = ShardRouting.use(shard)) {
+            return readOnlyTransaction.execute(status -> reads.get());
+        }
+    }
+
+    /**
+     * Runs the given reads on every shard in parallel, each in a read-only transaction.
+     *
+     * @param reads The reads to run.
+     * @param <T>   The type of the result.
+     * @return The results of the shards, in shard order.
+     */
+    public <T> List<T> queryAll(Supplier<T> reads) {
+        return queryFrom(0, reads);
+    }
+
+    /**
+     * Runs the given reads on the given shard and the following ones in parallel, each in a read-only transaction.
+     * The reads of the first shard run on the calling thread.
+     *
+     * @param firstShard The index of the first shard to read.
+     * @param reads      The reads to run.
+     * @param <T>        The type of the result.
+     * @return The results of the shards, in shard order.
+     */
+    public <T> List<T> queryFrom(int firstShard, Supplier<T> reads) {
+        List<Future<T>> futures = new ArrayList<>();
+        try {
+            for (int shard = firstShard + 1; shard < shardCount; shard++) {
+                int target = shard;
+                futures.add(queryExecutor.submit(() -> inReadOnlyTransaction(target, reads)));
+            }
+            List<T> results = new ArrayList<>(futures.size() + 1);
+            results.add(inReadOnlyTransaction(firstShard, reads));
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+            return results;
+        } finally {
+            // Stops the remaining reads once one has failed
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Stops the threads running reads.
+     */
+    @Override
+    public void destroy() {
+        queryExecutor.shutdownNow();
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
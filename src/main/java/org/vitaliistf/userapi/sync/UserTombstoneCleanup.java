@@ -0,0 +1,90 @@
+package org.vitaliistf.userapi.sync;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.sharding.UserShards;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Cleanup of the tombstones that incremental syncs read deletions from. Tombstones older than the retention are
+ * deleted on every shard, in short transactions of a bounded size, so a client syncing less often than that misses
+ * deletions and has to sync all users again.
+ */
+@Slf4j
+@Profile("!reactive")
+@Component
+public class UserTombstoneCleanup {
+
+    private static final int DELETE_CHUNK_SIZE = 10000;
+
+    private final UserRepository userRepository;
+    private final Optional<UserShards> shards;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    /**
+     * Constructor for UserTombstoneCleanup.
+     *
+     * @param userRepository     The user repository, writing the shard of the current thread.
+     * @param shards             The shards of the sharding profile, if active.
+     * @param transactionManager The transaction manager of the database.
+     * @param retention          How long tombstones are kept for incremental syncs.
+     */
+    public UserTombstoneCleanup(UserRepository userRepository,
+                                Optional<UserShards> shards,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.sync.tombstone-retention}") Duration retention) {
+        this.userRepository = userRepository;
+        this.shards = shards;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    /**
+     * Deletes the tombstones that are older than the retention.
+     */
+    @Scheduled(fixedDelayString = "${app.sync.tombstone-cleanup-interval}",
+            initialDelayString = "${app.sync.tombstone-cleanup-interval}")
+    public void deleteExpired() {
+        Instant deletedBefore = User.now().minus(retention);
+        int shardCount = shards.map(UserShards::shardCount).orElse(1);
+        for (int shard = 0; shard < shardCount; shard++) {
+            try {
+                int deleted = deleteExpired(shard, deletedBefore);
+                if (deleted > 0) {
+                    log.info("Deleted {} tombstones of users deleted more than {} ago on shard {}",
+                            deleted, retention, shard);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to delete expired tombstones on shard {}: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private int deleteExpired(int shard, Instant deletedBefore) {
+        int deleted = 0;
+        int chunk;
+        do {
+            chunk = inTransaction(shard, () -> userRepository.deleteTombstonesBefore(deletedBefore, DELETE_CHUNK_SIZE));
+            deleted += chunk;
+        } while (chunk == DELETE_CHUNK_SIZE);
+        return deleted;
+    }
+
+    private int inTransaction(int shard, Supplier<Integer> work) {
+        Integer result = shards.map(userShards -> userShards.inTransaction(shard, work))
+                .orElseGet(() -> transactionTemplate.execute(status -> work.get()));
+        return result == null ? 0 : result;
+    }
+}
@@ -0,0 +1,51 @@
+package org.vitaliistf.userapi.util;
+
+import org.vitaliistf.userapi.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for encoding and decoding opaque pagination cursors.
+ */
+public final class CursorCodec {
+
+    private static final String SEPARATOR = ",";
+
+    private CursorCodec() {
+    }
+
+    /**
+     * Encodes the given keyset values into an opaque URL-safe cursor.
+     *
+     * @param values The keyset values of the last returned element.
+     * @return The encoded cursor.
+     */
+    public static String encode(Object... values) {
+        String raw = Arrays.stream(values)
+                .map(String::valueOf)
+                .collect(Collectors.joining(SEPARATOR));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes an opaque cursor and converts its keyset values using the given parser.
+     *
+     * @param cursor The cursor to decode.
+     * @param parser The function converting raw keyset values into the target type.
+     * @param <T>    The type of the decoded cursor.
+     * @return The decoded cursor.
+     * @throws InvalidCursorException if the cursor is malformed.
+     */
+    public static <T> T decode(String cursor, Function<String[], T> parser) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            return parser.apply(raw.split(SEPARATOR, -1));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor " + cursor + " is not valid");
+        }
+    }
+}
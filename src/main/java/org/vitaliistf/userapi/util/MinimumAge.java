@@ -0,0 +1,71 @@
+package org.vitaliistf.userapi.util;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Minimum age check reduced to a date comparison.
+ * The latest birthdate allowed is computed once per day rather than on every check. A birthdate on or before it
+ * means the same as Period.between(birthDate, today).getYears() reaching the minimum age, February 29 included.
+ */
+public final class MinimumAge {
+
+    private final int years;
+    private final Clock clock;
+    private volatile Cutoff cutoff;
+
+    /**
+     * Constructor for MinimumAge.
+     *
+     * @param years The minimum age in years.
+     */
+    public MinimumAge(int years) {
+        this(years, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructor for MinimumAge with the clock telling today's date.
+     *
+     * @param years The minimum age in years.
+     * @param clock The clock telling today's date.
+     */
+    MinimumAge(int years, Clock clock) {
+        this.years = years;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the minimum age.
+     *
+     * @return The minimum age in years.
+     */
+    public int years() {
+        return years;
+    }
+
+    /**
+     * Checks whether a person born on the given date has reached the minimum age today.
+     *
+     * @param birthDate The birthdate to check.
+     * @return true if the person is at least the minimum age.
+     */
+    public boolean isReachedBy(LocalDate birthDate) {
+        return !birthDate.isAfter(latestBirthDate());
+    }
+
+    private LocalDate latestBirthDate() {
+        Cutoff current = cutoff;
+        if (current == null || clock.millis() >= current.validUntilMillis()) {
+            ZoneId zone = clock.getZone();
+            LocalDate today = LocalDate.now(clock);
+            current = new Cutoff(today.minusYears(years),
+                    today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            cutoff = current;
+        }
+        return current.latestBirthDate();
+    }
+
+    private record Cutoff(LocalDate latestBirthDate, long validUntilMillis) {
+    }
+}
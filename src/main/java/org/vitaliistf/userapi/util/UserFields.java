@@ -0,0 +1,94 @@
+package org.vitaliistf.userapi.util;
+
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.exception.InvalidFieldsException;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for sparse field selection of users.
+ * Field names are the properties of UserDto, which are also the attributes of the User entity.
+ */
+public final class UserFields {
+
+    public static final String ID = "id";
+    public static final String BIRTH_DATE = "birthDate";
+    public static final String VERSION = "version";
+
+    private static final List<String> ALL = List.of(ID, "email", "firstName", "lastName", BIRTH_DATE,
+            "address", "phoneNumber", VERSION);
+    private static final String SEPARATOR = ",";
+
+    private UserFields() {
+    }
+
+    /**
+     * Parses a comma-separated field selection.
+     *
+     * @param fields The comma-separated field names.
+     * @return The selected fields, in the order of the properties of UserDto.
+     * @throws InvalidFieldsException if the selection is empty or contains an unknown field.
+     */
+    public static Set<String> parse(String fields) {
+        Set<String> requested = Arrays.stream(fields.split(SEPARATOR))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+        if (requested.isEmpty()) {
+            throw new InvalidFieldsException("At least one field must be selected, available fields are " + ALL);
+        }
+        if (!ALL.containsAll(requested)) {
+            requested.removeAll(ALL);
+            throw new InvalidFieldsException("Unknown fields " + requested + ", available fields are " + ALL);
+        }
+        return ALL.stream()
+                .filter(requested::contains)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Keeps only the selected fields of a row, e.g. after keyset columns were read for the cursor.
+     *
+     * @param row    The row read from the database.
+     * @param fields The selected fields.
+     * @return The selected fields of the row, in the order of the selection.
+     */
+    public static Map<String, Object> select(Map<String, Object> row, Set<String> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        fields.forEach(field -> selected.put(field, row.get(field)));
+        return selected;
+    }
+
+    /**
+     * Keeps only the selected fields of a user.
+     *
+     * @param user   The user.
+     * @param fields The selected fields.
+     * @return The selected fields of the user, in the order of the selection.
+     */
+    public static Map<String, Object> select(UserDto user, Set<String> fields) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        fields.forEach(field -> selected.put(field, valueOf(user, field)));
+        return selected;
+    }
+
+    private static Object valueOf(UserDto user, String field) {
+        return switch (field) {
+            case ID -> user.id();
+            case "email" -> user.email();
+            case "firstName" -> user.firstName();
+            case "lastName" -> user.lastName();
+            case BIRTH_DATE -> user.birthDate();
+            case "address" -> user.address();
+            case "phoneNumber" -> user.phoneNumber();
+            case VERSION -> user.version();
+            default -> throw new InvalidFieldsException("Unknown field " + field);
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package org.vitaliistf.userapi.util;
+
+import org.vitaliistf.userapi.exception.PreconditionFailedException;
+
+/**
+ * Utility class for converting entity versions to strong ETags and back.
+ */
+public final class VersionTags {
+
+    private static final String ANY = "*";
+    private static final String QUOTE = "\"";
+    private static final String WEAK_PREFIX = "W/";
+
+    private VersionTags() {
+    }
+
+    /**
+     * Converts the version of an entity into a strong ETag.
+     *
+     * @param version The version of the entity.
+     * @return The quoted ETag.
+     */
+    public static String toETag(Long version) {
+        return QUOTE + version + QUOTE;
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches the given version, comparing ETags weakly.
+     *
+     * @param ifNoneMatch The If-None-Match header value, or null if absent.
+     * @param version     The current version of the entity.
+     * @return true if the client already has the current version.
+     */
+    public static boolean matchesAny(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String eTag = toETag(version);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if (ANY.equals(candidate) || eTag.equals(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the version the client expects from an If-Match header.
+     * Only a single strong ETag can match a version, so weak or multiple ETags never match.
+     *
+     * @param ifMatch The If-Match header value, or null if absent.
+     * @return The expected version, or null if any version is accepted.
+     * @throws PreconditionFailedException if the header cannot match any version.
+     */
+    public static Long fromIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        try {
+            if (!tag.startsWith(QUOTE) || !tag.endsWith(QUOTE) || tag.length() < 3) {
+                throw new IllegalArgumentException(tag);
+            }
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (IllegalArgumentException e) {
+            throw new PreconditionFailedException("ETag " + tag + " does not match the current version");
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.vitaliistf.userapi.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of {@link EmailAddress}, a single pass over the characters without regular expressions.
+ * The local part is dot-separated atoms of letters, digits and the characters allowed by RFC 5322, at most 64
+ * characters long. The domain is at least two labels of letters, digits and hyphens, at most 255 characters long,
+ * ending with a top-level domain of 2 to 6 letters.
+ */
+public class EmailAddressValidator implements ConstraintValidator<EmailAddress, CharSequence> {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_LENGTH = 255;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MIN_TLD_LENGTH = 2;
+    private static final int MAX_TLD_LENGTH = 6;
+    private static final String LOCAL_PART_SYMBOLS = "!#$%&’*+/=?`{|}~^-_";
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isEmailAddress(value);
+    }
+
+    /**
+     * Checks whether the given value is an email address.
+     *
+     * @param value The value to check.
+     * @return true if the value is an email address.
+     */
+    static boolean isEmailAddress(CharSequence value) {
+        int at = lastIndexOf(value, '@');
+        return at > 0 && isLocalPart(value, 0, at) && isDomain(value, at + 1, value.length());
+    }
+
+    private static boolean isLocalPart(CharSequence value, int start, int end) {
+        if (end - start > MAX_LOCAL_PART_LENGTH) {
+            return false;
+        }
+        boolean atomStart = true;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (atomStart) {
+                    return false;
+                }
+                atomStart = true;
+            } else if (isAsciiLetterOrDigit(c) || LOCAL_PART_SYMBOLS.indexOf(c) >= 0) {
+                atomStart = false;
+            } else {
+                return false;
+            }
+        }
+        return !atomStart;
+    }
+
+    private static boolean isDomain(CharSequence value, int start, int end) {
+        if (end - start > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        int labels = 0;
+        int labelStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || value.charAt(i) == '.') {
+                if (!isLabel(value, labelStart, i)) {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+            }
+        }
+        return labels >= 2 && isTopLevelDomain(value, lastIndexOf(value, '.') + 1, end);
+    }
+
+    private static boolean isLabel(CharSequence value, int start, int end) {
+        int length = end - start;
+        if (length == 0 || length > MAX_LABEL_LENGTH
+                || value.charAt(start) == '-' || value.charAt(end - 1) == '-') {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTopLevelDomain(CharSequence value, int start, int end) {
+        int length = end - start;
+        if (length < MIN_TLD_LENGTH || length > MAX_TLD_LENGTH) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static int lastIndexOf(CharSequence value, char c) {
+        for (int i = value.length() - 1; i >= 0; i--) {
+            if (value.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,38 @@
+package org.vitaliistf.userapi.validation;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validator of {@link PhoneNumber}, a single pass over the characters without regular expressions.
+ */
+public class PhoneNumberValidator implements ConstraintValidator<PhoneNumber, CharSequence> {
+
+    private static final int MIN_DIGITS = 10;
+    private static final int MAX_DIGITS = 15;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isPhoneNumber(value);
+    }
+
+    /**
+     * Checks whether the given value is '+' followed by 10 to 15 ASCII digits.
+     *
+     * @param value The value to check.
+     * @return true if the value is a phone number.
+     */
+    static boolean isPhoneNumber(CharSequence value) {
+        int length = value.length();
+        if (length < MIN_DIGITS + 1 || length > MAX_DIGITS + 1 || value.charAt(0) != '+') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,2 @@
+-- InnoDB secondary indexes carry the primary key, so this index also serves ORDER BY birth_date, id.
+CREATE INDEX idx_user_birth_date ON user (birth_date);
@@ -0,0 +1 @@
+ALTER TABLE user ADD CONSTRAINT uk_user_phone_number UNIQUE (phone_number);
@@ -0,0 +1,3 @@
+-- n-gram full-text index for substring search on names and email (bigrams, as ngram_token_size defaults to 2).
+-- Phone numbers are searched by prefix on uk_user_phone_number instead.
+ALTER TABLE user ADD FULLTEXT INDEX ft_user_name_email (first_name, last_name, email) WITH PARSER ngram;
@@ -0,0 +1,13 @@
+-- Creation and last modification times of users, set by the application. Existing users are stamped with the
+-- time of the migration. Indexed with the ID as the keyset of incremental syncs
+ALTER TABLE user
+    ADD COLUMN created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    ADD COLUMN updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    ADD INDEX idx_user_updated_at (updated_at, id);
+
+-- Deleted users, so that incremental syncs see deletions. User IDs are never reused
+CREATE TABLE user_tombstone (
+                       user_id BIGINT PRIMARY KEY,
+                       deleted_at TIMESTAMP(3) NOT NULL,
+                       INDEX idx_user_tombstone_deleted_at (deleted_at, user_id)
+);
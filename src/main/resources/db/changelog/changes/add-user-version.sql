@@ -0,0 +1,2 @@
+-- Optimistic locking version, also used as the ETag of the user
+ALTER TABLE user ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,25 @@
+-- Bulk imports of users: one row per uploaded file, its progress being committed with every chunk of users,
+-- so an interrupted import resumes after the last committed row
+CREATE TABLE import_job (
+                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       format VARCHAR(16) NOT NULL,
+                       status VARCHAR(16) NOT NULL,
+                       rows_processed BIGINT NOT NULL DEFAULT 0,
+                       rows_imported BIGINT NOT NULL DEFAULT 0,
+                       rows_failed BIGINT NOT NULL DEFAULT 0,
+                       resumed_from_row BIGINT NOT NULL DEFAULT 0,
+                       error_message VARCHAR(1024),
+                       created_at TIMESTAMP(3) NOT NULL,
+                       started_at TIMESTAMP(3) NULL,
+                       finished_at TIMESTAMP(3) NULL
+);
+
+-- First rejected rows of every import, the others are only counted
+CREATE TABLE import_job_error (
+                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       job_id BIGINT NOT NULL,
+                       row_num BIGINT NOT NULL,
+                       message VARCHAR(1024) NOT NULL,
+                       CONSTRAINT fk_import_job_error_job FOREIGN KEY (job_id) REFERENCES import_job (id) ON DELETE CASCADE,
+                       INDEX idx_import_job_error_job_row (job_id, row_num)
+);
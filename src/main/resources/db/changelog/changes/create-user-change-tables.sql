@@ -0,0 +1,21 @@
+-- Outbox of user changes, written in the transaction of the change. The relay publishes them in batches and assigns
+-- seq in publication order, so readers of seq > n never miss a change committed after a later one
+CREATE TABLE user_change (
+                       id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                       seq BIGINT,
+                       user_id BIGINT NOT NULL,
+                       type VARCHAR(16) NOT NULL,
+                       user_version BIGINT,
+                       payload TEXT,
+                       occurred_at TIMESTAMP(3) NOT NULL,
+                       published_at TIMESTAMP(3) NULL,
+                       CONSTRAINT uk_user_change_seq UNIQUE (seq)
+);
+
+-- Last assigned seq. Its single row is locked by the relay, so only one instance publishes at a time
+CREATE TABLE user_change_relay (
+                       id INT PRIMARY KEY,
+                       last_seq BIGINT NOT NULL
+);
+
+INSERT INTO user_change_relay (id, last_seq) VALUES (1, 0);
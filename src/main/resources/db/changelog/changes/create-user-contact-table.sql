@@ -0,0 +1,10 @@
+-- Owners of emails (in lower case) and phone numbers across shards, only used on the main database while users
+-- are sharded. Claims left by writes that never committed are taken over by the application after a timeout
+CREATE TABLE user_contact (
+                       contact_type VARCHAR(16) NOT NULL,
+                       contact VARCHAR(255) NOT NULL,
+                       user_id BIGINT NOT NULL,
+                       claimed_at TIMESTAMP(3) NOT NULL,
+                       PRIMARY KEY (contact_type, contact),
+                       INDEX idx_user_contact_user_id (user_id)
+);
@@ -0,0 +1,7 @@
+-- Backing table for the pooled 'user_seq' generator (allocation size 50), as MySQL has no sequences.
+-- The pooled optimizer hands out [next_val - 49, next_val], so the first block starts above the existing ids.
+CREATE TABLE user_seq (
+                       next_val BIGINT NOT NULL
+);
+
+INSERT INTO user_seq (next_val) SELECT COALESCE(MAX(id), 0) + 51 FROM user;
@@ -0,0 +1,3 @@
+-- The unique key of emails was named after its column by MySQL, it is named like the phone number one so that
+-- violations are told apart from other errors mentioning the column
+ALTER TABLE user RENAME INDEX email TO uk_user_email;
@@ -0,0 +1,106 @@
+package org.vitaliistf.userapi.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.userapi.dto.UserDto;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserCacheTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(100, Duration.ofMinutes(1), false, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testLoadedUserIsCached() {
+        assertEquals(Optional.of(user(0L)), userCache.get(1L, id -> Optional.of(user(0L))));
+
+        assertEquals(Optional.of(user(0L)), userCache.getIfPresent(1L));
+    }
+
+    @Test
+    void testUserEvictedWhileLoadingIsNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        Future<Optional<UserDto>> load = executor.submit(() -> userCache.get(1L, id -> {
+            loading.countDown();
+            await(evicted);
+            return Optional.of(user(0L));
+        }));
+
+        await(loading);
+        userCache.evict(1L);
+        evicted.countDown();
+
+        assertEquals(Optional.of(user(0L)), load.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(userCache.getIfPresent(1L).isEmpty());
+        assertEquals(Optional.of(user(1L)), userCache.get(1L, id -> Optional.of(user(1L))));
+    }
+
+    @Test
+    void testUserReplacedWhileLoadingKeepsNewerVersion() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch replaced = new CountDownLatch(1);
+        Future<Optional<UserDto>> load = executor.submit(() -> userCache.get(1L, id -> {
+            loading.countDown();
+            await(replaced);
+            return Optional.of(user(0L));
+        }));
+
+        await(loading);
+        userCache.put(user(1L));
+        replaced.countDown();
+
+        assertEquals(Optional.of(user(1L)), load.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(Optional.of(user(1L)), userCache.getIfPresent(1L));
+    }
+
+    @Test
+    void testUsersEvictedTogetherWhileLoadingAreNotCached() {
+        userCache.get(1L, id -> {
+            userCache.evictAll(List.of(2L, 1L));
+            return Optional.of(user(0L));
+        });
+
+        assertTrue(userCache.getIfPresent(1L).isEmpty());
+    }
+
+    private static UserDto user(long version) {
+        return new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, version);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.vitaliistf.userapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.vitaliistf.userapi.sharding.ShardConnectionProvider;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardingConfigTest {
+
+    private final ShardingConfig shardingConfig = new ShardingConfig();
+    private final HikariDataSource dataSource = new HikariDataSource();
+
+    @AfterEach
+    void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testShardConnectionProvider_AddsShardsAfterTheMainDatabase() {
+        dataSource.setJdbcUrl("jdbc:h2:mem:main");
+
+        ShardConnectionProvider provider = shardingConfig.shardConnectionProvider(dataSource, new SimpleMeterRegistry(),
+                List.of("jdbc:h2:mem:shard-1", "jdbc:h2:mem:shard-2"));
+
+        assertEquals(3, provider.shardCount());
+        assertEquals("jdbc:h2:mem:shard-2", ((HikariDataSource) provider.dataSource(2)).getJdbcUrl());
+    }
+
+    @Test
+    void testShardConnectionProvider_NoShardUrls() {
+        assertThrows(IllegalStateException.class, () -> shardingConfig.shardConnectionProvider(dataSource,
+                new SimpleMeterRegistry(), List.of()));
+    }
+
+    @Test
+    void testShardConnectionProvider_BlankShardUrl() {
+        assertThrows(IllegalStateException.class, () -> shardingConfig.shardConnectionProvider(dataSource,
+                new SimpleMeterRegistry(), List.of("jdbc:h2:mem:shard-1", " ")));
+    }
+}
@@ -0,0 +1,188 @@
+package org.vitaliistf.userapi.controller;
+
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.vitaliistf.userapi.config.BinaryFormatConfig;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.dto.UserPostPutDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.EmailAlreadyExistsException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.service.ReactiveUserService;
+import org.vitaliistf.userapi.util.CursorCodec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ActiveProfiles("reactive")
+@WebFluxTest(ReactiveUserController.class)
+@Import(BinaryFormatConfig.class)
+public class ReactiveUserControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveUserService userService;
+
+    @MockBean
+    private UserMapper userMapper;
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Test
+    void getAllUsers_NextPage() {
+        User user = new User(7L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        UserDto userDto = new UserDto(7L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L);
+        when(userService.getAllUsers(5L, 1)).thenReturn(Mono.just(new SliceImpl<>(List.of(user), PageRequest.of(0, 1), true)));
+        when(userMapper.userToUserDto(user)).thenReturn(userDto);
+
+        webTestClient.get().uri("/api/users?after={after}&limit=1", CursorCodec.encode(5L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.content[0].id").isEqualTo(7)
+                .jsonPath("$.nextCursor").isEqualTo(CursorCodec.encode(7L));
+    }
+
+    @Test
+    void getAllUsers_Smile() throws Exception {
+        User user = new User(7L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        UserDto userDto = new UserDto(7L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L);
+        when(userService.getAllUsers(0L, null)).thenReturn(Mono.just(new SliceImpl<>(List.of(user))));
+        when(userMapper.userToUserDto(user)).thenReturn(userDto);
+
+        byte[] body = webTestClient.get().uri("/api/users")
+                .accept(MediaType.valueOf("application/x-jackson-smile"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-jackson-smile")
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        Map<?, ?> page = new SmileMapper().readValue(body, Map.class);
+        assertEquals("1990-01-01", ((Map<?, ?>) ((List<?>) page.get("content")).get(0)).get("birthDate"));
+    }
+
+    @Test
+    void exportUsers() {
+        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userService.exportUsers()).thenReturn(Flux.just(user));
+        when(userMapper.userToUserDto(user)).thenReturn(
+                new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L));
+
+        webTestClient.get().uri("/api/users/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(UserDto.class).hasSize(1);
+    }
+
+    @Test
+    void exportUsers_JsonArray() {
+        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userService.exportUsers()).thenReturn(Flux.just(user, user));
+        when(userMapper.userToUserDto(user)).thenReturn(
+                new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L));
+
+        webTestClient.get().uri("/api/users/export")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    void getUserById_NotFound() {
+        when(userService.getUserById(1L)).thenReturn(Mono.error(new ResourceNotFoundException("User not found with id 1")));
+
+        webTestClient.get().uri("/api/users/1")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("User not found with id 1");
+    }
+
+    @Test
+    void getUserById_NotModified() {
+        when(userService.getUserVersion(1L)).thenReturn(Mono.just(3L));
+
+        webTestClient.get().uri("/api/users/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+        verify(userService, never()).getUserById(any());
+    }
+
+    @Test
+    void createUser_BadRequest() {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("invalid-email", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+
+        webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userPostPutDto)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errorCode").isEqualTo(400)
+                .jsonPath("$.details.email").exists();
+        verify(userService, never()).createUser(any(User.class));
+    }
+
+    @Test
+    void createUser_Conflict() {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(new User());
+        when(userService.createUser(any(User.class)))
+                .thenReturn(Mono.error(new EmailAlreadyExistsException("Email test@example.com already exists")));
+
+        webTestClient.post().uri("/api/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(userPostPutDto)
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.details").isEqualTo("Email test@example.com already exists");
+    }
+
+    @Test
+    void deleteUser() {
+        when(userService.deleteUser(1L)).thenReturn(Mono.empty());
+
+        webTestClient.delete().uri("/api/users/1")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
@@ -1,33 +1,69 @@
 package org.vitaliistf.userapi.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
+import org.vitaliistf.userapi.config.BinaryFormatConfig;
+import org.vitaliistf.userapi.dto.UserChangeDto;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
 import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.dto.UserPatchDto;
 import org.vitaliistf.userapi.dto.UserPostPutDto;
 import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.EmailAlreadyExistsException;
+import org.vitaliistf.userapi.exception.InvalidSearchQueryException;
+import org.vitaliistf.userapi.exception.PreconditionFailedException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
 import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.service.UserBatchResult;
 import org.vitaliistf.userapi.service.UserService;
+import org.vitaliistf.userapi.util.CursorCodec;
 
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
+@Import(BinaryFormatConfig.class)
 public class UserControllerTest {
 
     @Autowired
@@ -42,32 +78,189 @@ public class UserControllerTest {
     @MockBean
     private UserMapper userMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
     @Test
     void getAllUsers() throws Exception {
-        List<User> users = List.of(
-                new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901")
+        List<UserDto> users = List.of(
+                new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L)
         );
-        when(userService.getAllUsers()).thenReturn(users);
-        when(userMapper.userToUserDto(any(User.class))).thenReturn(new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901"));
+        when(userService.getAllUsers(null, null)).thenReturn(new SliceImpl<>(users));
 
         mockMvc.perform(get("/api/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(1))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].email").value("test1@example.com"))
-                .andExpect(jsonPath("$[0].firstName").value("John"))
-                .andExpect(jsonPath("$[0].lastName").value("Doe"))
-                .andExpect(jsonPath("$[0].birthDate").value("1990-01-01"))
-                .andExpect(jsonPath("$[0].address").value("Address 1"))
-                .andExpect(jsonPath("$[0].phoneNumber").value("+12345678901"));
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].email").value("test1@example.com"))
+                .andExpect(jsonPath("$.content[0].firstName").value("John"))
+                .andExpect(jsonPath("$.content[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$.content[0].birthDate").value("1990-01-01"))
+                .andExpect(jsonPath("$.content[0].address").value("Address 1"))
+                .andExpect(jsonPath("$.content[0].phoneNumber").value("+12345678901"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void getAllUsers_Smile() throws Exception {
+        List<UserDto> users = List.of(
+                new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L)
+        );
+        when(userService.getAllUsers(null, null)).thenReturn(new SliceImpl<>(users));
+
+        byte[] body = mockMvc.perform(get("/api/users")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-jackson-smile"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<?, ?> page = new SmileMapper().readValue(body, Map.class);
+        assertEquals("1990-01-01", ((Map<?, ?>) ((List<?>) page.get("content")).get(0)).get("birthDate"));
+    }
+
+    @Test
+    void getAllUsers_Cbor() throws Exception {
+        List<UserDto> users = List.of(
+                new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L)
+        );
+        when(userService.getAllUsers(null, null)).thenReturn(new SliceImpl<>(users));
+
+        byte[] body = mockMvc.perform(get("/api/users")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<?, ?> page = new CBORMapper().readValue(body, Map.class);
+        assertEquals("test1@example.com", ((Map<?, ?>) ((List<?>) page.get("content")).get(0)).get("email"));
+    }
+
+    @Test
+    void getAllUsers_NextPage() throws Exception {
+        List<UserDto> users = List.of(
+                new UserDto(5L, "test5@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 5", "+12345678905", 0L)
+        );
+        when(userService.getAllUsers(4L, 1)).thenReturn(new SliceImpl<>(users, PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/users")
+                        .param("after", CursorCodec.encode(4L))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(5))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(5L)));
+    }
+
+    @Test
+    void getAllUsers_Fields() throws Exception {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("firstName", "John");
+        row.put("id", 5L);
+        when(userService.getAllUsers(null, 1, new LinkedHashSet<>(List.of("firstName"))))
+                .thenReturn(new SliceImpl<>(List.of(row), PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/users")
+                        .param("fields", "firstName")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].firstName").value("John"))
+                .andExpect(jsonPath("$.content[0].id").doesNotExist())
+                .andExpect(jsonPath("$.content[0].address").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(5L)));
+        verify(userService, never()).getAllUsers(any(), any());
+    }
+
+    @Test
+    void getAllUsers_UnknownField() throws Exception {
+        mockMvc.perform(get("/api/users")
+                        .param("fields", "firstName,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("password")));
+    }
+
+    @Test
+    void getUserById_Fields() throws Exception {
+        when(userService.getUserById(1L, new LinkedHashSet<>(List.of("id", "lastName"))))
+                .thenReturn(Map.of("id", 1L, "lastName", "Doe"));
+
+        mockMvc.perform(get("/api/users/1")
+                        .param("fields", "lastName, id"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.lastName").value("Doe"))
+                .andExpect(jsonPath("$.email").doesNotExist());
+    }
+
+    @Test
+    void getAllUsers_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/users")
+                        .param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportUsers() throws Exception {
+        User user1 = new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901");
+        User user2 = new User(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1992, 3, 15), "Address 2", "+98765432109");
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(user1);
+            consumer.accept(user2);
+            return null;
+        }).when(userService).exportUsers(any());
+        when(userMapper.userToUserDto(user1)).thenReturn(new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L));
+        when(userMapper.userToUserDto(user2)).thenReturn(new UserDto(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1992, 3, 15), "Address 2", "+98765432109", 0L));
+
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("test2@example.com", objectMapper.readTree(lines[1]).get("email").asText());
+    }
+
+    @Test
+    void exportUsers_JsonArray() throws Exception {
+        User user = new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901");
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(0);
+            consumer.accept(user);
+            consumer.accept(user);
+            return null;
+        }).when(userService).exportUsers(any());
+        when(userMapper.userToUserDto(user)).thenReturn(new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L));
+
+        MvcResult result = mockMvc.perform(get("/api/users/export")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].email").value("test1@example.com"));
     }
 
     @Test
     void getUserById() throws Exception {
-        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
-        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
-        when(userService.getUserById(1L)).thenReturn(user);
-        when(userMapper.userToUserDto(any(User.class))).thenReturn(userDto);
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 0L);
+        when(userService.getUserById(1L)).thenReturn(userDto);
 
         mockMvc.perform(get("/api/users/1"))
                 .andExpect(status().isOk())
@@ -77,14 +270,38 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.lastName").value("Doe"))
                 .andExpect(jsonPath("$.birthDate").value("1990-01-01"))
                 .andExpect(jsonPath("$.address").value("Address"))
-                .andExpect(jsonPath("$.phoneNumber").value("+12345678901"));
+                .andExpect(jsonPath("$.phoneNumber").value("+12345678901"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    @Test
+    void getUserById_NotModified() throws Exception {
+        when(userService.getUserVersion(1L)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(content().string(""));
+        verify(userService, never()).getUserById(any());
+    }
+
+    @Test
+    void getUserById_Modified() throws Exception {
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 4L);
+        when(userService.getUserVersion(1L)).thenReturn(4L);
+        when(userService.getUserById(1L)).thenReturn(userDto);
+
+        mockMvc.perform(get("/api/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""))
+                .andExpect(jsonPath("$.version").value(4));
     }
 
     @Test
     void createUser() throws Exception {
         UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
         User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
-        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 0L);
         when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(user);
         when(userService.createUser(any(User.class))).thenReturn(user);
         when(userMapper.userToUserDto(any(User.class))).thenReturn(userDto);
@@ -102,11 +319,38 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.phoneNumber").value("+12345678901"));
     }
 
+    @Test
+    void createUsers() throws Exception {
+        UserPostPutDto valid = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserPostPutDto invalid = new UserPostPutDto("invalid-email", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", null);
+        UserPostPutDto conflicting = new UserPostPutDto("taken@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), "Address", null);
+        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 0L);
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(user);
+        when(userService.createUsers(anyList())).thenReturn(List.of(
+                UserBatchResult.created(user),
+                UserBatchResult.failed(new EmailAlreadyExistsException("Email taken@example.com already exists"))));
+        when(userMapper.userToUserDto(user)).thenReturn(userDto);
+
+        mockMvc.perform(post("/api/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid, invalid, conflicting))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[0].user.id").value(1))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].details.email").value("Email is not valid."))
+                .andExpect(jsonPath("$[2].index").value(2))
+                .andExpect(jsonPath("$[2].status").value(409))
+                .andExpect(jsonPath("$[2].details").value("Email taken@example.com already exists"));
+    }
+
     @Test
     void updateUser() throws Exception {
         UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
         User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
-        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 0L);
         when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(user);
         when(userService.updateUser(eq(1L), any(User.class))).thenReturn(user);
         when(userMapper.userToUserDto(any(User.class))).thenReturn(userDto);
@@ -124,11 +368,57 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.phoneNumber").value("+12345678901"));
     }
 
+    @Test
+    void updateUser_IfMatch() throws Exception {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 3L);
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(user);
+        when(userService.updateUser(eq(1L), any(User.class))).thenReturn(user);
+        when(userMapper.userToUserDto(any(User.class))).thenReturn(userDto);
+
+        mockMvc.perform(put("/api/users/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPostPutDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        assertEquals(2L, user.getVersion());
+    }
+
+    @Test
+    void updateUser_PreconditionFailed() throws Exception {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(new User());
+        when(userService.updateUser(eq(1L), any(User.class)))
+                .thenThrow(new PreconditionFailedException("User with id 1 was modified, the current version is 3"));
+
+        mockMvc.perform(put("/api/users/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPostPutDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("User with id 1 was modified, the current version is 3"));
+    }
+
+    @Test
+    void partialUpdateUser_OptimisticLockingFailure() throws Exception {
+        UserPatchDto userPatchDto = new UserPatchDto("test@example.com", null, null, null, null, null);
+        when(userMapper.userPatchDtoToUser(any(UserPatchDto.class))).thenReturn(new User());
+        when(userService.partialUpdateUser(eq(1L), any(User.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(User.class, 1L));
+
+        mockMvc.perform(patch("/api/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPatchDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void partialUpdateUser() throws Exception {
         UserPatchDto userPatchDto = new UserPatchDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
         User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
-        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        UserDto userDto = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901", 0L);
         when(userMapper.userPatchDtoToUser(any(UserPatchDto.class))).thenReturn(user);
         when(userService.partialUpdateUser(eq(1L), any(User.class))).thenReturn(user);
         when(userMapper.userToUserDto(any(User.class))).thenReturn(userDto);
@@ -146,6 +436,24 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.phoneNumber").value("+12345678901"));
     }
 
+    @Test
+    void partialUpdateUser_ReturnMinimal() throws Exception {
+        UserPatchDto userPatchDto = new UserPatchDto("test@example.com", null, null, null, null, null);
+        User user = new User();
+        when(userMapper.userPatchDtoToUser(any(UserPatchDto.class))).thenReturn(user);
+
+        mockMvc.perform(patch("/api/users/1")
+                        .header("Prefer", "return=minimal")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPatchDto)))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string("Preference-Applied", "return=minimal"));
+        verify(userService).patchUser(1L, user);
+        verify(userService, never()).partialUpdateUser(any(), any());
+    }
+
     @Test
     void deleteUser() throws Exception {
         mockMvc.perform(delete("/api/users/1"))
@@ -154,41 +462,93 @@ public class UserControllerTest {
         verify(userService).deleteUser(1L);
     }
 
+    @Test
+    void deleteUsers() throws Exception {
+        when(userService.deleteUsers(List.of(1L, 2L, 3L))).thenReturn(2);
+
+        mockMvc.perform(delete("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1, 2, 3]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2));
+    }
+
     @Test
     void getUsersByBirthDateRange() throws Exception {
         LocalDate startDate = LocalDate.of(1990, 1, 1);
         LocalDate endDate = LocalDate.of(1995, 12, 31);
-        List<User> users = Arrays.asList(
-                new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901"),
-                new User(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1992, 3, 15), "Address 2", "+98765432109")
-        );
         List<UserDto> userDtos = Arrays.asList(
-                new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901"),
-                new UserDto(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1992, 3, 15), "Address 2", "+98765432109")
+                new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address 1", "+12345678901", 0L),
+                new UserDto(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1992, 3, 15), "Address 2", "+98765432109", 0L)
         );
-        when(userService.getUsersByBirthDateRange(startDate, endDate)).thenReturn(users);
-        when(userMapper.userToUserDto(users.get(0))).thenReturn(userDtos.get(0));
-        when(userMapper.userToUserDto(users.get(1))).thenReturn(userDtos.get(1));
+        when(userService.getUsersByBirthDateRange(startDate, endDate, null, null, null))
+                .thenReturn(new SliceImpl<>(userDtos, PageRequest.of(0, 2), true));
 
         mockMvc.perform(get("/api/users/search")
                         .param("startDate", startDate.toString())
                         .param("endDate", endDate.toString()))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.length()").value(2))
-                .andExpect(jsonPath("$[0].id").value(1))
-                .andExpect(jsonPath("$[0].email").value("test1@example.com"))
-                .andExpect(jsonPath("$[0].firstName").value("John"))
-                .andExpect(jsonPath("$[0].lastName").value("Doe"))
-                .andExpect(jsonPath("$[0].birthDate").value("1990-01-01"))
-                .andExpect(jsonPath("$[0].address").value("Address 1"))
-                .andExpect(jsonPath("$[0].phoneNumber").value("+12345678901"))
-                .andExpect(jsonPath("$[1].id").value(2))
-                .andExpect(jsonPath("$[1].email").value("test2@example.com"))
-                .andExpect(jsonPath("$[1].firstName").value("Jane"))
-                .andExpect(jsonPath("$[1].lastName").value("Doe"))
-                .andExpect(jsonPath("$[1].birthDate").value("1992-03-15"))
-                .andExpect(jsonPath("$[1].address").value("Address 2"))
-                .andExpect(jsonPath("$[1].phoneNumber").value("+98765432109"));
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].email").value("test1@example.com"))
+                .andExpect(jsonPath("$.content[0].firstName").value("John"))
+                .andExpect(jsonPath("$.content[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$.content[0].birthDate").value("1990-01-01"))
+                .andExpect(jsonPath("$.content[0].address").value("Address 1"))
+                .andExpect(jsonPath("$.content[0].phoneNumber").value("+12345678901"))
+                .andExpect(jsonPath("$.content[1].id").value(2))
+                .andExpect(jsonPath("$.content[1].email").value("test2@example.com"))
+                .andExpect(jsonPath("$.content[1].firstName").value("Jane"))
+                .andExpect(jsonPath("$.content[1].lastName").value("Doe"))
+                .andExpect(jsonPath("$.content[1].birthDate").value("1992-03-15"))
+                .andExpect(jsonPath("$.content[1].address").value("Address 2"))
+                .andExpect(jsonPath("$.content[1].phoneNumber").value("+98765432109"))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(LocalDate.of(1992, 3, 15), 2L)));
+    }
+
+    @Test
+    void getUsersByBirthDateRange_NextPage() throws Exception {
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        LocalDate endDate = LocalDate.of(1995, 12, 31);
+        when(userService.getUsersByBirthDateRange(startDate, endDate, LocalDate.of(1992, 3, 15), 2L, 10))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        mockMvc.perform(get("/api/users/search")
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("after", CursorCodec.encode(LocalDate.of(1992, 3, 15), 2L))
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void searchUsers() throws Exception {
+        List<UserDto> users = List.of(
+                new UserDto(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L)
+        );
+        when(userService.searchUsers("john", 10, 1)).thenReturn(new SliceImpl<>(users, PageRequest.of(0, 1), true));
+
+        mockMvc.perform(get("/api/users/search")
+                        .param("q", "john")
+                        .param("after", CursorCodec.encode(10))
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(7))
+                .andExpect(jsonPath("$.nextCursor").value(CursorCodec.encode(11)));
+        verify(userService, never()).getUsersByBirthDateRange(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void searchUsers_InvalidQuery() throws Exception {
+        when(userService.searchUsers("a", 0, null))
+                .thenThrow(new InvalidSearchQueryException("Search query must contain a term of at least 2 characters"));
+
+        mockMvc.perform(get("/api/users/search")
+                        .param("q", "a"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search query must contain a term of at least 2 characters"));
     }
 
     @Test
@@ -199,6 +559,21 @@ public class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getUserById_NotFound_CountsError() throws Exception {
+        when(userService.getUserById(2L)).thenThrow(new ResourceNotFoundException("User with id 2 not found"));
+
+        mockMvc.perform(get("/api/users/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("User with id 2 not found"));
+
+        assertEquals(1.0, meterRegistry.get("users.api.errors")
+                .tag("status", "404")
+                .tag("exception", "ResourceNotFoundException")
+                .counter()
+                .count());
+    }
+
     @Test
     void createUser_BadRequest() throws Exception {
         UserPostPutDto userPostPutDto = new UserPostPutDto("invalid-email", "", "", null, "", "");
@@ -222,6 +597,63 @@ public class UserControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    void createUser_PhoneNumberConstraintViolation() throws Exception {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(new User());
+        when(userService.createUser(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement",
+                new SQLIntegrityConstraintViolationException("Duplicate entry '+12345678901' for key 'user.uk_user_phone_number'")));
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPostPutDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value(409))
+                .andExpect(jsonPath("$.details").value("Phone number already exists"));
+    }
+
+    @Test
+    void createUser_EmailConstraintViolation() throws Exception {
+        assertIntegrityViolationDetails("Duplicate entry 'test@example.com' for key 'uk_user_email'",
+                "Email already exists");
+    }
+
+    @Test
+    void createUser_ContactClaimViolation() throws Exception {
+        assertIntegrityViolationDetails(
+                "Duplicate entry 'PHONE_NUMBER-+12345678901' for key 'user_contact.PRIMARY'",
+                "Phone number already exists");
+        assertIntegrityViolationDetails("Duplicate entry 'EMAIL-test@example.com' for key 'user_contact.PRIMARY'",
+                "Email already exists");
+    }
+
+    @Test
+    void createUser_OtherIntegrityViolationsAreNotUniquenessConflicts() throws Exception {
+        assertIntegrityViolationDetails("Column 'email' cannot be null", "Data integrity violation");
+        assertIntegrityViolationDetails("Data truncation: Data too long for column 'phone_number' at row 1",
+                "Data integrity violation");
+        assertIntegrityViolationDetails("Cannot add or update a child row: a foreign key constraint fails "
+                + "(CONSTRAINT `fk_email_phone_number` FOREIGN KEY (`email`) REFERENCES `user` (`email`))",
+                "Data integrity violation");
+        assertIntegrityViolationDetails("Duplicate entry '1' for key 'user_change.uk_user_change_seq'",
+                "Data integrity violation");
+    }
+
+    private void assertIntegrityViolationDetails(String databaseMessage, String details) throws Exception {
+        UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
+        when(userMapper.userPostPutDtoToUser(any(UserPostPutDto.class))).thenReturn(new User());
+        when(userService.createUser(any(User.class))).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new SQLIntegrityConstraintViolationException(databaseMessage)));
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userPostPutDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errorCode").value(409))
+                .andExpect(jsonPath("$.details").value(details));
+    }
+
     @Test
     void updateUser_NotFound() throws Exception {
         UserPostPutDto userPostPutDto = new UserPostPutDto("test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "Address", "+12345678901");
@@ -261,4 +693,87 @@ public class UserControllerTest {
                         .param("endDate", "invalid"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void suggestUsers() throws Exception {
+        List<UserDto> users = List.of(
+                new UserDto(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L)
+        );
+        when(userService.suggestUsers("jon", 5)).thenReturn(users);
+
+        mockMvc.perform(get("/api/users/suggest")
+                        .param("q", "jon")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7));
+        verify(userService, never()).getUserById(any());
+    }
+
+    @Test
+    void getChanges() throws Exception {
+        UserDto user = new UserDto(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 1L);
+        UserChangesDto changes = new UserChangesDto(List.of(
+                new UserChangeDto(11L, 7L, "UPDATED", 1L, user, Instant.parse("2024-01-01T00:00:00Z")),
+                new UserChangeDto(12L, 8L, "DELETED", null, null, Instant.parse("2024-01-01T00:00:01Z"))
+        ), 12L);
+        when(userService.getChanges(10L, 2)).thenReturn(changes);
+
+        mockMvc.perform(get("/api/users/changes")
+                        .param("sinceSeq", "10")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].user.id").value(7))
+                .andExpect(jsonPath("$.changes[1].type").value("DELETED"))
+                .andExpect(jsonPath("$.lastSeq").value(12));
+    }
+
+    @Test
+    void getChanges_NotEnabled() throws Exception {
+        when(userService.getChanges(0L, null)).thenThrow(new ResourceNotFoundException("Change stream is not enabled"));
+
+        mockMvc.perform(get("/api/users/changes"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getChangedSince() throws Exception {
+        Instant since = Instant.parse("2024-01-01T00:00:00Z");
+        Instant changedAt = Instant.parse("2024-01-01T00:00:01.500Z");
+        UserDto user = new UserDto(7L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 1L);
+        when(userService.getChangedSince(since, null, null, 2)).thenReturn(new SliceImpl<>(List.of(
+                new UserDeltaDto(7L, changedAt, false, user),
+                new UserDeltaDto(8L, changedAt, true, null)
+        ), PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/api/users/changed-since")
+                        .param("ts", "2024-01-01T00:00:00Z")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[0].user.id").value(7))
+                .andExpect(jsonPath("$.changes[1].deleted").value(true))
+                .andExpect(jsonPath("$.cursor").value(CursorCodec.encode(changedAt, 8L)))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    void getChangedSince_FromCursor_NoChanges() throws Exception {
+        Instant afterChangedAt = Instant.parse("2024-01-01T00:00:01Z");
+        String cursor = CursorCodec.encode(afterChangedAt, 8L);
+        when(userService.getChangedSince(null, afterChangedAt, 8L, null))
+                .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 50), false));
+
+        mockMvc.perform(get("/api/users/changed-since")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes").isEmpty())
+                .andExpect(jsonPath("$.cursor").value(cursor))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getChangedSince_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/users/changed-since")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,117 @@
+package org.vitaliistf.userapi.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.vitaliistf.userapi.dto.ImportErrorDto;
+import org.vitaliistf.userapi.dto.ImportJobDto;
+import org.vitaliistf.userapi.entity.ImportJob;
+import org.vitaliistf.userapi.exception.ImportJobStateException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
+import org.vitaliistf.userapi.service.UserImportService;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(UserImportController.class)
+public class UserImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private UserImportService userImportService;
+
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    private static ImportJobDto job(String format, String status, List<ImportErrorDto> errors) {
+        return new ImportJobDto(1L, format, status, 0, 0, errors.size(), 0, null, Instant.now(), null, null, errors);
+    }
+
+    @Test
+    void startImport_Csv() throws Exception {
+        when(userImportService.startImport(eq(ImportJob.Format.CSV), any())).thenReturn(job("CSV", "QUEUED", List.of()));
+
+        mockMvc.perform(post("/api/users/imports")
+                        .contentType("text/csv")
+                        .content("email,firstName,lastName,birthDate\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/users/imports/1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void startImport_Ndjson() throws Exception {
+        when(userImportService.startImport(eq(ImportJob.Format.NDJSON), any()))
+                .thenReturn(job("NDJSON", "QUEUED", List.of()));
+
+        mockMvc.perform(post("/api/users/imports")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"email\":\"test@example.com\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.format").value("NDJSON"));
+    }
+
+    @Test
+    void startImport_UnsupportedFormat() throws Exception {
+        mockMvc.perform(post("/api/users/imports")
+                        .contentType(MediaType.APPLICATION_XML)
+                        .content("<users/>"))
+                .andExpect(status().isUnsupportedMediaType());
+        verifyNoInteractions(userImportService);
+    }
+
+    @Test
+    void getImport() throws Exception {
+        when(userImportService.getImport(1L))
+                .thenReturn(job("CSV", "RUNNING", List.of(new ImportErrorDto(3, "Email is not valid."))));
+
+        mockMvc.perform(get("/api/users/imports/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsFailed").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(3))
+                .andExpect(jsonPath("$.errors[0].message").value("Email is not valid."));
+    }
+
+    @Test
+    void getImport_NotFound() throws Exception {
+        when(userImportService.getImport(1L)).thenThrow(new ResourceNotFoundException("Import not found with id 1"));
+
+        mockMvc.perform(get("/api/users/imports/1"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void resumeImport_NotFailed() throws Exception {
+        when(userImportService.resumeImport(1L))
+                .thenThrow(new ImportJobStateException("Import 1 is COMPLETED, only failed imports can be resumed"));
+
+        mockMvc.perform(post("/api/users/imports/1/resume"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Import 1 is COMPLETED, only failed imports can be resumed"));
+    }
+}
@@ -0,0 +1,74 @@
+package org.vitaliistf.userapi.routing;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void testWriteSetsCookieAndReadsPrimary() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(readsPrimary(new MockHttpServletRequest("POST", "/api/users"), response));
+        String cookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertTrue(cookie.startsWith(ReadYourWritesFilter.COOKIE_NAME + "="));
+        assertTrue(cookie.contains("Max-Age=5"));
+        assertFalse(ReplicaRouting.isPrimaryRequired());
+    }
+
+    @Test
+    void testReadWithinWindowReadsPrimary() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(System.currentTimeMillis() + 3000)));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(readsPrimary(request, response));
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    void testReadAfterWindowReadsReplicas() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1)));
+
+        assertFalse(readsPrimary(request, new MockHttpServletResponse()));
+    }
+
+    @Test
+    void testReadWithForgedCookieReadsReplicas() throws Exception {
+        MockHttpServletRequest farFuture = new MockHttpServletRequest("GET", "/api/users/1");
+        farFuture.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(Long.MAX_VALUE)));
+        MockHttpServletRequest malformed = new MockHttpServletRequest("GET", "/api/users/1");
+        malformed.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "soon"));
+
+        assertFalse(readsPrimary(farFuture, new MockHttpServletResponse()));
+        assertFalse(readsPrimary(malformed, new MockHttpServletResponse()));
+    }
+
+    @Test
+    void testReadWithoutCookieReadsReplicas() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(readsPrimary(new MockHttpServletRequest("GET", "/api/users"), response));
+        assertEquals(0, response.getHeaders(HttpHeaders.SET_COOKIE).size());
+    }
+
+    private boolean readsPrimary(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        AtomicBoolean primaryRequired = new AtomicBoolean();
+        filter.doFilter(request, response, (req, res) -> primaryRequired.set(ReplicaRouting.isPrimaryRequired()));
+        return primaryRequired.get();
+    }
+}
@@ -0,0 +1,130 @@
+package org.vitaliistf.userapi.routing;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", database("replica1"));
+        replicas.put("replica-2", database("replica2"));
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"), replicas, Duration.ofHours(1));
+        useRoutingDataSource();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        routingDataSource.destroy();
+    }
+
+    @Test
+    void testReadOnlyTransactionsReadReplicasInTurn() {
+        assertEquals("replica1", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("replica2", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("replica1", readOnlyTransaction.execute(status -> databaseName()));
+    }
+
+    @Test
+    void testWritesAndNonTransactionalReadsGoToPrimary() {
+        assertEquals("primary", readWriteTransaction.execute(status -> databaseName()));
+        assertEquals("primary", databaseName());
+    }
+
+    @Test
+    void testRequiredPrimaryIsRead() {
+        assertEquals("primary", ReplicaRouting.onPrimary(() -> readOnlyTransaction.execute(status -> databaseName())));
+        assertEquals("replica1", readOnlyTransaction.execute(status -> databaseName()));
+    }
+
+    @Test
+    void testUnavailableReplicaIsSkipped() throws Exception {
+        routingDataSource.destroy();
+        DataSource unavailable = mock(DataSource.class);
+        when(unavailable.getConnection()).thenThrow(new SQLException("Connection refused"));
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", unavailable);
+        replicas.put("replica-2", database("replica2"));
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"), replicas, Duration.ofHours(1));
+        useRoutingDataSource();
+
+        assertEquals("replica2", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("replica2", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("replica2", readOnlyTransaction.execute(status -> databaseName()));
+        verify(unavailable, times(1)).getConnection();
+    }
+
+    @Test
+    void testPrimaryIsReadWhenNoReplicaIsAvailable() throws Exception {
+        routingDataSource.destroy();
+        DataSource unavailable = mock(DataSource.class);
+        when(unavailable.getConnection()).thenThrow(new SQLException("Connection refused"));
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", unavailable),
+                Duration.ofHours(1));
+        useRoutingDataSource();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+    }
+
+    @Test
+    void testReplicaIsReadAgainOnceValidated() throws Exception {
+        routingDataSource.destroy();
+        DataSource flaky = mock(DataSource.class);
+        DataSource replica = database("replica1");
+        when(flaky.getConnection())
+                .thenThrow(new SQLException("Connection refused"))
+                .thenAnswer(invocation -> replica.getConnection());
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"), Map.of("replica-1", flaky),
+                Duration.ofMillis(50));
+        useRoutingDataSource();
+
+        assertEquals("primary", readOnlyTransaction.execute(status -> databaseName()));
+        routingDataSource.afterPropertiesSet();
+        verify(flaky, timeout(5000).atLeast(2)).getConnection();
+        Thread.sleep(100);
+        assertEquals("replica1", readOnlyTransaction.execute(status -> databaseName()));
+    }
+
+    private void useRoutingDataSource() {
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        new JdbcTemplate(dataSource).execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(16)); "
+                + "DELETE FROM node; INSERT INTO node VALUES ('" + name + "')");
+        return dataSource;
+    }
+}
@@ -0,0 +1,226 @@
+package org.vitaliistf.userapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityOperations;
+import org.springframework.data.relational.core.query.Query;
+import org.springframework.data.relational.core.query.Update;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.*;
+import org.vitaliistf.userapi.mapper.UserMapperImpl;
+import org.vitaliistf.userapi.repository.ReactiveUserIdGenerator;
+import org.vitaliistf.userapi.repository.ReactiveUserRepository;
+import org.vitaliistf.userapi.repository.UserContactView;
+import org.vitaliistf.userapi.service.impl.ReactiveUserServiceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserServiceImplTest {
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Mock
+    private R2dbcEntityOperations entityOperations;
+
+    @Mock
+    private ReactiveUserIdGenerator idGenerator;
+
+    private ReactiveUserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new ReactiveUserServiceImpl(userRepository, entityOperations, idGenerator, new UserMapperImpl(),
+                18, 2, 1000, 2, 100000, true);
+    }
+
+    @Test
+    void testGetAllUsers_HasNext() {
+        User user1 = new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User user2 = new User(2L, "test2@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User user3 = new User(3L, "test3@example.com", "Jack", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(Flux.just(user1, user2, user3));
+
+        StepVerifier.create(userService.getAllUsers(null, null))
+                .assertNext(slice -> {
+                    assertEquals(List.of(user1, user2), slice.getContent());
+                    assertEquals(true, slice.hasNext());
+                })
+                .verifyComplete();
+        verify(userRepository).findByIdGreaterThan(0L, PageRequest.of(0, 3, Sort.by("id")));
+    }
+
+    @Test
+    void testGetUserById_NotFound() {
+        when(userRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.getUserById(1L))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void testUpdateUser_IncrementsVersion() {
+        User existingUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        existingUser.setVersion(3L);
+        User updatedUser = new User(null, "updated@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findById(1L)).thenReturn(Mono.just(existingUser));
+        when(userRepository.findContactConflicts("updated@example.com", null, 1L)).thenReturn(Flux.empty());
+        when(entityOperations.update(any(Query.class), any(Update.class), eq(User.class))).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(userService.updateUser(1L, updatedUser))
+                .assertNext(user -> {
+                    assertEquals("updated@example.com", user.getEmail());
+                    assertEquals(4L, user.getVersion());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateUser_ConcurrentModification() {
+        User existingUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        existingUser.setVersion(3L);
+        User updatedUser = new User(null, "updated@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findById(1L)).thenReturn(Mono.just(existingUser));
+        when(userRepository.findContactConflicts("updated@example.com", null, 1L)).thenReturn(Flux.empty());
+        when(entityOperations.update(any(Query.class), any(Update.class), eq(User.class))).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(userService.updateUser(1L, updatedUser))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+    }
+
+    @Test
+    void testCreateUser_AssignsGeneratedId() {
+        User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, "+12345678901");
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(Flux.empty());
+        when(idGenerator.nextId()).thenReturn(Mono.just(51L));
+        when(entityOperations.insert(user)).thenReturn(Mono.just(user));
+
+        StepVerifier.create(userService.createUser(user))
+                .assertNext(created -> assertEquals(51L, created.getId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testCreateUser_InvalidAge() {
+        User user = new User(null, "test@example.com", "John", "Doe", LocalDate.now().plusYears(1), null, null);
+
+        StepVerifier.create(userService.createUser(user))
+                .expectError(InvalidAgeException.class)
+                .verify();
+        verify(entityOperations, never()).insert(any(User.class));
+    }
+
+    @Test
+    void testCreateUser_PhoneNumberAlreadyExists() {
+        User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, "+12345678901");
+        when(userRepository.findContactConflicts(any(), any(), any()))
+                .thenReturn(Flux.just(contact("other@example.com", "+12345678901")));
+
+        StepVerifier.create(userService.createUser(user))
+                .expectError(PhoneNumberAlreadyExistsException.class)
+                .verify();
+        verify(idGenerator, never()).nextId();
+    }
+
+    @Test
+    void testCreateUsers() {
+        User valid = new User(null, "new@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User existingEmail = new User(null, "Taken@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(Flux.just("taken@example.com"));
+        when(idGenerator.nextId()).thenReturn(Mono.just(1L));
+        when(entityOperations.insert(valid)).thenReturn(Mono.just(valid));
+
+        StepVerifier.create(userService.createUsers(List.of(valid, existingEmail)))
+                .assertNext(results -> {
+                    assertEquals(valid, results.get(0).user());
+                    assertInstanceOf(EmailAlreadyExistsException.class, results.get(1).error());
+                })
+                .verifyComplete();
+        verify(userRepository).findExistingEmails(Set.of("new@example.com", "Taken@example.com"));
+        verify(userRepository, never()).findExistingPhoneNumbers(anyCollection());
+    }
+
+    @Test
+    void testGetUsersByBirthDateRange_InvalidDateRange() {
+        StepVerifier.create(userService.getUsersByBirthDateRange(LocalDate.of(2000, 1, 1), LocalDate.of(1990, 1, 1),
+                        null, null, null))
+                .expectError(InvalidDateRangeException.class)
+                .verify();
+    }
+
+    private static UserContactView contact(String email, String phoneNumber) {
+        return new UserContactView() {
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return phoneNumber;
+            }
+        };
+    }
+
+    @Test
+    void testDeleteUser_NotFound() {
+        when(userRepository.insertTombstones(eq(List.of(1L)), any(Instant.class))).thenReturn(Mono.just(0));
+        when(userRepository.deleteUserById(1L)).thenReturn(Mono.just(0));
+
+        StepVerifier.create(userService.deleteUser(1L))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void testDeleteUsers() {
+        when(userRepository.insertTombstones(eq(List.of(1L, 2L)), any(Instant.class))).thenReturn(Mono.just(1));
+        when(userRepository.deleteUsersByIdIn(List.of(1L, 2L))).thenReturn(Mono.just(1));
+
+        StepVerifier.create(userService.deleteUsers(List.of(1L, 2L, 1L)))
+                .expectNext(1)
+                .verifyComplete();
+        verify(userRepository).insertTombstones(eq(List.of(1L, 2L)), any(Instant.class));
+    }
+
+    @Test
+    void testCreateUser_SetsTimestamps() {
+        User user = new User(null, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(Flux.empty());
+        when(idGenerator.nextId()).thenReturn(Mono.just(1L));
+        when(entityOperations.insert(any(User.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        StepVerifier.create(userService.createUser(user))
+                .assertNext(createdUser -> {
+                    assertNotNull(createdUser.getCreatedAt());
+                    assertEquals(createdUser.getCreatedAt(), createdUser.getUpdatedAt());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,304 @@
+package org.vitaliistf.userapi.service;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.vitaliistf.userapi.dto.UserDto;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.EmailAlreadyExistsException;
+import org.vitaliistf.userapi.exception.PhoneNumberAlreadyExistsException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
+import org.vitaliistf.userapi.service.impl.ShardedUserServiceImpl;
+import org.vitaliistf.userapi.sharding.UserShards;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("sharding")
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ShardedUserServiceImplTest.SHARD_URL_0,
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "app.datasource.shard-urls=" + ShardedUserServiceImplTest.SHARD_URL_1 + "," + ShardedUserServiceImplTest.SHARD_URL_2,
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.liquibase.enabled=false"
+})
+class ShardedUserServiceImplTest {
+
+    static final String SHARD_URL_0 = "jdbc:h2:mem:shard0;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    static final String SHARD_URL_1 = "jdbc:h2:mem:shard1;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    static final String SHARD_URL_2 = "jdbc:h2:mem:shard2;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1";
+    private static final List<String> SHARD_URLS = List.of(SHARD_URL_0, SHARD_URL_1, SHARD_URL_2);
+    private static final LocalDate ADULT_BIRTH_DATE = LocalDate.of(1990, 1, 1);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserShards shards;
+
+    @BeforeAll
+    static void createSchema() {
+        for (int shard = 0; shard < SHARD_URLS.size(); shard++) {
+            JdbcTemplate database = database(shard);
+            database.execute("CREATE TABLE IF NOT EXISTS user (id BIGINT PRIMARY KEY, "
+                    + "email VARCHAR(255) NOT NULL UNIQUE, first_name VARCHAR(255) NOT NULL, "
+                    + "last_name VARCHAR(255) NOT NULL, birth_date DATE NOT NULL, address VARCHAR(255), "
+                    + "phone_number VARCHAR(255) UNIQUE, version BIGINT NOT NULL DEFAULT 0, "
+                    + "created_at TIMESTAMP(3) NOT NULL, updated_at TIMESTAMP(3) NOT NULL)");
+            database.execute("CREATE TABLE IF NOT EXISTS user_tombstone (user_id BIGINT PRIMARY KEY, "
+                    + "deleted_at TIMESTAMP(3) NOT NULL)");
+            database.execute("CREATE TABLE IF NOT EXISTS user_contact (contact_type VARCHAR(16) NOT NULL, "
+                    + "contact VARCHAR(255) NOT NULL, user_id BIGINT NOT NULL, claimed_at TIMESTAMP(3) NOT NULL, "
+                    + "PRIMARY KEY (contact_type, contact))");
+            database.execute("CREATE TABLE IF NOT EXISTS import_job (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "format VARCHAR(16) NOT NULL, status VARCHAR(16) NOT NULL, "
+                    + "rows_processed BIGINT NOT NULL DEFAULT 0, rows_imported BIGINT NOT NULL DEFAULT 0, "
+                    + "rows_failed BIGINT NOT NULL DEFAULT 0, resumed_from_row BIGINT NOT NULL DEFAULT 0, "
+                    + "error_message VARCHAR(1024), created_at TIMESTAMP(3) NOT NULL, started_at TIMESTAMP(3), "
+                    + "finished_at TIMESTAMP(3))");
+            // As moved by ShardMigrations
+            long start = shard == 0 ? 1 : UserShards.firstId(shard) + 50;
+            database.execute("CREATE SEQUENCE IF NOT EXISTS user_seq START WITH " + start + " INCREMENT BY 50");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (int shard = 0; shard < SHARD_URLS.size(); shard++) {
+            database(shard).execute("DELETE FROM user");
+            database(shard).execute("DELETE FROM user_tombstone");
+            database(shard).execute("DELETE FROM user_contact");
+        }
+    }
+
+    @Test
+    void testServiceIsSharded() {
+        assertInstanceOf(ShardedUserServiceImpl.class, userService);
+        assertEquals(3, shards.shardCount());
+    }
+
+    @Test
+    void testCreateUserPlacesUserOnShardOfEmail() {
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            String email = "user" + i + "@example.com";
+            User user = userService.createUser(user(email, null));
+
+            int shard = shards.shardFor(email);
+            usedShards.add(shard);
+            assertEquals(shard, shards.shardOf(user.getId()).orElseThrow());
+            assertEquals(1, database(shard).queryForObject("SELECT COUNT(*) FROM user WHERE id = ?",
+                    Integer.class, user.getId()));
+            assertEquals(email, userService.getUserById(user.getId()).email());
+        }
+        assertEquals(3, usedShards.size());
+    }
+
+    @Test
+    void testGetAllUsersPagesAcrossShardsInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(userService.createUser(user("page" + i + "@example.com", null)).getId());
+        }
+        ids.sort(null);
+
+        List<Long> pagedIds = new ArrayList<>();
+        Long afterId = null;
+        Slice<UserDto> page;
+        do {
+            page = userService.getAllUsers(afterId, 5);
+            page.getContent().forEach(user -> pagedIds.add(user.id()));
+            afterId = pagedIds.get(pagedIds.size() - 1);
+        } while (page.hasNext());
+
+        assertEquals(ids, pagedIds);
+    }
+
+    @Test
+    void testGetUsersByBirthDateRangeMergesShards() {
+        for (int i = 0; i < 9; i++) {
+            userService.createUser(user("born" + i + "@example.com", null, ADULT_BIRTH_DATE.minusDays(i % 3)));
+        }
+
+        List<UserDto> users = new ArrayList<>();
+        LocalDate afterBirthDate = null;
+        Long afterId = null;
+        Slice<UserDto> page;
+        do {
+            page = userService.getUsersByBirthDateRange(ADULT_BIRTH_DATE.minusDays(2), ADULT_BIRTH_DATE,
+                    afterBirthDate, afterId, 4);
+            users.addAll(page.getContent());
+            afterBirthDate = users.get(users.size() - 1).birthDate();
+            afterId = users.get(users.size() - 1).id();
+        } while (page.hasNext());
+
+        assertEquals(9, users.size());
+        for (int i = 1; i < users.size(); i++) {
+            UserDto previous = users.get(i - 1);
+            UserDto current = users.get(i);
+            assertTrue(previous.birthDate().isBefore(current.birthDate())
+                    || previous.birthDate().equals(current.birthDate()) && previous.id() < current.id());
+        }
+    }
+
+    @Test
+    void testUniquenessHoldsAcrossShards() {
+        String firstEmail = emailOnShard(0, "first");
+        String secondEmail = emailOnShard(1, "second");
+        userService.createUser(user(firstEmail, "+380501234567"));
+
+        assertThrows(PhoneNumberAlreadyExistsException.class,
+                () -> userService.createUser(user(secondEmail, "+380501234567")));
+        assertThrows(EmailAlreadyExistsException.class,
+                () -> userService.createUser(user(firstEmail.toUpperCase(), null)));
+        assertEquals(0, database(1).queryForObject("SELECT COUNT(*) FROM user", Integer.class));
+        assertEquals(2, database(0).queryForObject("SELECT COUNT(*) FROM user_contact", Integer.class));
+    }
+
+    @Test
+    void testUpdateUserMovesClaims() {
+        User user = userService.createUser(user(emailOnShard(0, "moving"), "+380501111111"));
+        String otherEmail = emailOnShard(2, "other");
+
+        User update = user("renamed@example.com", "+380502222222");
+        userService.updateUser(user.getId(), update);
+
+        userService.createUser(user(otherEmail, "+380501111111"));
+        assertThrows(PhoneNumberAlreadyExistsException.class,
+                () -> userService.createUser(user(emailOnShard(1, "late"), "+380502222222")));
+        assertEquals("renamed@example.com", userService.getUserById(user.getId()).email());
+    }
+
+    @Test
+    void testPatchUserClaimsNewEmail() {
+        User first = userService.createUser(user(emailOnShard(0, "patched"), null));
+        User second = userService.createUser(user(emailOnShard(1, "taken"), null));
+
+        User patch = new User();
+        patch.setEmail(second.getEmail());
+        assertThrows(EmailAlreadyExistsException.class, () -> userService.patchUser(first.getId(), patch));
+
+        patch.setEmail("patched-new@example.com");
+        userService.patchUser(first.getId(), patch);
+        userService.createUser(user(first.getEmail(), null));
+        assertEquals("patched-new@example.com", userService.getUserById(first.getId()).email());
+    }
+
+    @Test
+    void testDeleteUserReleasesClaims() {
+        String email = emailOnShard(1, "deleted");
+        User user = userService.createUser(user(email, "+380503333333"));
+
+        userService.deleteUser(user.getId());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(user.getId()));
+        assertEquals(1, database(1).queryForObject("SELECT COUNT(*) FROM user_tombstone WHERE user_id = ?",
+                Integer.class, user.getId()));
+        userService.createUser(user(email, "+380503333333"));
+    }
+
+    @Test
+    void testStaleClaimOfUncommittedWriteIsTakenOver() {
+        Timestamp longAgo = Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS));
+        database(0).update("INSERT INTO user_contact (contact_type, contact, user_id, claimed_at) VALUES (?, ?, ?, ?)",
+                "EMAIL", "stale@example.com", UserShards.firstId(1) + 1000, longAgo);
+        database(0).update("INSERT INTO user_contact (contact_type, contact, user_id, claimed_at) VALUES (?, ?, ?, ?)",
+                "EMAIL", "recent@example.com", UserShards.firstId(1) + 1001, Timestamp.from(Instant.now()));
+
+        User user = userService.createUser(user("stale@example.com", null));
+
+        assertEquals(user.getId(), database(0).queryForObject(
+                "SELECT user_id FROM user_contact WHERE contact = 'stale@example.com'", Long.class));
+        assertThrows(EmailAlreadyExistsException.class,
+                () -> userService.createUser(user("recent@example.com", null)));
+    }
+
+    @Test
+    void testCreateUsersReportsConflictsAcrossShards() {
+        userService.createUser(user(emailOnShard(0, "existing"), "+380504444444"));
+        List<User> batch = IntStream.range(0, 6)
+                .mapToObj(i -> user("batch" + i + "@example.com", null))
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        batch.add(user(emailOnShard(2, "conflicting"), "+380504444444"));
+        batch.add(user("batch0@example.com", null));
+
+        List<UserBatchResult> results = userService.createUsers(batch);
+
+        assertEquals(8, results.size());
+        assertTrue(results.subList(0, 6).stream().allMatch(UserBatchResult::isCreated));
+        assertInstanceOf(PhoneNumberAlreadyExistsException.class, results.get(6).error());
+        assertInstanceOf(EmailAlreadyExistsException.class, results.get(7).error());
+        results.subList(0, 6).forEach(result -> assertEquals(shards.shardFor(result.user().getEmail()),
+                shards.shardOf(result.user().getId()).orElseThrow()));
+    }
+
+    @Test
+    void testIdOfNoShardIsNotFound() {
+        long unknownId = UserShards.firstId(5) + 1;
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(unknownId));
+        assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(unknownId));
+        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(unknownId, user("x@example.com", null)));
+    }
+
+    @Test
+    void testDeleteUsersDeletesOnEveryShard() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(userService.createUser(user("bulk" + i + "@example.com", null)).getId());
+        }
+        ids.add(UserShards.firstId(7) + 1);
+
+        assertEquals(10, userService.deleteUsers(ids));
+
+        assertFalse(userService.getAllUsers(null, 10).hasContent());
+        assertEquals(0, database(0).queryForObject("SELECT COUNT(*) FROM user_contact", Integer.class));
+    }
+
+    private String emailOnShard(int shard, String name) {
+        for (int i = 0; ; i++) {
+            String email = name + i + "@example.com";
+            if (shards.shardFor(email) == shard) {
+                return email;
+            }
+        }
+    }
+
+    private static User user(String email, String phoneNumber) {
+        return user(email, phoneNumber, ADULT_BIRTH_DATE);
+    }
+
+    private static User user(String email, String phoneNumber, LocalDate birthDate) {
+        return new User(null, email, "John", "Doe", birthDate, null, phoneNumber);
+    }
+
+    private static JdbcTemplate database(int shard) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(SHARD_URLS.get(shard));
+        dataSource.setUser("sa");
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,195 @@
+package org.vitaliistf.userapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.vitaliistf.userapi.dto.ImportJobDto;
+import org.vitaliistf.userapi.entity.ImportJob;
+import org.vitaliistf.userapi.entity.ImportJobError;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.exception.EmailAlreadyExistsException;
+import org.vitaliistf.userapi.exception.ImportJobStateException;
+import org.vitaliistf.userapi.exception.ResourceNotFoundException;
+import org.vitaliistf.userapi.mapper.UserMapperImpl;
+import org.vitaliistf.userapi.repository.ImportJobErrorRepository;
+import org.vitaliistf.userapi.repository.ImportJobRepository;
+import org.vitaliistf.userapi.service.impl.UserImportServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserImportServiceImplTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Mock
+    private ImportJobRepository importJobRepository;
+
+    @Mock
+    private ImportJobErrorRepository importJobErrorRepository;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+
+    private UserImportServiceImpl userImportService;
+
+    private ImportJob job;
+
+    @BeforeEach
+    void setUp() {
+        userImportService = new UserImportServiceImpl(importJobRepository, importJobErrorRepository, userService,
+                new UserMapperImpl(), validatorFactory.getValidator(), transactionManager,
+                Jackson2ObjectMapperBuilder.json(), new SimpleMeterRegistry(), directory, 2, 1, 100);
+        job = new ImportJob(ImportJob.Format.CSV, Instant.now());
+        job.setId(1L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        userImportService.destroy();
+        validatorFactory.close();
+    }
+
+    @Test
+    void testStartImport_Csv() {
+        String csv = """
+                email,firstName,lastName,birthDate,address,phoneNumber
+                new@example.com,John,Doe,1990-01-01,"1 Main St, Apt 2",
+                taken@example.com,Jane,Doe,1990-01-01,,
+                invalid,Bob,Doe,1990-01-01,,+12345678901
+                """;
+        when(importJobRepository.save(any(ImportJob.class))).thenAnswer(invocation -> {
+            ImportJob saved = invocation.getArgument(0);
+            if (saved.getId() == null) {
+                saved.setId(1L);
+            }
+            return saved;
+        });
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            return users.stream()
+                    .map(user -> user.getEmail().startsWith("taken")
+                            ? UserBatchResult.failed(new EmailAlreadyExistsException("Email " + user.getEmail() + " already exists"))
+                            : UserBatchResult.created(user))
+                    .toList();
+        });
+
+        ImportJobDto queued = userImportService.startImport(ImportJob.Format.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("QUEUED", queued.status());
+        verify(importJobRepository, timeout(TIMEOUT_MILLIS).atLeastOnce())
+                .save(argThat(saved -> saved.getStatus() == ImportJob.Status.COMPLETED));
+        assertEquals(3, job.getRowsProcessed());
+        assertEquals(1, job.getRowsImported());
+        assertEquals(2, job.getRowsFailed());
+
+        ArgumentCaptor<List<User>> users = ArgumentCaptor.captor();
+        verify(userService, times(1)).createUsers(users.capture());
+        assertEquals("1 Main St, Apt 2", users.getValue().get(0).getAddress());
+        assertEquals(null, users.getValue().get(0).getPhoneNumber());
+        ArgumentCaptor<List<ImportJobError>> errors = ArgumentCaptor.captor();
+        verify(importJobErrorRepository, times(2)).saveAll(errors.capture());
+        assertEquals(2, errors.getAllValues().get(0).get(0).getRowNum());
+        assertEquals("Email taken@example.com already exists", errors.getAllValues().get(0).get(0).getMessage());
+        assertEquals(3, errors.getAllValues().get(1).get(0).getRowNum());
+        assertEquals("email: Email is not valid.", errors.getAllValues().get(1).get(0).getMessage());
+        assertFalse(Files.exists(directory.resolve("1.csv")));
+    }
+
+    @Test
+    void testResumeImport_SkipsCommittedRows() throws Exception {
+        job.setFormat(ImportJob.Format.NDJSON);
+        job.setStatus(ImportJob.Status.FAILED);
+        job.setRowsProcessed(2);
+        job.setRowsImported(2);
+        Files.writeString(directory.resolve("1.ndjson"), """
+                {"email":"first@example.com","firstName":"John","lastName":"Doe","birthDate":"1990-01-01"}
+                {"email":"second@example.com","firstName":"John","lastName":"Doe","birthDate":"1990-01-01"}
+                {"email":"third@example.com","firstName":"John","lastName":"Doe","birthDate":"1990-01-01"}
+                """);
+        when(importJobRepository.save(any(ImportJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(userService.createUsers(anyList())).thenAnswer(invocation -> invocation.<List<User>>getArgument(0).stream()
+                .map(UserBatchResult::created)
+                .toList());
+
+        userImportService.resumeImport(1L);
+
+        verify(importJobRepository, timeout(TIMEOUT_MILLIS).atLeastOnce())
+                .save(argThat(saved -> saved.getStatus() == ImportJob.Status.COMPLETED));
+        verify(userService, times(1)).createUsers(argThat(users -> users.size() == 1
+                && users.get(0).getEmail().equals("third@example.com")
+                && users.get(0).getBirthDate().equals(LocalDate.of(1990, 1, 1))));
+        assertEquals(3, job.getRowsProcessed());
+        assertEquals(3, job.getRowsImported());
+        assertEquals(2, job.getResumedFromRow());
+    }
+
+    @Test
+    void testResumeImport_NotFailed() {
+        job.setStatus(ImportJob.Status.COMPLETED);
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+
+        assertThrows(ImportJobStateException.class, () -> userImportService.resumeImport(1L));
+        verify(importJobRepository, never()).save(any());
+    }
+
+    @Test
+    void testGetImport_NotFound() {
+        when(importJobRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userImportService.getImport(1L));
+    }
+
+    @Test
+    void testGetImport_WithErrors() {
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setStartedAt(Instant.now().minusSeconds(2));
+        job.setRowsProcessed(100);
+        job.setRowsFailed(1);
+        when(importJobRepository.findById(1L)).thenReturn(Optional.of(job));
+        when(importJobErrorRepository.findByJobIdOrderByRowNum(1L))
+                .thenReturn(List.of(new ImportJobError(1L, 7, "User must be at least 18 years old")));
+
+        ImportJobDto result = userImportService.getImport(1L);
+
+        assertEquals("RUNNING", result.status());
+        assertEquals(7, result.errors().get(0).row());
+        assertEquals(50, result.rowsPerSecond(), 5);
+    }
+}
@@ -1,22 +1,55 @@
 package org.vitaliistf.userapi.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.vitaliistf.userapi.cache.UserCache;
+import org.vitaliistf.userapi.dto.UserChangesDto;
+import org.vitaliistf.userapi.dto.UserDeltaDto;
+import org.vitaliistf.userapi.dto.UserDto;
 import org.vitaliistf.userapi.exception.*;
 import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.mapper.UserMapper;
+import org.vitaliistf.userapi.mapper.UserMapperImpl;
+import org.vitaliistf.userapi.outbox.UserChangeOutbox;
+import org.vitaliistf.userapi.outbox.UserChangeType;
+import org.vitaliistf.userapi.repository.UserContactView;
+import org.vitaliistf.userapi.repository.UserDeltaView;
 import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.routing.ReplicaRouting;
+import org.vitaliistf.userapi.search.UserSearchIndex;
+import org.vitaliistf.userapi.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -26,56 +59,161 @@ class UserServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Mock
+    private EntityManager entityManager;
+
     private UserService userService;
 
+    private final UserMapper userMapper = new UserMapperImpl();
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new UserCache(100, Duration.ofMinutes(1), false, new SimpleMeterRegistry());
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(), 18, 50, 1000, 2, 100000, true, Duration.ZERO);
+    }
+
     @Test
     void testGetAllUsers() {
+        UserDto user1 = new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 0L);
+        UserDto user2 = new UserDto(2L, "test2@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, null, 0L);
+        Slice<UserDto> users = new SliceImpl<>(Arrays.asList(user1, user2));
+
+        when(userRepository.findByIdGreaterThan(eq(0L), any(Pageable.class))).thenReturn(users);
+
+        Slice<UserDto> result = userService.getAllUsers(null, null);
+
+        assertEquals(users, result);
+        verify(userRepository, times(1)).findByIdGreaterThan(0L, PageRequest.of(0, 50, Sort.by("id")));
+    }
+
+    @Test
+    void testGetAllUsers_AfterIdWithLimitAboveMax() {
+        when(userRepository.findByIdGreaterThan(eq(10L), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of()));
+
+        userService.getAllUsers(10L, 5000);
+
+        verify(userRepository, times(1)).findByIdGreaterThan(10L, PageRequest.of(0, 1000, Sort.by("id")));
+    }
+
+    @Test
+    void testGetAllUsers_Fields() {
+        Set<String> fields = Set.of("firstName");
+        Slice<Map<String, Object>> users = new SliceImpl<>(List.of(Map.of("firstName", "John", "id", 1L)));
+
+        when(userRepository.findFieldsByIdGreaterThan(eq(fields), eq(0L), any(Pageable.class))).thenReturn(users);
+
+        assertEquals(users, userService.getAllUsers(null, null, fields));
+        verify(userRepository, times(1)).findFieldsByIdGreaterThan(fields, 0L, PageRequest.of(0, 50));
+        verify(userRepository, never()).findByIdGreaterThan(any(), any());
+    }
+
+    @Test
+    void testExportUsers() {
         User user1 = new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
         User user2 = new User(2L, "test2@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, null);
-        List<User> users = Arrays.asList(user1, user2);
+        List<User> exported = new ArrayList<>();
 
-        when(userRepository.findAll()).thenReturn(users);
+        when(userRepository.streamAll()).thenReturn(Stream.of(user1, user2));
 
-        List<User> result = userService.getAllUsers();
+        userService.exportUsers(exported::add);
 
-        assertEquals(users, result);
-        verify(userRepository, times(1)).findAll();
+        assertEquals(List.of(user1, user2), exported);
+        verify(entityManager, times(1)).detach(user1);
+        verify(entityManager, times(1)).detach(user2);
     }
 
     @Test
     void testGetUserById_Exists() {
-        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        UserDto user = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 0L);
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(user));
 
-        User result = userService.getUserById(1L);
+        UserDto result = userService.getUserById(1L);
 
         assertEquals(user, result);
-        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, times(1)).findDtoById(1L);
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetUserById_Cached() {
+        UserDto user = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 0L);
+
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(user));
+
+        UserDto first = userService.getUserById(1L);
+        UserDto second = userService.getUserById(1L);
+
+        assertEquals(first, second);
+        verify(userRepository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    void testGetUserById_FieldsCached() {
+        UserDto user = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 0L);
+        userCache.put(user);
+
+        Map<String, Object> result = userService.getUserById(1L, new LinkedHashSet<>(List.of("id", "firstName")));
+
+        assertEquals(Map.of("id", 1L, "firstName", "John"), result);
+        verify(userRepository, never()).findFieldsById(any(), any());
+    }
+
+    @Test
+    void testGetUserById_FieldsNotFound() {
+        when(userRepository.findFieldsById(Set.of("firstName"), 1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L, Set.of("firstName")));
     }
 
     @Test
     void testGetUserById_NotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
+        verify(userRepository, times(2)).findDtoById(1L);
+    }
+
+    @Test
+    void testGetUserById_NotFoundCached() {
+        userCache = new UserCache(100, Duration.ofMinutes(1), true, new SimpleMeterRegistry());
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(), 18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
-        verify(userRepository, times(1)).findById(1L);
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(1L));
+        verify(userRepository, times(1)).findDtoById(1L);
     }
 
     @Test
     void testCreateUser_ValidAge() {
         User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
-        when(userRepository.save(any(User.class))).thenReturn(user);
-        when(userRepository.existsByEmail(any(String.class))).thenReturn(false);
-        when(userRepository.existsByPhoneNumber(any(String.class))).thenReturn(false);
+        User savedUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of());
 
         User createdUser = userService.createUser(user);
 
-        assertEquals(user, createdUser);
+        assertEquals(savedUser, createdUser);
         verify(userRepository, times(1)).save(user);
     }
 
+    @Test
+    void testCreateUser_WithoutUniquenessPreCheck() {
+        User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(), 18, 50, 1000, 2, 100000, false, Duration.ZERO);
+        User savedUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+
+        User createdUser = userService.createUser(user);
+
+        assertEquals(savedUser, createdUser);
+        verify(userRepository, never()).findContactConflicts(any(), any(), any());
+    }
+
     @Test
     void testCreateUser_InvalidAge() {
         User user = new User(null, "test@example.com", "John", "Doe", LocalDate.now().plusYears(1), "123 Main St", "1234567890");
@@ -87,7 +225,7 @@ class UserServiceImplTest {
     @Test
     void testCreateUser_EmailAlreadyExists() {
         User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
-        when(userRepository.existsByEmail(any(String.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact("test@example.com", null)));
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.createUser(user));
         verify(userRepository, never()).save(any(User.class));
@@ -96,13 +234,40 @@ class UserServiceImplTest {
     @Test
     void testCreateUser_PhoneNumberAlreadyExists() {
         User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
-        when(userRepository.existsByEmail(any(String.class))).thenReturn(false);
-        when(userRepository.existsByPhoneNumber(any(String.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact("other@example.com", "1234567890")));
 
         assertThrows(PhoneNumberAlreadyExistsException.class, () -> userService.createUser(user));
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void testCreateUsers() {
+        User valid = new User(null, "new@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, "+12345678901");
+        User existingEmail = new User(null, "taken@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User duplicatePhone = new User(null, "other@example.com", "Bob", "Doe", LocalDate.of(1990, 1, 1), null, "+12345678901");
+        User tooYoung = new User(null, "young@example.com", "Tim", "Doe", LocalDate.now().minusYears(1), null, null);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(), 18, 50, 1000, 10, 100000, true, Duration.ZERO);
+
+        when(userRepository.findExistingEmails(any())).thenReturn(Set.of("taken@example.com"));
+        when(userRepository.findExistingPhoneNumbers(any())).thenReturn(Set.of());
+
+        List<UserBatchResult> results = userService.createUsers(List.of(valid, existingEmail, duplicatePhone, tooYoung));
+
+        assertEquals(valid, results.get(0).user());
+        assertInstanceOf(EmailAlreadyExistsException.class, results.get(1).error());
+        assertInstanceOf(PhoneNumberAlreadyExistsException.class, results.get(2).error());
+        assertInstanceOf(InvalidAgeException.class, results.get(3).error());
+        verify(userRepository, times(1)).saveAll(List.of(valid));
+    }
+
+    @Test
+    void testCreateUsers_BatchTooLarge() {
+        User user = new User(null, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+
+        assertThrows(BatchTooLargeException.class, () -> userService.createUsers(List.of(user, user, user)));
+        verify(userRepository, never()).saveAll(any());
+    }
+
     @Test
     void testUpdateUser_Exists() {
         User existingUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
@@ -110,13 +275,124 @@ class UserServiceImplTest {
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
         when(userRepository.save(any(User.class))).thenReturn(updatedUser);
-        when(userRepository.existsByEmailAndIdNot(any(String.class), any(Long.class))).thenReturn(false);
-        when(userRepository.existsByPhoneNumberAndIdNot(any(String.class), any(Long.class))).thenReturn(false);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of());
 
         User result = userService.updateUser(1L, updatedUser);
 
         assertEquals(updatedUser, result);
-        verify(userRepository, times(1)).save(updatedUser);
+        verify(userRepository, times(1)).save(existingUser);
+    }
+
+    @Test
+    void testUpdateUser_RefreshesCache() {
+        User existingUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        User updatedUser = new User(1L, "updated@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, null);
+
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(userMapper.userToUserDto(existingUser)));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of());
+
+        userService.getUserById(1L);
+        userService.updateUser(1L, updatedUser);
+        UserDto result = userService.getUserById(1L);
+
+        assertEquals("updated@example.com", result.email());
+        verify(userRepository, times(1)).findDtoById(1L);
+    }
+
+    @Test
+    void testUpdateUser_VersionMismatch() {
+        User existingUser = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
+        existingUser.setVersion(3L);
+        User updatedUser = new User(null, "updated@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, null);
+        updatedUser.setVersion(2L);
+
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(1L, updatedUser));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void testPatchUser() {
+        User changes = new User(null, "updated@example.com", null, null, null, null, null);
+        userCache.put(new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L));
+
+        when(userRepository.updateNonNullFields(1L, null, changes)).thenReturn(1);
+
+        userService.patchUser(1L, changes);
+
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findContactConflicts(any(), any(), any());
+        assertTrue(userCache.getIfPresent(1L).isEmpty());
+    }
+
+    @Test
+    void testPatchUser_NotFound() {
+        User changes = new User(null, "updated@example.com", null, null, null, null, null);
+
+        when(userRepository.updateNonNullFields(1L, null, changes)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.patchUser(1L, changes));
+        verify(userRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    void testPatchUser_VersionedNotFound() {
+        User changes = new User(null, "updated@example.com", null, null, null, null, null);
+        changes.setVersion(2L);
+
+        when(userRepository.updateNonNullFields(1L, 2L, changes)).thenReturn(0);
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.patchUser(1L, changes));
+    }
+
+    @Test
+    void testPatchUser_VersionMismatch() {
+        User changes = new User(null, "updated@example.com", null, null, null, null, null);
+        changes.setVersion(2L);
+
+        when(userRepository.updateNonNullFields(1L, 2L, changes)).thenReturn(0);
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(3L));
+
+        assertThrows(PreconditionFailedException.class, () -> userService.patchUser(1L, changes));
+    }
+
+    @Test
+    void testGetUserVersion() {
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.of(5L));
+
+        assertEquals(5L, userService.getUserVersion(1L));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void testGetUserVersion_ReadsPrimary() {
+        when(userRepository.findVersionById(1L))
+                .thenAnswer(invocation -> ReplicaRouting.isPrimaryRequired() ? Optional.of(5L) : Optional.of(4L));
+
+        assertEquals(5L, userService.getUserVersion(1L));
+        assertFalse(ReplicaRouting.isPrimaryRequired());
+    }
+
+    @Test
+    void testGetUserVersion_Cached() {
+        UserDto user = new UserDto(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 7L);
+        when(userRepository.findDtoById(1L)).thenReturn(Optional.of(user));
+
+        userService.getUserById(1L);
+
+        assertEquals(7L, userService.getUserVersion(1L));
+        verify(userRepository, never()).findVersionById(any());
+    }
+
+    @Test
+    void testGetUserVersion_NotFound() {
+        when(userRepository.findVersionById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.getUserVersion(1L));
     }
 
     @Test
@@ -135,7 +411,7 @@ class UserServiceImplTest {
         User updatedUser = new User(1L, "existing@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, null);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByEmailAndIdNot(any(String.class), any(Long.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact("existing@example.com", null)));
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.updateUser(1L, updatedUser));
         verify(userRepository, never()).save(any(User.class));
@@ -147,8 +423,7 @@ class UserServiceImplTest {
         User updatedUser = new User(1L, "updated@example.com", "Jane", "Smith", LocalDate.of(1985, 5, 15), null, "1234567890");
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByEmailAndIdNot(any(String.class), any(Long.class))).thenReturn(false);
-        when(userRepository.existsByPhoneNumberAndIdNot(any(String.class), any(Long.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact("other@example.com", "1234567890")));
 
         assertThrows(PhoneNumberAlreadyExistsException.class, () -> userService.updateUser(1L, updatedUser));
         verify(userRepository, never()).save(any(User.class));
@@ -189,7 +464,7 @@ class UserServiceImplTest {
         User updatedUser = new User(1L, "existing@example.com", null, null, null, null, null);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByEmailAndIdNot(any(String.class), any(Long.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact("existing@example.com", null)));
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.partialUpdateUser(1L, updatedUser));
         verify(userRepository, never()).save(any(User.class));
@@ -201,7 +476,7 @@ class UserServiceImplTest {
         User updatedUser = new User(1L, null, null, null, null, null, "1234567890");
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByPhoneNumberAndIdNot(any(String.class), any(Long.class))).thenReturn(true);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of(contact(null, "1234567890")));
 
         assertThrows(PhoneNumberAlreadyExistsException.class, () -> userService.partialUpdateUser(1L, updatedUser));
         verify(userRepository, never()).save(any(User.class));
@@ -209,39 +484,79 @@ class UserServiceImplTest {
 
     @Test
     void testDeleteUser_Exists() {
-        User user = new User(1L, "test@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
-
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
 
         userService.deleteUser(1L);
 
-        verify(userRepository, times(1)).delete(user);
+        verify(userRepository).insertTombstones(eq(List.of(1L)), any(Instant.class));
+        verify(userRepository, times(1)).deleteUserById(1L);
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
     void testDeleteUser_NotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(userRepository.deleteUserById(1L)).thenReturn(0);
 
         assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(1L));
-        verify(userRepository, never()).delete(any(User.class));
+    }
+
+    @Test
+    void testDeleteUsers_Chunked() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1500; id++) {
+            ids.add(id);
+        }
+        ids.add(1L);
+
+        when(userRepository.deleteUsersByIdIn(anyCollection())).thenReturn(1000, 400);
+
+        assertEquals(1400, userService.deleteUsers(ids));
+        verify(userRepository).deleteUsersByIdIn(ids.subList(0, 1000));
+        verify(userRepository).deleteUsersByIdIn(ids.subList(1000, 1500));
+        verify(userRepository).insertTombstones(eq(ids.subList(0, 1000)), any(Instant.class));
+        verify(userRepository).insertTombstones(eq(ids.subList(1000, 1500)), any(Instant.class));
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void testDeleteUsers_TooLarge() {
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(), 18, 50, 1000, 2, 2, true, Duration.ZERO);
+
+        assertThrows(BatchTooLargeException.class, () -> userService.deleteUsers(List.of(1L, 2L, 3L)));
+        verify(userRepository, never()).deleteUsersByIdIn(anyCollection());
     }
 
     @Test
     void testGetUsersByBirthDateRange() {
-        User user1 = new User(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890");
-        User user2 = new User(2L, "test2@example.com", "Jane", "Smith", LocalDate.of(1995, 5, 15), null, null);
-        User user3 = new User(3L, "test3@example.com", "Bob", "Johnson", LocalDate.of(1988, 10, 20), "456 Elm St", "9876543210");
-        List<User> users = Arrays.asList(user1, user2, user3);
+        UserDto user1 = new UserDto(3L, "test3@example.com", "Bob", "Johnson", LocalDate.of(1988, 10, 20), "456 Elm St", "9876543210", 0L);
+        UserDto user2 = new UserDto(1L, "test1@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), "123 Main St", "1234567890", 0L);
+        UserDto user3 = new UserDto(2L, "test2@example.com", "Jane", "Smith", LocalDate.of(1995, 5, 15), null, null, 0L);
+        Slice<UserDto> users = new SliceImpl<>(Arrays.asList(user1, user2, user3));
 
         LocalDate startDate = LocalDate.of(1988, 1, 1);
         LocalDate endDate = LocalDate.of(1995, 12, 31);
 
-        when(userRepository.findByBirthDateBetween(startDate, endDate)).thenReturn(users);
+        when(userRepository.findByBirthDateBetweenAfter(eq(startDate), eq(endDate), eq(startDate), eq(0L), any(Pageable.class)))
+                .thenReturn(users);
 
-        List<User> result = userService.getUsersByBirthDateRange(startDate, endDate);
+        Slice<UserDto> result = userService.getUsersByBirthDateRange(startDate, endDate, null, null, null);
 
         assertEquals(users, result);
-        verify(userRepository, times(1)).findByBirthDateBetween(startDate, endDate);
+        verify(userRepository, times(1)).findByBirthDateBetweenAfter(startDate, endDate, startDate, 0L, PageRequest.of(0, 50));
+    }
+
+    @Test
+    void testGetUsersByBirthDateRange_AfterKeyset() {
+        LocalDate startDate = LocalDate.of(1988, 1, 1);
+        LocalDate endDate = LocalDate.of(1995, 12, 31);
+        LocalDate afterBirthDate = LocalDate.of(1990, 1, 1);
+
+        when(userRepository.findByBirthDateBetweenAfter(eq(startDate), eq(endDate), eq(afterBirthDate), eq(1L), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        userService.getUsersByBirthDateRange(startDate, endDate, afterBirthDate, 1L, 10);
+
+        verify(userRepository, times(1)).findByBirthDateBetweenAfter(startDate, endDate, afterBirthDate, 1L, PageRequest.of(0, 10));
     }
 
     @Test
@@ -249,8 +564,8 @@ class UserServiceImplTest {
         LocalDate startDate = LocalDate.of(2000, 1, 1);
         LocalDate endDate = LocalDate.of(1995, 12, 31);
 
-        assertThrows(InvalidDateRangeException.class, () -> userService.getUsersByBirthDateRange(startDate, endDate));
-        verify(userRepository, never()).findByBirthDateBetween(any(LocalDate.class), any(LocalDate.class));
+        assertThrows(InvalidDateRangeException.class, () -> userService.getUsersByBirthDateRange(startDate, endDate, null, null, null));
+        verify(userRepository, never()).findByBirthDateBetweenAfter(any(), any(), any(), any(), any());
     }
 
 //    @Test
@@ -285,8 +600,7 @@ class UserServiceImplTest {
         User updatedUser = new User(1L, "updated@example.com", "Jane", "Smith", LocalDate.now().plusYears(1), null, null);
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
-        when(userRepository.existsByEmailAndIdNot(any(String.class), any(Long.class))).thenReturn(false);
-        when(userRepository.existsByPhoneNumberAndIdNot(any(String.class), any(Long.class))).thenReturn(false);
+        when(userRepository.findContactConflicts(any(), any(), any())).thenReturn(List.of());
 
         assertThrows(InvalidAgeException.class, () -> userService.updateUser(1L, updatedUser));
         verify(userRepository, never()).save(any(User.class));
@@ -332,4 +646,206 @@ class UserServiceImplTest {
 //        assertEquals("123 Main St", existingUser.getAddress());
 //        assertEquals("1234567890", existingUser.getPhoneNumber());
 //    }
-}
\ No newline at end of file
+
+    private static UserContactView contact(String email, String phoneNumber) {
+        return new UserContactView() {
+            @Override
+            public String getEmail() {
+                return email;
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return phoneNumber;
+            }
+        };
+    }
+
+    @Test
+    void testSearchUsers_FullText() {
+        User user1 = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User user2 = new User(2L, "johnny@example.com", "Johnny", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User user3 = new User(3L, "doe@example.com", "Jo", "Doe", LocalDate.of(1990, 1, 1), null, null);
+
+        when(userRepository.searchByFullText("+\"john\" +\"doe\"", 3, 4L)).thenReturn(List.of(user1, user2, user3));
+
+        Slice<UserDto> result = userService.searchUsers(" john -doe* ", 4, 2);
+
+        assertEquals(List.of(userMapper.userToUserDto(user1), userMapper.userToUserDto(user2)), result.getContent());
+        assertTrue(result.hasNext());
+        verify(userRepository, never()).searchByPhonePrefix(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testSearchUsers_PhonePrefix() {
+        when(userRepository.searchByPhonePrefix("+380", 51, 0L)).thenReturn(List.of());
+
+        Slice<UserDto> result = userService.searchUsers("+380", null, null);
+
+        assertTrue(result.getContent().isEmpty());
+        verify(userRepository, never()).searchByFullText(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testSearchUsers_NoSearchableTerm() {
+        assertThrows(InvalidSearchQueryException.class, () -> userService.searchUsers("a \"*\"", null, null));
+        verify(userRepository, never()).searchByFullText(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testSuggestUsers_FromSearchIndex() {
+        UserSearchIndex searchIndex = mock(UserSearchIndex.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.of(searchIndex), Optional.empty(),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        List<UserDto> users = List.of(new UserDto(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 0L));
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("jon", 5)).thenReturn(users);
+
+        assertEquals(users, userService.suggestUsers("jon", 5));
+        verify(userRepository, never()).searchByFullText(any(), anyInt(), anyLong());
+    }
+
+    @Test
+    void testSuggestUsers_FallsBackToDatabase() {
+        UserSearchIndex searchIndex = mock(UserSearchIndex.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.of(searchIndex), Optional.empty(),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        User user = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(searchIndex.isReady()).thenReturn(false);
+        when(userRepository.searchByFullText("+\"john\"", 6, 0L)).thenReturn(List.of(user));
+
+        assertEquals(List.of(userMapper.userToUserDto(user)), userService.suggestUsers("john", 5));
+        verify(searchIndex, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void testDeleteUser_Reindexes() {
+        UserSearchIndex searchIndex = mock(UserSearchIndex.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.of(searchIndex), Optional.empty(),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        when(userRepository.deleteUserById(1L)).thenReturn(1);
+
+        userService.deleteUser(1L);
+
+        verify(searchIndex).update(List.of(1L));
+    }
+
+    @Test
+    void testCreateUser_RecordsChange() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        User user = new User(null, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User savedUser = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+
+        userService.createUser(user);
+
+        verify(changeOutbox).recordSaved(UserChangeType.CREATED, List.of(userMapper.userToUserDto(savedUser)));
+    }
+
+    @Test
+    void testUpdateUser_RecordsFlushedChange() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        User existingUser = new User(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        User user = new User(null, "jane@example.com", "Jane", "Doe", LocalDate.of(1990, 1, 1), null, null);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existingUser));
+        when(userRepository.save(existingUser)).thenReturn(existingUser);
+
+        userService.updateUser(1L, user);
+
+        var inOrder = inOrder(userRepository, changeOutbox);
+        inOrder.verify(userRepository).flush();
+        inOrder.verify(changeOutbox).recordSaved(UserChangeType.UPDATED, List.of(userMapper.userToUserDto(existingUser)));
+    }
+
+    @Test
+    void testPatchUser_RecordsChange() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        User user = new User(null, null, "Jane", null, null, null, null);
+        user.setVersion(0L);
+        when(userRepository.updateNonNullFields(1L, 0L, user)).thenReturn(1);
+
+        userService.patchUser(1L, user);
+
+        verify(changeOutbox).recordUpdated(List.of(1L));
+        verify(userRepository, never()).findDtoById(any());
+    }
+
+    @Test
+    void testDeleteUsers_RecordsDeletionOfExistingUsers() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        when(userRepository.lockExistingIds(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+        when(userRepository.deleteUsersByIdIn(List.of(1L, 3L))).thenReturn(2);
+
+        assertEquals(2, userService.deleteUsers(List.of(1L, 2L, 3L)));
+        verify(changeOutbox).recordDeleted(List.of(1L, 3L));
+    }
+
+    @Test
+    void testDeleteUser_NotFound_RecordsNothing() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        when(userRepository.deleteUserById(1L)).thenReturn(0);
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(1L));
+        verifyNoInteractions(changeOutbox);
+    }
+
+    @Test
+    void testGetChanges() {
+        UserChangeOutbox changeOutbox = mock(UserChangeOutbox.class);
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.of(changeOutbox),
+                18, 50, 1000, 2, 100000, true, Duration.ZERO);
+        UserChangesDto changes = new UserChangesDto(List.of(), 5L);
+        when(changeOutbox.findChanges(5L, 50)).thenReturn(changes);
+
+        assertEquals(changes, userService.getChanges(5L, null));
+    }
+
+    @Test
+    void testGetChanges_NotEnabled() {
+        assertThrows(ResourceNotFoundException.class, () -> userService.getChanges(0L, null));
+    }
+
+    @Test
+    void testGetChangedSince() {
+        Instant since = Instant.parse("2024-01-01T00:00:00Z");
+        Instant changedAt = Instant.parse("2024-01-01T00:00:01Z");
+        UserDto user = new UserDto(1L, "john@example.com", "John", "Doe", LocalDate.of(1990, 1, 1), null, null, 1L);
+        when(userRepository.findDeltas(eq(since), eq(0L), any(Instant.class), eq(3))).thenReturn(List.of(
+                new UserDeltaView(1L, changedAt, false),
+                new UserDeltaView(2L, changedAt, true),
+                new UserDeltaView(3L, changedAt, false)));
+        when(userRepository.findDtosByIdIn(List.of(1L, 3L))).thenReturn(List.of(user));
+
+        Slice<UserDeltaDto> changes = userService.getChangedSince(since, null, null, 2);
+
+        assertEquals(List.of(new UserDeltaDto(1L, changedAt, false, user), new UserDeltaDto(2L, changedAt, true, null)),
+                changes.getContent());
+        assertTrue(changes.hasNext());
+    }
+
+    @Test
+    void testGetChangedSince_FromCursorHoldsBackRecentChanges() {
+        userService = new UserServiceImpl(userRepository, userMapper, userCache, entityManager, Optional.empty(), Optional.empty(),
+                18, 50, 1000, 2, 100000, true, Duration.ofSeconds(5));
+        Instant afterChangedAt = Instant.parse("2024-01-01T00:00:01Z");
+        when(userRepository.findDeltas(eq(afterChangedAt), eq(7L), any(Instant.class), eq(51))).thenReturn(List.of());
+
+        Instant before = Instant.now();
+        Slice<UserDeltaDto> changes = userService.getChangedSince(Instant.EPOCH, afterChangedAt, 7L, null);
+
+        assertTrue(changes.getContent().isEmpty());
+        verify(userRepository, never()).findDtosByIdIn(anyCollection());
+        verify(userRepository).findDeltas(eq(afterChangedAt), eq(7L),
+                argThat(until -> !until.isAfter(before.minusSeconds(4))), eq(51));
+    }
+}
@@ -0,0 +1,93 @@
+package org.vitaliistf.userapi.sync;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.vitaliistf.userapi.entity.User;
+import org.vitaliistf.userapi.repository.UserRepository;
+import org.vitaliistf.userapi.sharding.UserShards;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserTombstoneCleanupTest {
+
+    private static final Duration RETENTION = Duration.ofDays(30);
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserShards shards;
+
+    @Test
+    void testDeleteExpired_DeletesInChunksUntilNoneIsLeft() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(userRepository.deleteTombstonesBefore(any(), anyInt())).thenReturn(10000, 10000, 42);
+        UserTombstoneCleanup cleanup = new UserTombstoneCleanup(userRepository, Optional.empty(), transactionManager,
+                RETENTION);
+        Instant before = User.now();
+
+        cleanup.deleteExpired();
+
+        ArgumentCaptor<Instant> deletedBefore = ArgumentCaptor.forClass(Instant.class);
+        verify(userRepository, times(3)).deleteTombstonesBefore(deletedBefore.capture(), eq(10000));
+        verify(transactionManager, times(3)).commit(any());
+        assertFalse(deletedBefore.getValue().isBefore(before.minus(RETENTION)));
+        assertTrue(deletedBefore.getValue().isBefore(before.minus(RETENTION).plusSeconds(60)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteExpired_DeletesOnEveryShard() {
+        when(shards.shardCount()).thenReturn(3);
+        when(shards.inTransaction(anyInt(), any())).thenAnswer(invocation ->
+                invocation.getArgument(1, Supplier.class).get());
+        when(userRepository.deleteTombstonesBefore(any(), anyInt())).thenReturn(5);
+        UserTombstoneCleanup cleanup = new UserTombstoneCleanup(userRepository, Optional.of(shards),
+                transactionManager, RETENTION);
+
+        cleanup.deleteExpired();
+
+        verify(shards).inTransaction(eq(0), any());
+        verify(shards).inTransaction(eq(1), any());
+        verify(shards).inTransaction(eq(2), any());
+        verify(userRepository, times(3)).deleteTombstonesBefore(any(), eq(10000));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDeleteExpired_FailureOnAShardDoesNotSkipTheOthers() {
+        when(shards.shardCount()).thenReturn(2);
+        when(shards.inTransaction(anyInt(), any())).thenAnswer(invocation ->
+                invocation.getArgument(1, Supplier.class).get());
+        when(userRepository.deleteTombstonesBefore(any(), anyInt()))
+                .thenThrow(new IllegalStateException("Shard is down"))
+                .thenReturn(0);
+        UserTombstoneCleanup cleanup = new UserTombstoneCleanup(userRepository, Optional.of(shards),
+                transactionManager, RETENTION);
+
+        cleanup.deleteExpired();
+
+        verify(shards).inTransaction(eq(1), any());
+        verify(userRepository, times(2)).deleteTombstonesBefore(any(), eq(10000));
+    }
+}
@@ -0,0 +1,101 @@
+package org.vitaliistf.userapi.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinimumAgeTest {
+
+    private static final int MIN_AGE = 18;
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+
+    static Stream<Arguments> birthDates() {
+        return Stream.of(
+                Arguments.of("2024-06-15", "2006-06-14", true),
+                Arguments.of("2024-06-15", "2006-06-15", true),
+                Arguments.of("2024-06-15", "2006-06-16", false),
+                Arguments.of("2024-06-15", "1990-01-01", true),
+                Arguments.of("2024-06-15", "2024-06-15", false),
+                // Born on February 29, turning 18 in a non-leap year.
+                Arguments.of("2022-02-27", "2004-02-29", false),
+                Arguments.of("2022-02-28", "2004-02-29", false),
+                Arguments.of("2022-03-01", "2004-02-29", true),
+                // Born on February 29, turning 18 in a leap year.
+                Arguments.of("2018-02-28", "2000-02-29", false),
+                Arguments.of("2018-03-01", "2000-02-29", true),
+                Arguments.of("2024-02-28", "2006-02-28", true),
+                Arguments.of("2024-02-28", "2006-03-01", false),
+                // Today is February 29.
+                Arguments.of("2024-02-29", "2006-02-28", true),
+                Arguments.of("2024-02-29", "2006-03-01", false),
+                Arguments.of("2024-02-29", "2000-02-29", true),
+                Arguments.of("2024-03-01", "2006-02-28", true),
+                Arguments.of("2024-03-01", "2006-03-01", true),
+                Arguments.of("2024-03-01", "2006-03-02", false));
+    }
+
+    @ParameterizedTest
+    @MethodSource("birthDates")
+    void testIsReachedBy_MatchesPeriodBetween(LocalDate today, LocalDate birthDate, boolean expected) {
+        MinimumAge minimumAge = new MinimumAge(MIN_AGE, clockAt(today));
+
+        boolean reached = minimumAge.isReachedBy(birthDate);
+
+        assertEquals(expected, reached);
+        assertEquals(Period.between(birthDate, today).getYears() >= MIN_AGE, reached);
+    }
+
+    @Test
+    void testIsReachedBy_MovesToTheNextDay() {
+        MutableClock clock = new MutableClock(clockAt(LocalDate.of(2024, 6, 14)).instant());
+        MinimumAge minimumAge = new MinimumAge(MIN_AGE, clock);
+        LocalDate birthDate = LocalDate.of(2006, 6, 15);
+
+        assertFalse(minimumAge.isReachedBy(birthDate));
+
+        clock.instant = clockAt(LocalDate.of(2024, 6, 15)).instant();
+
+        assertTrue(minimumAge.isReachedBy(birthDate));
+    }
+
+    private static Clock clockAt(LocalDate today) {
+        return Clock.fixed(today.atStartOfDay(ZONE).toInstant(), ZONE);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONE;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.vitaliistf.userapi.validation;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import jakarta.validation.constraints.Email;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class EmailAddressValidatorTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    private final EmailAddressValidator emailAddressValidator = new EmailAddressValidator();
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    static Stream<Arguments> emails() {
+        return Stream.of(
+                Arguments.of("john.doe@example.com", true),
+                Arguments.of("JOHN.DOE@EXAMPLE.COM", true),
+                Arguments.of("a".repeat(64) + "@example.com", true),
+                Arguments.of("a".repeat(65) + "@example.com", false),
+                Arguments.of("john@" + "a".repeat(63) + ".com", true),
+                Arguments.of("john@" + "a".repeat(64) + ".com", false),
+                Arguments.of("john@mail.ex-ample.com", true),
+                Arguments.of("john@-example.com", false),
+                Arguments.of("john@example-.com", false),
+                Arguments.of("john@mail.-example.com", false),
+                Arguments.of("john@example.c", false),
+                Arguments.of("john@example.co", true),
+                Arguments.of("john@example.museum", true),
+                Arguments.of("john@example.abcdefg", false),
+                Arguments.of("john@example.c0m", false),
+                Arguments.of("john@localhost", false),
+                Arguments.of("john_doe@example.com", true),
+                Arguments.of("john’doe@example.com", true),
+                Arguments.of("john+tag!#$%&*/=?`{|}~^-@example.com", true),
+                Arguments.of("john\"doe@example.com", false),
+                Arguments.of(".john@example.com", false),
+                Arguments.of("john.@example.com", false),
+                Arguments.of("john..doe@example.com", false),
+                Arguments.of("john@example..com", false),
+                Arguments.of("john@example.com.", false),
+                Arguments.of("john@doe@example.com", false),
+                Arguments.of("@example.com", false),
+                Arguments.of("john@", false),
+                Arguments.of("john.doe", false),
+                Arguments.of("", false));
+    }
+
+    @ParameterizedTest
+    @MethodSource("emails")
+    void testIsValid_MatchesRegexConstraint(String email, boolean expected) {
+        boolean valid = emailAddressValidator.isValid(email, null);
+
+        assertEquals(expected, valid);
+        assertEquals(isValidByRegexConstraint(email), valid);
+    }
+
+    private static boolean isValidByRegexConstraint(String email) {
+        return validator.validateValue(RegexEmail.class, "email", email).isEmpty();
+    }
+
+    /**
+     * The email constraint used before {@link EmailAddress}.
+     */
+    private record RegexEmail(
+            @Email(regexp = "^[\\w!#$%&’*+/=?`{|}~^-]+(?:\\.[\\w!#$%&’*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$",
+                    message = "Email is not valid.")
+            String email) {
+    }
+}
@@ -0,0 +1,47 @@
+package org.vitaliistf.userapi.validation;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PhoneNumberValidatorTest {
+
+    /**
+     * The regular expression of the @Pattern constraint used before {@link PhoneNumber}.
+     */
+    private static final Pattern PHONE_NUMBER_PATTERN = Pattern.compile("^\\+[0-9]{10,15}$");
+
+    private final PhoneNumberValidator phoneNumberValidator = new PhoneNumberValidator();
+
+    static Stream<Arguments> phoneNumbers() {
+        return Stream.of(
+                Arguments.of("+1234567890", true),
+                Arguments.of("+123456789012345", true),
+                Arguments.of("+123456789", false),
+                Arguments.of("+1234567890123456", false),
+                Arguments.of("1234567890", false),
+                Arguments.of("12345678901", false),
+                Arguments.of("++1234567890", false),
+                Arguments.of("+12345-67890", false),
+                Arguments.of("+12345 67890", false),
+                Arguments.of("+12345678a0", false),
+                Arguments.of("+１２３４５６７８９０", false),
+                Arguments.of("+1234567890\n", false),
+                Arguments.of("+", false),
+                Arguments.of("", false));
+    }
+
+    @ParameterizedTest
+    @MethodSource("phoneNumbers")
+    void testIsValid_MatchesRegexConstraint(String phoneNumber, boolean expected) {
+        boolean valid = phoneNumberValidator.isValid(phoneNumber, null);
+
+        assertEquals(expected, valid);
+        assertEquals(PHONE_NUMBER_PATTERN.matcher(phoneNumber).matches(), valid);
+    }
+}